@@ -0,0 +1,66 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.carlosmoreno.store.products_service.security.ApiKeyFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Coste por petición de {@link ApiKeyFilter} en products-service, con la
+ * API key correcta (autentica y sigue la cadena) y sin ella (responde 401).
+ * Cada invocación crea su petición y su respuesta, como haría el contenedor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiKeyFilterBenchmark {
+
+    private static final String API_KEY = "benchmark-api-key";
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    @Param({ "valid", "missing" })
+    public String key;
+
+    private ApiKeyFilter filter;
+
+    @Setup
+    public void setUp() {
+        filter = new ApiKeyFilter();
+        ReflectionTestUtils.setField(filter, "validApiKey", API_KEY);
+    }
+
+    @Benchmark
+    public int filter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        if ("valid".equals(key)) {
+            request.addHeader("X-API-KEY", API_KEY);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, CHAIN);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,51 @@
+package com.carlosmoreno.store.benchmarks;
+
+import org.mockito.Mockito;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+/**
+ * Contexto mínimo de inventory-service para los benchmarks: la capa JPA
+ * sobre H2 en modo MySQL y los servicios de compra, sin servidor web. La
+ * validación de productos se sustituye por un mock para medir solo el
+ * trabajo del inventario.
+ *
+ * <p>La configuración se lee de {@code inventory-benchmark.properties} en
+ * lugar de los {@code application.properties} de los servicios, que están
+ * ambos en el classpath.</p>
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Inventory.class)
+@EnableJpaRepositories(basePackageClasses = InventoryRepository.class)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class })
+class InventoryBenchmarkConfig {
+
+    @Bean
+    ProductClient productClient() {
+        return Mockito.mock(ProductClient.class);
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(InventoryBenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.name=inventory-benchmark")
+                .logStartupInfo(false)
+                .run();
+    }
+}
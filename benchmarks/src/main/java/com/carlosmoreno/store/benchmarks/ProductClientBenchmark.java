@@ -0,0 +1,100 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.client.ProductReplica;
+import com.carlosmoreno.store.inventory_service.client.ProductSummary;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link ProductClient#getProductById} contra un products-service simulado
+ * en localhost. Con {@code cache=hit} se mide el camino de la cache local;
+ * con {@code miss} la cache no guarda nada y cada consulta hace la llamada
+ * HTTP completa (WebClient, timeout, circuit breaker y bulkhead).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductClientBenchmark {
+
+    @Param({ "hit", "miss" })
+    public String cache;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ProductClient client;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        serverThreads = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/products/", ProductClientBenchmark::respond);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProductReplica replica = new ProductReplica(baseUrl, "key", false, Duration.ofSeconds(1), 1000,
+                WebClient.builder(), meterRegistry);
+        Duration ttl = "hit".equals(cache) ? Duration.ofHours(1) : Duration.ZERO;
+        client = new ProductClient(baseUrl, "key", 10_000, ttl, ttl, false, Duration.ZERO, 100, Duration.ZERO,
+                CircuitBreaker.ofDefaults("products"), Bulkhead.ofDefaults("products"), replica,
+                WebClient.builder(), meterRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.stop(0);
+        serverThreads.shutdown();
+    }
+
+    @Benchmark
+    public ProductSummary getProductById() {
+        return client.getProductById(1L);
+    }
+
+    /** {@code GET /api/products/{id}}: devuelve siempre el producto pedido. */
+    private static void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        byte[] body = ("{\"id\":" + id + ",\"name\":\"Producto " + id + "\",\"price\":10.0,"
+                + "\"description\":\"Producto de prueba\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.service.ProductImportService;
+import com.carlosmoreno.store.products_service.service.ProductService;
+
+/**
+ * Filas por segundo de la importación masiva del catálogo
+ * ({@link ProductImportService}) desde NDJSON y CSV, frente a crear los
+ * mismos productos uno a uno con {@link ProductService#save}, como hace
+ * {@code POST /api/products}. Cada invocación importa {@value #ROWS} filas y
+ * las tablas se vacían tras cada iteración.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductImportBenchmark {
+
+    private static final int ROWS = 5_000;
+
+    @Param({ "100", "1000" })
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductImportService importService;
+    private ProductService productService;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] ndjson;
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = ProductsBenchmarkConfig.start("products.import.batch-size=" + batchSize);
+        importService = context.getBean(ProductImportService.class);
+        productService = context.getBean(ProductService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        StringBuilder json = new StringBuilder();
+        StringBuilder text = new StringBuilder("name,price,description\n");
+        for (int i = 1; i <= ROWS; i++) {
+            json.append("{\"name\":\"Producto ").append(i).append("\",\"price\":").append(i % 100 + 0.99)
+                    .append(",\"description\":\"Catálogo de proveedor\"}\n");
+            text.append("Producto ").append(i).append(',').append(i % 100 + 0.99)
+                    .append(",Catálogo de proveedor\n");
+        }
+        ndjson = json.toString().getBytes(StandardCharsets.UTF_8);
+        csv = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.update("DELETE FROM product_events");
+        jdbcTemplate.update("DELETE FROM products");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void importNdjson() throws IOException {
+        importService.importNdjson(new ByteArrayInputStream(ndjson), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void importCsv() throws IOException {
+        importService.importCsv(new ByteArrayInputStream(csv), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveOneByOne() {
+        for (int i = 1; i <= ROWS; i++) {
+            productService.save(Product.builder()
+                    .name("Producto " + i)
+                    .price(i % 100 + 0.99)
+                    .description("Catálogo de proveedor")
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.service.ProductSearchIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Latencia de {@link ProductSearchIndex#search} con un catálogo sintético
+ * de {@code catalogSize} productos: dos palabras, dos prefijos, dos prefijos
+ * sin ningún resultado (el peor caso: recorre todos los candidatos), un rango
+ * de precio y texto más precio, todos con una página de 100 resultados. El
+ * índice se llena directamente, sin base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final String[] BRANDS = { "Acme", "Lenovo", "Samsung", "Logitech", "Xiaomi", "Sony", "Dell", "Asus" };
+    private static final String[] KINDS = { "portátil", "monitor", "teclado", "ratón", "auriculares", "tableta",
+            "cargador", "cámara", "altavoz", "impresora" };
+
+    @Param({ "100000" })
+    public int catalogSize;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex(null, null, new SimpleMeterRegistry(), false, Duration.ofSeconds(1),
+                1, 1000, 1000);
+        List<Product> products = new ArrayList<>(catalogSize);
+        for (int i = 1; i <= catalogSize; i++) {
+            products.add(Product.builder()
+                    .id((long) i)
+                    .name(BRANDS[i % BRANDS.length] + " " + KINDS[i % KINDS.length] + " modelo " + i)
+                    .price((double) (i % 2000) + 0.99)
+                    .description("Serie " + (i % 500) + " con garantía de " + (i % 3 + 1) + " años")
+                    .version(0L)
+                    .build());
+        }
+        index.updatedAll(products);
+    }
+
+    @Benchmark
+    public List<Product> twoWords() {
+        return index.search("serie 42", null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> prefixes() {
+        return index.search("port gar", null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> noMatches() {
+        return index.search("port len", null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> priceRange() {
+        return index.search(null, 100.0, 110.0, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Product> wordAndPrice() {
+        return index.search("auriculares", 100.0, 500.0, null, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,126 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.client.ProductSummary;
+import com.carlosmoreno.store.inventory_service.config.ProductsHttpConfig;
+import com.carlosmoreno.store.products_service.ProductsServiceApplication;
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.service.ProductService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Peticiones por segundo de {@code GET /api/products/{id}}, la llamada que
+ * hace {@link ProductClient#getProductById} cuando el producto no está en
+ * cache, contra products-service real (Tomcat con HTTP/2 habilitado, H2 en
+ * memoria) desde 16 hilos. Se usa el mismo transporte que
+ * {@link ProductsHttpConfig} configura para {@code ProductClient}, pero sin
+ * su cache, que agrupa las consultas simultáneas de un mismo id y ocultaría
+ * el coste del transporte. Compara HTTP/1.1, con una conexión del pool por
+ * petición en curso, con h2c, que multiplexa todas en una conexión; y el
+ * cuerpo en JSON decodificado a un {@code Map} con CBOR decodificado a
+ * {@link ProductSummary}, como lo pide ahora {@code ProductClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ProductTransportBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    private static final ParameterizedTypeReference<Map<String, Object>> PRODUCT =
+            new ParameterizedTypeReference<>() {};
+
+    @Param({ "http1", "h2c" })
+    public String protocol;
+
+    @Param({ "json", "cbor" })
+    public String format;
+
+    private ConfigurableApplicationContext products;
+    private ConnectionProvider connections;
+    private WebClient client;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        products = new SpringApplicationBuilder(ProductsServiceApplication.class)
+                .properties("spring.config.name=products-benchmark",
+                        "server.port=0",
+                        "server.http2.enabled=true",
+                        "server.tomcat.keep-alive-timeout=30s",
+                        "server.tomcat.max-keep-alive-requests=-1")
+                .logStartupInfo(false)
+                .run();
+        productId = products.getBean(ProductService.class)
+                .save(Product.builder().name("Producto").price(10.0).description("Producto de prueba").build())
+                .getId();
+        String baseUrl = "http://localhost:"
+                + ((WebServerApplicationContext) products).getWebServer().getPort();
+
+        ProductsHttpConfig http = new ProductsHttpConfig();
+        connections = http.productsConnectionProvider(50, 500, Duration.ofMillis(500), Duration.ofSeconds(15),
+                Duration.ofMinutes(5), Duration.ofSeconds(30), new SimpleMeterRegistry());
+        client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader("X-API-KEY", "benchmark-api-key")
+                .codecs(codecs -> codecs.customCodecs().register(new Jackson2CborDecoder()))
+                .clientConnector(http.productsHttpConnector(connections, protocol, Duration.ofMillis(500),
+                        Duration.ofMillis(1500)))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        connections.dispose();
+        products.close();
+    }
+
+    @Benchmark
+    public Object getProductById() {
+        if ("cbor".equals(format)) {
+            return client.get()
+                    .uri("/api/products/{id}", productId)
+                    .accept(MediaType.APPLICATION_CBOR)
+                    .retrieve()
+                    .bodyToMono(ProductSummary.class)
+                    .block(TIMEOUT);
+        }
+        return client.get()
+                .uri("/api/products/{id}", productId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(PRODUCT)
+                .block(TIMEOUT);
+    }
+}
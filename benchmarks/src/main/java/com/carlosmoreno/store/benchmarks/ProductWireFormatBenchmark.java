@@ -0,0 +1,113 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.carlosmoreno.store.inventory_service.client.ProductSummary;
+import com.carlosmoreno.store.products_service.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Coste en {@code ProductClient} de decodificar la respuesta de
+ * {@code GET /api/products/{id}} ({@code products=1}) y de
+ * {@code POST /api/products/batch} ({@code products=100}) con los decoders
+ * de WebClient: el camino anterior (JSON a {@code Map<String, Object>}),
+ * JSON a {@link ProductSummary} y CBOR a {@link ProductSummary}. Los cuerpos
+ * se generan una vez con los mapper que usa products-service. Con
+ * {@code -prof gc}, {@code gc.alloc.rate.norm} da los bytes asignados por
+ * respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductWireFormatBenchmark {
+
+    private static final ResolvableType MAP =
+            ResolvableType.forType(new ParameterizedTypeReference<Map<String, Object>>() {});
+    private static final ResolvableType MAPS =
+            ResolvableType.forType(new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+    private static final ResolvableType SUMMARY = ResolvableType.forClass(ProductSummary.class);
+    private static final ResolvableType SUMMARIES =
+            ResolvableType.forType(new ParameterizedTypeReference<List<ProductSummary>>() {});
+
+    @Param({ "1", "100" })
+    public int products;
+
+    private final Jackson2JsonDecoder jsonDecoder = new Jackson2JsonDecoder();
+    private final Jackson2CborDecoder cborDecoder = new Jackson2CborDecoder();
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        Object body;
+        if (products == 1) {
+            body = product(1);
+        } else {
+            List<Product> page = new ArrayList<>(products);
+            for (int i = 1; i <= products; i++) {
+                page.add(product(i));
+            }
+            body = page;
+        }
+        json = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(body);
+        cbor = Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public Object jsonToMap() {
+        return decode(jsonDecoder, json, products == 1 ? MAP : MAPS, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public Object jsonToSummary() {
+        return decode(jsonDecoder, json, products == 1 ? SUMMARY : SUMMARIES, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public Object cborToSummary() {
+        return decode(cborDecoder, cbor, products == 1 ? SUMMARY : SUMMARIES, MediaType.APPLICATION_CBOR);
+    }
+
+    private static Object decode(Decoder<?> decoder, byte[] body, ResolvableType type, MediaType mediaType) {
+        return decoder.decodeToMono(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)), type,
+                mediaType, null).block();
+    }
+
+    private static Product product(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Producto " + id)
+                .price(10.0 * id)
+                .description("Descripción del producto " + id)
+                .version(3L)
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.carlosmoreno.store.benchmarks;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.repository.ProductIdGenerator;
+import com.carlosmoreno.store.products_service.repository.ProductRepository;
+import com.carlosmoreno.store.products_service.service.ProductImportService;
+import com.carlosmoreno.store.products_service.service.ProductSearchIndex;
+import com.carlosmoreno.store.products_service.service.ProductService;
+import com.carlosmoreno.store.products_service.service.ProductVersions;
+
+/**
+ * Contexto mínimo de products-service para los benchmarks: la capa JPA
+ * sobre H2 en modo MySQL y los servicios de escritura del catálogo, sin
+ * servidor web. La configuración se lee de
+ * {@code products-benchmark.properties}.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Product.class)
+@EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+@Import({ ProductService.class, ProductVersions.class, ProductSearchIndex.class, ProductImportService.class,
+        ProductIdGenerator.class })
+class ProductsBenchmarkConfig {
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(ProductsBenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.name=products-benchmark")
+                .properties(properties)
+                .logStartupInfo(false)
+                .run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.carlosmoreno.store.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+/**
+ * {@link PurchaseService#purchase} con 1, 8 y 64 hilos. Con
+ * {@code products=same} todos compran el mismo producto y compiten por el
+ * bloqueo de su fila; con {@code different} cada hilo compra el suyo y el
+ * límite es el pool de conexiones. El stock inicial no se agota durante la
+ * medición.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseBenchmark {
+
+    private static final int PRODUCTS = 64;
+    private static final long INITIAL_STOCK = 1_000_000_000L;
+
+    @Param({ "same", "different" })
+    public String products;
+
+    private final AtomicInteger buyers = new AtomicInteger();
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = InventoryBenchmarkConfig.start();
+        purchaseService = context.getBean(PurchaseService.class);
+        InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity(INITIAL_STOCK).build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.getBean(PurchaseHistoryWriter.class).flush();
+        context.close();
+    }
+
+    /** Solicitud de compra de cada hilo; con {@code different} cada hilo usa un producto distinto. */
+    @State(Scope.Thread)
+    public static class Buyer {
+
+        PurchaseRequest request;
+
+        @Setup(Level.Trial)
+        public void setUp(PurchaseBenchmark benchmark) {
+            int buyer = benchmark.buyers.getAndIncrement();
+            request = new PurchaseRequest();
+            request.setProductId("same".equals(benchmark.products) ? 1L : buyer % PRODUCTS + 1L);
+            request.setQuantity(1L);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Inventory purchase1Thread(Buyer buyer) {
+        return purchaseService.purchase(buyer.request);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Inventory purchase8Threads(Buyer buyer) {
+        return purchaseService.purchase(buyer.request);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Inventory purchase64Threads(Buyer buyer) {
+        return purchaseService.purchase(buyer.request);
+    }
+}
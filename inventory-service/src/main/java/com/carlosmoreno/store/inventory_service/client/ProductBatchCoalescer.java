@@ -0,0 +1,99 @@
+package com.carlosmoreno.store.inventory_service.client;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Agrupa las consultas individuales de productos que llegan desde varios
+ * hilos durante una ventana corta y las envía como una sola llamada batch.
+ * Cada llamador recibe su propio {@link CompletableFuture}; los ids que no
+ * vuelven en la respuesta se completan como {@link Optional#empty()}.
+ */
+class ProductBatchCoalescer<T> {
+
+    private final Function<Set<Long>, Mono<Map<Long, T>>> batchLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Map<Long, CompletableFuture<Optional<T>>> pending = new HashMap<>();
+
+    ProductBatchCoalescer(Function<Set<Long>, Mono<Map<Long, T>>> batchLoader,
+                          Duration window, int maxBatchSize) {
+        this.batchLoader = batchLoader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "product-batch-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    CompletableFuture<Optional<T>> load(Long id) {
+        CompletableFuture<Optional<T>> future;
+        Map<Long, CompletableFuture<Optional<T>>> toFlush = null;
+        boolean firstInWindow;
+
+        lock.lock();
+        try {
+            future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            firstInWindow = pending.isEmpty();
+            pending.put(id, future);
+            if (pending.size() >= maxBatchSize) {
+                toFlush = pending;
+                pending = new HashMap<>();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (toFlush != null) {
+            dispatch(toFlush);
+        } else if (firstInWindow) {
+            scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<Optional<T>>> toFlush;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            toFlush = pending;
+            pending = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(toFlush);
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<T>>> batch) {
+        batchLoader.apply(batch.keySet()).defaultIfEmpty(Map.of()).subscribe(
+                found -> batch.forEach((id, f) -> f.complete(Optional.ofNullable(found.get(id)))),
+                error -> batch.values().forEach(f -> f.completeExceptionally(error)));
+    }
+}
@@ -1,52 +1,439 @@
 package com.carlosmoreno.store.inventory_service.client;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 @Component
 public class ProductClient {
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    private static final ParameterizedTypeReference<List<ProductSummary>> PRODUCTS =
+            new ParameterizedTypeReference<>() {};
+
+    /**
+     * Las respuestas se piden en CBOR, más compacto y barato de decodificar
+     * que JSON. Una versión de products-service sin CBOR responde JSON, que
+     * también se acepta. WebClient no registra el decoder CBOR por defecto.
+     */
+    private static final String ACCEPT = "application/cbor, application/json;q=0.9";
+    private static final String CBOR_ETAG_SUFFIX = "-cbor";
+
     private final WebClient webClient;
     private final String apiKey;
 
+    /**
+     * Cache local de existencia de productos. Los productos encontrados viven
+     * {@code products.cache.ttl}; los 404 se guardan como {@link Optional#empty()}
+     * durante {@code products.cache.negative-ttl}. Al ser asíncrona, varias
+     * peticiones simultáneas por el mismo id comparten una única llamada remota.
+     */
+    private final AsyncCache<Long, Optional<ProductSummary>> cache;
+
+    /**
+     * Agrupa las consultas concurrentes de ids distintos en una sola llamada
+     * a {@code POST /api/products/batch}. Es {@code null} si el batching está
+     * deshabilitado.
+     */
+    private final ProductBatchCoalescer<ProductSummary> coalescer;
+    private final int maxBatchSize;
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    /** Primer nivel para las comprobaciones de existencia. */
+    private final ProductReplica replica;
+
+    /**
+     * Último valor conocido de cada producto existente, usado como respaldo
+     * cuando products-service no responde. Es {@code null} si
+     * {@code products.fallback.stale-ttl} es cero.
+     */
+    private final Cache<Long, ProductSummary> lastKnown;
+
+    /**
+     * ETag y cuerpo de la última respuesta de cada producto. Cuando una
+     * entrada de {@link #cache} caduca, el producto se revalida con
+     * {@code If-None-Match} y un 304 reutiliza el cuerpo guardado.
+     */
+    private final Cache<Long, Validated> validators;
+    private final Counter staleHits;
+    private final Counter notModified;
+    private final Counter retries;
+    private final Counter timeouts;
+
+    /**
+     * Reintentos con backoff exponencial y jitter para que los clientes no
+     * reintenten todos a la vez. No se reintenta si el circuit breaker está
+     * abierto o el bulkhead está lleno: eso solo alargaría la espera.
+     */
+    private final Retry retry;
+
     public ProductClient(@Value("${products.service.url:http://products-service:8080}") String baseUrl,
-                         @Value("${api.key}") String apiKey) {
+                         @Value("${api.key}") String apiKey,
+                         @Value("${products.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${products.cache.ttl:60s}") Duration ttl,
+                         @Value("${products.cache.negative-ttl:5s}") Duration negativeTtl,
+                         @Value("${products.batch.enabled:true}") boolean batchEnabled,
+                         @Value("${products.batch.window:5ms}") Duration batchWindow,
+                         @Value("${products.batch.max-size:100}") int maxBatchSize,
+                         @Value("${products.fallback.stale-ttl:0s}") Duration staleTtl,
+                         CircuitBreaker productsCircuitBreaker,
+                         Bulkhead productsBulkhead,
+                         ProductReplica replica,
+                         WebClient.Builder webClientBuilder,
+                         MeterRegistry meterRegistry) {
         this.apiKey = apiKey;
-        this.webClient = WebClient.builder()
+        this.webClient = webClientBuilder
                 .baseUrl(baseUrl)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .defaultHeader(HttpHeaders.ACCEPT, ACCEPT)
+                .codecs(codecs -> codecs.customCodecs().register(new Jackson2CborDecoder()))
                 .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExistenceExpiry(ttl, negativeTtl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+        this.maxBatchSize = maxBatchSize;
+        this.circuitBreaker = productsCircuitBreaker;
+        this.bulkhead = productsBulkhead;
+        this.replica = replica;
+        this.lastKnown = staleTtl.isZero()
+                ? null
+                : Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(staleTtl).build();
+        this.validators = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.staleHits = Counter.builder("products.fallback.stale")
+                .description("Consultas respondidas con el último valor conocido por fallo de products-service")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("products.client.not-modified")
+                .description("Revalidaciones respondidas por products-service con 304, sin cuerpo")
+                .register(meterRegistry);
+        this.retries = Counter.builder("products.client.retries")
+                .description("Reintentos de llamadas a products-service")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("products.client.timeouts")
+                .description("Llamadas a products-service que superaron el timeout")
+                .register(meterRegistry);
+        this.retry = Retry.backoff(2, Duration.ofMillis(100))
+                .maxBackoff(Duration.ofSeconds(1))
+                .jitter(0.5)
+                .filter(e -> !(e instanceof CallNotPermittedException) && !(e instanceof BulkheadFullException))
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        this.coalescer = batchEnabled
+                ? new ProductBatchCoalescer<>(this::fetchProducts, batchWindow, maxBatchSize)
+                : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    /**
+     * Comprueba que el producto exista. Si la réplica local lo conoce la
+     * respuesta es inmediata; si no, se confirma con products-service (a
+     * través de la cache).
+     *
+     * @throws ProductNotFoundException si el producto no existe
+     * @throws ProductServiceUnavailableException si no se pudo confirmar
+     */
+    public void requireProduct(Long productId) {
+        if (!replica.contains(productId)) {
+            getProductById(productId);
+        }
+    }
+
+    /**
+     * Variante no bloqueante de {@link #requireProduct(Long)}.
+     */
+    public Mono<Void> requireProductAsync(Long productId) {
+        return replica.contains(productId) ? Mono.empty() : getProductByIdAsync(productId).then();
+    }
+
+    /**
+     * Devuelve los ids que no corresponden a ningún producto. Solo se consulta
+     * a products-service por los que la réplica local no conoce.
+     */
+    public Set<Long> findMissing(Collection<Long> productIds) {
+        List<Long> unknown = productIds.stream()
+                .filter(id -> !replica.contains(id))
+                .toList();
+        if (unknown.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> missing = new HashSet<>();
+        getProductsByIds(unknown).forEach((id, product) -> {
+            if (product.isEmpty()) {
+                missing.add(id);
+            }
+        });
+        return missing;
+    }
+
+    public ProductSummary getProductById(Long productId) {
+        Optional<ProductSummary> product = join(lookup(productId));
+        return product.orElseThrow(() -> new ProductNotFoundException(productId));
+    }
+
+    /**
+     * Variante no bloqueante de {@link #getProductById(Long)}: comparte la
+     * misma cache y el mismo agrupamiento de consultas. Cancelar la suscripción
+     * no cancela la carga compartida con otros llamadores.
+     */
+    public Mono<ProductSummary> getProductByIdAsync(Long productId) {
+        return Mono.fromFuture(() -> lookup(productId), true)
+                .onErrorMap(ProductClient::unavailable)
+                .flatMap(product -> product
+                        .map(Mono::just)
+                        .orElseGet(() -> Mono.error(new ProductNotFoundException(productId))));
+    }
+
+    private CompletableFuture<Optional<ProductSummary>> lookup(Long productId) {
+        return cache.get(productId, (id, executor) -> remember(id, load(id)))
+                .exceptionallyCompose(ex -> stale(List.of(productId), ex).thenApply(found -> found.get(productId)));
+    }
+
+    /**
+     * Los productos ya vistos se revalidan uno a uno con una petición
+     * condicional, que no transfiere el cuerpo si no cambiaron; los nuevos se
+     * agrupan en {@code POST /api/products/batch}, que no admite
+     * {@code If-None-Match}.
+     */
+    private CompletableFuture<Optional<ProductSummary>> load(Long productId) {
+        return coalescer == null || validators.getIfPresent(productId) != null
+                ? fetchProduct(productId).toFuture()
+                : coalescer.load(productId);
+    }
+
+    /**
+     * Consulta varios productos a la vez. Los ids ausentes de la cache se piden
+     * en bloques de {@code products.batch.max-size}; los que no existen se
+     * devuelven como {@link Optional#empty()}.
+     */
+    public Map<Long, Optional<ProductSummary>> getProductsByIds(Collection<Long> productIds) {
+        return join(cache.getAll(productIds, (ids, executor) -> fetchInChunks(ids))
+                .exceptionallyCompose(ex -> stale(productIds, ex)));
+    }
+
+    /** Guarda en {@code lastKnown} cada producto cargado con éxito. */
+    private CompletableFuture<Optional<ProductSummary>> remember(
+            Long productId, CompletableFuture<Optional<ProductSummary>> load) {
+        if (lastKnown != null) {
+            load.thenAccept(product -> product.ifPresent(p -> lastKnown.put(productId, p)));
+        }
+        return load;
     }
 
-    public Map<String, Object> getProductById(Long productId) {
+    /**
+     * Responde con el último valor conocido de cada id si todos lo tienen;
+     * si falta alguno se propaga el fallo original.
+     */
+    private CompletableFuture<Map<Long, Optional<ProductSummary>>> stale(Collection<Long> productIds,
+                                                                         Throwable failure) {
+        if (lastKnown == null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        Map<Long, Optional<ProductSummary>> found = new HashMap<>();
+        for (Long id : productIds) {
+            ProductSummary product = lastKnown.getIfPresent(id);
+            if (product == null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            found.put(id, Optional.of(product));
+        }
+        staleHits.increment(found.size());
+        return CompletableFuture.completedFuture(found);
+    }
+
+    private CompletableFuture<Map<Long, Optional<ProductSummary>>> fetchInChunks(Set<? extends Long> ids) {
+        List<Long> all = List.copyOf(ids);
+        List<CompletableFuture<Map<Long, ProductSummary>>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += maxBatchSize) {
+            chunks.add(fetchProducts(Set.copyOf(all.subList(i, Math.min(i + maxBatchSize, all.size())))).toFuture());
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<Long, Optional<ProductSummary>> result = new HashMap<>();
+            chunks.forEach(chunk -> chunk.join().forEach((id, p) -> result.put(id, Optional.of(p))));
+            all.forEach(id -> result.putIfAbsent(id, Optional.empty()));
+            if (lastKnown != null) {
+                result.forEach((id, product) -> product.ifPresent(p -> lastKnown.put(id, p)));
+            }
+            return result;
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
         try {
-            return webClient.get()
-                    .uri("/api/products/{id}", productId)
-                    .header("X-API-KEY", apiKey)
-                    .retrieve()
-                    .onStatus(status -> status.value() == 404,
-                            resp -> Mono.error(new RuntimeException("Product not found")))
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                    .timeout(Duration.ofSeconds(2))
-                    .retryWhen(
-                        Retry.fixedDelay(2, Duration.ofMillis(500))
-                            .filter(throwable -> !(throwable.getMessage().contains("Product not found")))
-                    )
-                    .block();
-        } catch (WebClientResponseException.NotFound e) {
-            throw new RuntimeException("Product not found");
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to call products service: " + ex.getMessage(), ex);
+            return future.join();
+        } catch (CompletionException ex) {
+            throw unavailable(ex);
+        }
+    }
+
+    private static ProductServiceUnavailableException unavailable(Throwable failure) {
+        if (failure instanceof ProductServiceUnavailableException unavailable) {
+            return unavailable;
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        return new ProductServiceUnavailableException("Failed to call products service: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Aplica timeout, circuit breaker, bulkhead y reintentos a una llamada
+     * remota. El circuit breaker queda dentro del bulkhead para que los
+     * rechazos por saturación local no cuenten como fallos del servicio. La
+     * latencia de cada intento se publica en {@code http.client.requests}.
+     */
+    private <T> Mono<T> protect(Mono<T> call) {
+        return call.timeout(TIMEOUT)
+                .doOnError(TimeoutException.class, e -> timeouts.increment())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .retryWhen(retry);
+    }
+
+    /**
+     * Un 404 es una respuesta válida: no cuenta como fallo del circuit breaker.
+     * Si ya se conoce el producto se envía su ETag y un 304 devuelve el
+     * cuerpo guardado.
+     */
+    private Mono<Optional<ProductSummary>> fetchProduct(Long productId) {
+        Validated known = validators.getIfPresent(productId);
+        return protect(webClient.get()
+                .uri("/api/products/{id}", productId)
+                .header("X-API-KEY", apiKey)
+                .headers(headers -> {
+                    if (known != null) {
+                        headers.setIfNoneMatch(known.etag());
+                    }
+                })
+                .retrieve()
+                .onStatus(status -> status.value() == 404,
+                        resp -> Mono.error(new ProductNotFoundException(productId)))
+                .toEntity(ProductSummary.class)
+                .map(response -> Optional.of(revalidated(productId, known, response)))
+                .onErrorResume(ProductNotFoundException.class, e -> {
+                    validators.invalidate(productId);
+                    return Mono.just(Optional.empty());
+                }));
+    }
+
+    private ProductSummary revalidated(Long productId, Validated known,
+                                       ResponseEntity<ProductSummary> response) {
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && known != null) {
+            notModified.increment();
+            return known.product();
+        }
+        ProductSummary product = response.getBody();
+        String etag = response.getHeaders().getETag();
+        if (etag != null) {
+            validators.put(productId, new Validated(etag, product));
+        }
+        return product;
+    }
+
+    private Mono<Map<Long, ProductSummary>> fetchProducts(Set<Long> productIds) {
+        return protect(webClient.post()
+                .uri("/api/products/batch")
+                .header("X-API-KEY", apiKey)
+                .bodyValue(productIds)
+                .retrieve()
+                .toEntity(PRODUCTS))
+                .map(response -> {
+                    String suffix = MediaType.APPLICATION_CBOR.isCompatibleWith(response.getHeaders().getContentType())
+                            ? CBOR_ETAG_SUFFIX
+                            : "";
+                    Map<Long, ProductSummary> byId = new HashMap<>();
+                    response.getBody().forEach(p -> {
+                        byId.put(p.id(), p);
+                        if (p.version() != null) {
+                            validators.put(p.id(), new Validated("\"" + p.version() + suffix + "\"", p));
+                        }
+                    });
+                    return byId;
+                });
+    }
+
+    /**
+     * ETag y cuerpo de un producto. El lote no trae ETags: se derivan de
+     * {@code version}, que es lo que products-service publica como ETag,
+     * con el sufijo {@code -cbor} si la respuesta llegó en CBOR (cada
+     * representación tiene su ETag y se piden igual en el GET individual).
+     */
+    private record Validated(String etag, ProductSummary product) {
+    }
+
+    private static final class ExistenceExpiry implements Expiry<Long, Optional<ProductSummary>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        ExistenceExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<ProductSummary> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<ProductSummary> value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<ProductSummary> value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
@@ -0,0 +1,207 @@
+package com.carlosmoreno.store.inventory_service.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.carlosmoreno.store.inventory_service.util.LongHashSet;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Réplica local de los ids de producto existentes, alimentada por los
+ * eventos del outbox de products-service.
+ *
+ * <p>Al arrancar carga {@code GET /api/products/snapshot} y después consulta
+ * {@code GET /api/products/events} cada {@code products.replica.poll-interval}
+ * desde el {@code seq} del último evento aplicado. Si products-service ya
+ * purgó eventos posteriores al cursor (410), vuelve a cargar el snapshot.
+ * Mientras no haya cargado el snapshot,
+ * {@link #contains(long)} devuelve {@code false} y los llamadores recurren a
+ * products-service.</p>
+ */
+@Component
+public class ProductReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplica.class);
+    private static final ParameterizedTypeReference<Map<String, Object>> SNAPSHOT =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> EVENTS =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final String apiKey;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final int pageSize;
+
+    private final StampedLock lock = new StampedLock();
+    private final LongHashSet ids = new LongHashSet();
+
+    private volatile boolean ready;
+    private long cursor;
+    private ScheduledExecutorService poller;
+
+    public ProductReplica(@Value("${products.service.url:http://products-service:8080}") String baseUrl,
+                          @Value("${api.key}") String apiKey,
+                          @Value("${products.replica.enabled:false}") boolean enabled,
+                          @Value("${products.replica.poll-interval:1s}") Duration pollInterval,
+                          @Value("${products.replica.page-size:1000}") int pageSize,
+                          WebClient.Builder webClientBuilder,
+                          MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
+        this.apiKey = apiKey;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.pageSize = pageSize;
+        Gauge.builder("products.replica.size", this, ProductReplica::size)
+                .description("Ids de producto en la réplica local")
+                .register(meterRegistry);
+        Gauge.builder("products.replica.ready", this, replica -> replica.ready ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-replica");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::sync, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * Indica si el producto existe según la réplica. Un {@code false} no es
+     * concluyente (réplica no cargada o evento aún no recibido): el llamador
+     * debe confirmar con products-service.
+     */
+    public boolean contains(long productId) {
+        if (!ready) {
+            return false;
+        }
+        long stamp = lock.tryOptimisticRead();
+        boolean found = ids.contains(productId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = ids.contains(productId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Carga el snapshot si hace falta y aplica los eventos pendientes. */
+    void sync() {
+        try {
+            if (!ready) {
+                loadSnapshot();
+            }
+            List<Map<String, Object>> events;
+            do {
+                try {
+                    events = fetchEvents();
+                } catch (WebClientResponseException.Gone e) {
+                    log.warn("Los eventos posteriores al cursor {} ya se purgaron; se recarga el snapshot", cursor);
+                    loadSnapshot();
+                    return;
+                }
+                apply(events);
+            } while (events.size() == pageSize);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo sincronizar la réplica de productos: {}", e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        Map<String, Object> snapshot = webClient.get()
+                .uri("/api/products/snapshot")
+                .header("X-API-KEY", apiKey)
+                .retrieve()
+                .bodyToMono(SNAPSHOT)
+                .block(Duration.ofSeconds(30));
+        List<?> snapshotIds = (List<?>) snapshot.get("ids");
+        long stamp = lock.writeLock();
+        try {
+            ids.clear();
+            snapshotIds.forEach(id -> ids.add(((Number) id).longValue()));
+            cursor = ((Number) snapshot.get("cursor")).longValue();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        ready = true;
+        log.info("Réplica de productos cargada: {} ids, cursor {}", snapshotIds.size(), cursor);
+    }
+
+    private List<Map<String, Object>> fetchEvents() {
+        return webClient.get()
+                .uri(uri -> uri.path("/api/products/events")
+                        .queryParam("after", cursor)
+                        .queryParam("size", pageSize)
+                        .build())
+                .header("X-API-KEY", apiKey)
+                .retrieve()
+                .bodyToMono(EVENTS)
+                .block(Duration.ofSeconds(10));
+    }
+
+    private void apply(List<Map<String, Object>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (Map<String, Object> event : events) {
+                long productId = ((Number) event.get("productId")).longValue();
+                if ("DELETED".equals(event.get("type"))) {
+                    ids.remove(productId);
+                } else {
+                    ids.add(productId);
+                }
+                cursor = ((Number) event.get("seq")).longValue();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.carlosmoreno.store.inventory_service.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Lo que inventory-service necesita de un producto: que existe y su versión.
+ * El resto de campos de la respuesta de products-service se descartan al
+ * decodificar, sin crear objetos para ellos.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ProductSummary(Long id, Long version) {
+}
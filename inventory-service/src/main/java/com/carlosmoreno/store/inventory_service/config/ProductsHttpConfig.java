@@ -0,0 +1,157 @@
+package com.carlosmoreno.store.inventory_service.config;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Transporte HTTP de las llamadas a products-service. Spring Boot aplica el
+ * {@link ClientHttpConnector} a todos los {@code WebClient.Builder}, así que
+ * lo usan {@code ProductClient} y {@code ProductReplica}.
+ *
+ * <p>Cada fase tiene su límite: esperar una conexión libre del pool
+ * ({@code products.http.pending-acquire-timeout}, con como mucho
+ * {@code pending-acquire-max-count} peticiones en cola), abrirla
+ * ({@code connect-timeout}) y recibir las cabeceras de la respuesta
+ * ({@code response-timeout}). El timeout total de cada intento lo sigue
+ * aplicando {@code ProductClient}.</p>
+ *
+ * <p>Las conexiones ociosas se cierran tras {@code max-idle-time}, que debe
+ * ser menor que el keep-alive de Tomcat en products-service
+ * ({@code server.tomcat.keep-alive-timeout}) para no reutilizar una conexión
+ * que el servidor ya cerró. Con {@code products.http.protocol=h2c} se habla
+ * HTTP/2 sin TLS (prior knowledge) y todas las peticiones comparten pocas
+ * conexiones; requiere {@code server.http2.enabled=true} en products-service.</p>
+ *
+ * <p>El pool publica {@code products.http.pool.active}, {@code idle},
+ * {@code pending} y {@code total} por pool, etiquetados con su
+ * {@code id} y su dirección remota; se retiran al desechar el pool.</p>
+ */
+@Configuration
+public class ProductsHttpConfig {
+
+    private static final String POOL = "products";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider productsConnectionProvider(
+            @Value("${products.http.max-connections:50}") int maxConnections,
+            @Value("${products.http.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${products.http.pending-acquire-timeout:500ms}") Duration pendingAcquireTimeout,
+            @Value("${products.http.max-idle-time:15s}") Duration maxIdleTime,
+            @Value("${products.http.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${products.http.evict-interval:30s}") Duration evictInterval,
+            MeterRegistry meterRegistry) {
+        PoolMeters poolMeters = new PoolMeters(meterRegistry);
+        return ConnectionProvider.builder(POOL)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true, () -> poolMeters)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector productsHttpConnector(
+            ConnectionProvider productsConnectionProvider,
+            @Value("${products.http.protocol:http1}") String protocol,
+            @Value("${products.http.connect-timeout:500ms}") Duration connectTimeout,
+            @Value("${products.http.response-timeout:1500ms}") Duration responseTimeout) {
+        HttpClient client = HttpClient.create(productsConnectionProvider)
+                .protocol(protocol(protocol))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout);
+        return new ReactorClientHttpConnector(client);
+    }
+
+    private static HttpProtocol protocol(String protocol) {
+        return switch (protocol) {
+            case "http1" -> HttpProtocol.HTTP11;
+            case "h2c" -> HttpProtocol.H2C;
+            default -> throw new IllegalArgumentException(
+                    "products.http.protocol debe ser http1 o h2c, no " + protocol);
+        };
+    }
+
+    /**
+     * Publica los gauges de cada pool (uno por dirección remota y, con h2c,
+     * también el de HTTP/2) etiquetados con su {@code id}, y los retira cuando
+     * Reactor Netty desecha el pool. Reactor Netty no conserva el objeto de
+     * métricas: lo retiene este registro mientras el pool exista, y los gauges
+     * lo referencian débilmente para no mantener vivo un pool ya desechado.
+     */
+    private static final class PoolMeters implements ConnectionProvider.MeterRegistrar {
+
+        private final MeterRegistry meterRegistry;
+        private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+        private PoolMeters(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                    ConnectionPoolMetrics metrics) {
+            Tags tags = Tags.of("pool", poolName, "id", id, "remote", String.valueOf(remoteAddress));
+            List<Meter> meters = List.of(
+                    gauge("products.http.pool.active", "Conexiones a products-service en uso",
+                            tags, metrics, ConnectionPoolMetrics::acquiredSize),
+                    gauge("products.http.pool.idle", "Conexiones a products-service abiertas y libres",
+                            tags, metrics, ConnectionPoolMetrics::idleSize),
+                    gauge("products.http.pool.pending", "Peticiones esperando una conexión a products-service",
+                            tags, metrics, ConnectionPoolMetrics::pendingAcquireSize),
+                    gauge("products.http.pool.total", "Conexiones a products-service abiertas",
+                            tags, metrics, ConnectionPoolMetrics::allocatedSize));
+            Registration previous = registrations.put(key(poolName, id, remoteAddress),
+                    new Registration(metrics, meters));
+            if (previous != null) {
+                previous.meters().forEach(meterRegistry::remove);
+            }
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            Registration registration = registrations.remove(key(poolName, id, remoteAddress));
+            if (registration != null) {
+                registration.meters().forEach(meterRegistry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value) {
+            return Gauge.builder(name, metrics, value)
+                    .description(description)
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        private static String key(String poolName, String id, SocketAddress remoteAddress) {
+            return poolName + '|' + id + '|' + remoteAddress;
+        }
+
+        private record Registration(ConnectionPoolMetrics metrics, List<Meter> meters) {
+        }
+    }
+}
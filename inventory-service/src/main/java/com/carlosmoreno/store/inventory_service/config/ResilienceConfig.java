@@ -0,0 +1,80 @@
+package com.carlosmoreno.store.inventory_service.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker y bulkhead de las llamadas a products-service.
+ *
+ * <p>Además de las métricas estándar de resilience4j
+ * ({@code resilience4j.circuitbreaker.state},
+ * {@code resilience4j.circuitbreaker.not.permitted.calls},
+ * {@code resilience4j.bulkhead.available.concurrent.calls}) se publican
+ * {@code products.circuitbreaker.transitions} por estado origen/destino y
+ * {@code products.bulkhead.rejected}.</p>
+ */
+@Configuration
+public class ResilienceConfig {
+
+    private static final String PRODUCTS = "products";
+
+    @Bean
+    public CircuitBreaker productsCircuitBreaker(
+            @Value("${products.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${products.circuit-breaker.slow-call-duration:1s}") Duration slowCallDuration,
+            @Value("${products.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${products.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${products.circuit-breaker.open-duration:10s}") Duration openDuration,
+            MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(PRODUCTS);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> Counter
+                .builder("products.circuitbreaker.transitions")
+                .tag("from", event.getStateTransition().getFromState().name())
+                .tag("to", event.getStateTransition().getToState().name())
+                .register(meterRegistry)
+                .increment());
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead productsBulkhead(@Value("${products.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                                     MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+
+        Bulkhead bulkhead = registry.bulkhead(PRODUCTS);
+        Counter rejected = Counter.builder("products.bulkhead.rejected")
+                .description("Llamadas a products-service rechazadas por el bulkhead")
+                .register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+        return bulkhead;
+    }
+}
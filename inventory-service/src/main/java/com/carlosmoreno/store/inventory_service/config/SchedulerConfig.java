@@ -0,0 +1,23 @@
+package com.carlosmoreno.store.inventory_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SchedulerConfig {
+
+    /**
+     * Scheduler acotado para el trabajo JPA/JDBC del modo reactivo. El número
+     * de hilos debería coincidir con el tamaño del pool de conexiones: más
+     * hilos solo esperarían una conexión libre.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${inventory.reactive.jdbc-threads:10}") int threads,
+                                   @Value("${inventory.reactive.jdbc-queue:10000}") int queuedTasks) {
+        return Schedulers.newBoundedElastic(threads, queuedTasks, "jdbc");
+    }
+}
@@ -1,29 +1,78 @@
 package com.carlosmoreno.store.inventory_service.controller;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
 import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.service.InventoryBulkService;
 import com.carlosmoreno.store.inventory_service.service.InventoryService;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
+    private static final int MAX_IDS = 1000;
+    private static final String CSV = "text/csv";
+
     private final InventoryService service;
+    private final InventoryBulkService bulkService;
 
-    public InventoryController(InventoryService service) {
+    public InventoryController(InventoryService service, InventoryBulkService bulkService) {
         this.service = service;
+        this.bulkService = bulkService;
+    }
+
+    /** Inventario de varios productos; los inexistentes no aparecen en la respuesta. */
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getInventories(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Se admiten como máximo " + MAX_IDS + " ids"));
+        }
+        try {
+            return ResponseEntity.ok(service.getInventories(ids));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Fija la cantidad de muchos productos a partir de un array JSON de
+     * {@code {"productId", "quantity"}}, leído en streaming. La respuesta
+     * indica las filas que no se pudieron aplicar.
+     */
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> bulkUpsertJson(InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkService.upsertJson(body));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Igual que {@link #bulkUpsertJson(InputStream)} con un CSV {@code productId,quantity}. */
+    @PutMapping(consumes = CSV)
+    public ResponseEntity<?> bulkUpsertCsv(InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkService.upsertCsv(body));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
     }
 
     // 🔹 Obtener inventario
@@ -3,15 +3,22 @@ package com.carlosmoreno.store.inventory_service.controller;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseRequest;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseResponse;
 import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService.Claim;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService.StoredResponse;
 import com.carlosmoreno.store.inventory_service.service.PurchaseService;
 
 @RestController
@@ -19,15 +26,42 @@ import com.carlosmoreno.store.inventory_service.service.PurchaseService;
 public class PurchaseController {
 
     private final PurchaseService purchaseService;
+    private final IdempotencyService idempotencyService;
 
-    public PurchaseController(PurchaseService purchaseService) {
+    public PurchaseController(PurchaseService purchaseService, IdempotencyService idempotencyService) {
         this.purchaseService = purchaseService;
+        this.idempotencyService = idempotencyService;
     }
 
+    /**
+     * Con {@code Idempotency-Key}, los reintentos reciben la respuesta de la
+     * primera ejecución (marcada con {@code Idempotent-Replayed: true}) sin
+     * volver a descontar stock.
+     */
     @PostMapping
-    public ResponseEntity<?> makePurchase(@RequestBody PurchaseRequest request) {
+    public ResponseEntity<?> makePurchase(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                          @RequestBody PurchaseRequest request) {
+        if (idempotencyKey == null) {
+            return purchase(request, Claim.NONE);
+        }
+        try {
+            String fingerprint = request.getProductId() + ":" + request.getQuantity();
+            StoredResponse response = idempotencyService.execute(idempotencyKey, fingerprint,
+                    claim -> purchase(request, claim));
+            return ResponseEntity.status(response.status())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotent-Replayed", String.valueOf(response.replayed()))
+                    .body(response.body());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> purchase(PurchaseRequest request, Claim claim) {
         try {
-            return ResponseEntity.ok(purchaseService.purchase(request));
+            return ResponseEntity.ok(purchaseService.purchase(request, claim));
         } catch (ResponseStatusException e) {
             return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
         } catch (InsufficientStockException e) {
@@ -37,5 +71,16 @@ public class PurchaseController {
         }
     }
 
-    
+    @PostMapping("/batch")
+    public ResponseEntity<?> makeBatchPurchase(@RequestBody BatchPurchaseRequest request) {
+        try {
+            BatchPurchaseResponse response = purchaseService.purchaseBatch(request);
+            HttpStatus status = "REJECTED".equals(response.getStatus()) ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
+            return ResponseEntity.status(status).body(response);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
 }
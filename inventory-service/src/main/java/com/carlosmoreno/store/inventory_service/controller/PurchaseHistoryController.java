@@ -0,0 +1,61 @@
+package com.carlosmoreno.store.inventory_service.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.model.SalesRollup;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryQueryService;
+
+@RestController
+@RequestMapping("/api/purchase/history")
+public class PurchaseHistoryController {
+
+    private final PurchaseHistoryQueryService service;
+
+    public PurchaseHistoryController(PurchaseHistoryQueryService service) {
+        this.service = service;
+    }
+
+    /** Historial paginado por cursor; la página siguiente se pide con {@code cursor=nextCursor}. */
+    @GetMapping
+    public ResponseEntity<?> getHistory(@RequestParam(required = false) Long productId,
+                                        @RequestParam(required = false) String status,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(service.find(productId, status, from, to, cursor, limit));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Ventas agregadas por hora o por día; por defecto, las últimas 24 horas por hora. */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(@RequestParam(required = false) Long productId,
+                                        @RequestParam(defaultValue = SalesRollup.HOUR) String granularity,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            LocalDateTime end = to != null ? to : LocalDateTime.now();
+            LocalDateTime start = from != null ? from : end.minusDays(1);
+            return ResponseEntity.ok(service.summary(productId, granularity, start, end));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
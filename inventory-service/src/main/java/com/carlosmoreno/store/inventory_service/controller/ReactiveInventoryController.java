@@ -0,0 +1,61 @@
+package com.carlosmoreno.store.inventory_service.controller;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.service.InventoryService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Misma API que {@link InventoryController}, pero sin bloquear el hilo de la
+ * petición mientras se valida el producto. Se activa con
+ * {@code inventory.reactive.enabled=true}.
+ */
+@RestController
+@RequestMapping("/api/reactive/inventory")
+@ConditionalOnProperty(name = "inventory.reactive.enabled", havingValue = "true")
+public class ReactiveInventoryController {
+
+    private final InventoryService service;
+
+    public ReactiveInventoryController(InventoryService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/{productId}")
+    public Mono<ResponseEntity<?>> getInventory(@PathVariable Long productId) {
+        return service.getInventoryAsync(productId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(toError(e)));
+    }
+
+    @PutMapping("/{productId}")
+    public Mono<ResponseEntity<?>> updateQuantity(@PathVariable Long productId, @RequestBody Inventory payload) {
+        return service.updateQuantityAsync(productId, payload.getQuantity())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(toError(e)));
+    }
+
+    static ResponseEntity<?> toError(Throwable e) {
+        if (e instanceof ResponseStatusException rse) {
+            return ResponseEntity.status(rse.getStatusCode()).body(Map.of("error", rse.getReason()));
+        }
+        if (e instanceof InsufficientStockException) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
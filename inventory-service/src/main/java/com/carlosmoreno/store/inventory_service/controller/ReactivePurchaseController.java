@@ -0,0 +1,36 @@
+package com.carlosmoreno.store.inventory_service.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Misma API que {@link PurchaseController#makePurchase}, pero sin bloquear el
+ * hilo de la petición. Se activa con {@code inventory.reactive.enabled=true}.
+ */
+@RestController
+@RequestMapping("/api/reactive/purchase")
+@ConditionalOnProperty(name = "inventory.reactive.enabled", havingValue = "true")
+public class ReactivePurchaseController {
+
+    private final PurchaseService purchaseService;
+
+    public ReactivePurchaseController(PurchaseService purchaseService) {
+        this.purchaseService = purchaseService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> makePurchase(@RequestBody PurchaseRequest request) {
+        return purchaseService.purchaseAsync(request)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(ReactiveInventoryController.toError(e)));
+    }
+}
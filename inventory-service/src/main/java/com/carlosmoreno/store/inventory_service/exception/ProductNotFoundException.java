@@ -0,0 +1,5 @@
+package com.carlosmoreno.store.inventory_service.exception;
+
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(Long productId) { super("Product " + productId + " not found"); }
+}
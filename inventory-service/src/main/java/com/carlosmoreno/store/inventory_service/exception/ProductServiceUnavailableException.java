@@ -0,0 +1,5 @@
+package com.carlosmoreno.store.inventory_service.exception;
+
+public class ProductServiceUnavailableException extends RuntimeException {
+    public ProductServiceUnavailableException(String message, Throwable cause) { super(message, cause); }
+}
@@ -0,0 +1,19 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BatchPurchaseRequest {
+    private List<PurchaseRequest> items = new ArrayList<>();
+
+    /**
+     * Si es {@code true} se aplican las líneas que tengan stock aunque otras
+     * fallen; si es {@code false} (por defecto) el lote es todo o nada.
+     */
+    private boolean allowPartial;
+}
@@ -0,0 +1,19 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPurchaseResponse {
+
+    /** COMPLETED, PARTIAL o REJECTED. */
+    private String status;
+
+    /** Un resultado por línea, en el mismo orden de la solicitud. */
+    private List<PurchaseItemResult> results;
+}
@@ -0,0 +1,51 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado guardado de una petición con {@code Idempotency-Key}. Mientras
+ * la primera ejecución está en curso {@code status} vale
+ * {@link #IN_PROGRESS} y {@code claimedAt} marca el inicio de la concesión
+ * de la instancia que la ejecuta; {@link #PINNED} indica que la ejecución ya
+ * pudo cambiar algo y la clave no se puede tomar aunque la concesión venza.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_created_at", columnList = "createdAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    public static final int IN_PROGRESS = 0;
+    public static final int PINNED = 1;
+
+    @Id
+    @Column(length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private Integer status;
+
+    @Lob
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime claimedAt;
+}
@@ -23,4 +23,17 @@ public class Inventory {
 
     @Column(nullable = false)
     private Long quantity;
+
+    /** Unidades retenidas por reservas activas; siguen contando en {@code quantity}. */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long reserved = 0L;
+
+    /** Stock que se puede comprar o reservar: existencias menos reservas activas. */
+    public Long getAvailable() {
+        if (quantity == null) {
+            return null;
+        }
+        return quantity - (reserved == null ? 0L : reserved);
+    }
 }
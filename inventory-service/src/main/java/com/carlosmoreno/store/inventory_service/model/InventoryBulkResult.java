@@ -0,0 +1,34 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una carga masiva de cantidades. {@code failures} lista como
+ * mucho {@code inventory.bulk.max-reported-failures} filas; {@code failed}
+ * las cuenta todas.
+ */
+@Data
+@NoArgsConstructor
+public class InventoryBulkResult {
+
+    private long received;
+    private long updated;
+    private long failed;
+    private List<RowFailure> failures = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowFailure {
+
+        /** Posición de la fila en el cuerpo: línea en CSV, elemento (desde 1) en JSON. */
+        private long row;
+        private Long productId;
+        private String error;
+    }
+}
@@ -0,0 +1,28 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última secuencia del write-ahead log de {@code HotStockLedger} cuyos
+ * descuentos ya están aplicados en la tabla {@code inventory}. Se actualiza
+ * en la misma transacción que los deltas.
+ */
+@Entity
+@Table(name = "ledger_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+
+    @Id
+    private String name;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
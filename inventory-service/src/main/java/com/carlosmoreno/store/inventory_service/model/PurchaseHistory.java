@@ -6,22 +6,43 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Movimiento de compra. Los índices sirven a las consultas paginadas por
+ * producto, estado y rango de fechas, ordenadas por {@code (date, id)}.
+ */
 @Entity
-@Table(name = "purchase_history")
+@Table(name = "purchase_history", indexes = {
+        @Index(name = "idx_history_product_date", columnList = "productId, date, id"),
+        @Index(name = "idx_history_status_date", columnList = "status, date, id"),
+        @Index(name = "idx_history_date", columnList = "date, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class PurchaseHistory {
 
+    /** Ids que cada instancia reserva de una vez en {@code id_generators}. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Los ids se reservan por bloques en una tabla (MySQL no tiene secuencias)
+     * en lugar de usar IDENTITY, para que Hibernate pueda agrupar los inserts
+     * del historial en batches JDBC. {@code PurchaseHistoryIdGenerator} lo
+     * alinea al arrancar con los ids ya existentes.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "purchase_history_ids")
+    @TableGenerator(name = "purchase_history_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "purchase_history", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private Long productId;
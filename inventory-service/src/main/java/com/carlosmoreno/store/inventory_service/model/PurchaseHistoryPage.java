@@ -0,0 +1,19 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseHistoryPage {
+
+    /** Del más reciente al más antiguo. */
+    private List<PurchaseHistory> items;
+
+    /** Cursor para pedir la página siguiente; null si no hay más. */
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseItemResult {
+    private Long productId;
+    private Long quantity;
+    private String status;
+    private String message;
+    private Long remainingQuantity;
+}
@@ -0,0 +1,13 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ReservationRequest {
+    private Long productId;
+    private Long quantity;
+    /** Duración de la reserva; si falta se usa {@code inventory.reservations.default-ttl}. */
+    private Long ttlSeconds;
+}
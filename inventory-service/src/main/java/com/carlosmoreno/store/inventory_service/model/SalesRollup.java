@@ -0,0 +1,64 @@
+package com.carlosmoreno.store.inventory_service.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ventas agregadas de un producto en una hora o un día. Se actualiza de forma
+ * incremental al escribir el historial, así que el resumen no recorre
+ * {@code purchase_history}.
+ */
+@Entity
+@Table(name = "purchase_sales_rollup",
+        indexes = @Index(name = "idx_rollup_granularity_bucket", columnList = "granularity, bucketStart"))
+@IdClass(SalesRollup.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    @Id
+    private Long productId;
+
+    @Id
+    @Column(length = 8)
+    private String granularity;
+
+    /** Inicio de la hora o del día. */
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Long successCount;
+
+    @Column(nullable = false)
+    private Long failedCount;
+
+    /** Unidades de las compras SUCCESS. */
+    @Column(nullable = false)
+    private Long unitsSold;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private String granularity;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,66 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.carlosmoreno.store.inventory_service.model.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reclama la clave con un INSERT explícito: si otra petición ya la
+     * reclamó, la clave primaria lo rechaza (un {@code save} haría merge y
+     * podría sobrescribirla).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, fingerprint, status, created_at, claimed_at) "
+            + "VALUES (:key, :fingerprint, 0, :createdAt, :createdAt)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+              @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Toma una clave en curso cuya concesión venció antes de {@code cutoff}
+     * (la instancia que la reclamó murió a mitad de la petición). Si dos
+     * peticiones lo intentan a la vez, solo una actualiza la fila.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :claimedAt WHERE r.idempotencyKey = :key "
+            + "AND r.status = " + IdempotencyRecord.IN_PROGRESS + " AND (r.claimedAt IS NULL OR r.claimedAt < :cutoff)")
+    int takeOver(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Fija la clave para que no se pueda tomar aunque venza la concesión, si
+     * {@code claimedAt} sigue siendo la vigente.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = " + IdempotencyRecord.PINNED + " WHERE r.idempotencyKey = :key "
+            + "AND r.status = " + IdempotencyRecord.IN_PROGRESS + " AND r.claimedAt = :claimedAt")
+    int pin(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Guarda la respuesta si la concesión {@code claimedAt} sigue siendo la
+     * vigente; devuelve 0 si otra petición tomó la clave entretanto.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.body = :body WHERE r.idempotencyKey = :key "
+            + "AND r.status IN (" + IdempotencyRecord.IN_PROGRESS + ", " + IdempotencyRecord.PINNED + ") "
+            + "AND r.claimedAt = :claimedAt")
+    int complete(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("status") int status, @Param("body") String body);
+
+    /** Libera la clave solo si la concesión {@code claimedAt} sigue siendo la vigente. */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key "
+            + "AND r.status IN (" + IdempotencyRecord.IN_PROGRESS + ", " + IdempotencyRecord.PINNED + ") "
+            + "AND r.claimedAt = :claimedAt")
+    int release(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
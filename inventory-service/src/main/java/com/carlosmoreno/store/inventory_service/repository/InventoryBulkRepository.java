@@ -0,0 +1,26 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.util.Map;
+
+/** Escrituras masivas de inventario, fuera de JPA. */
+public interface InventoryBulkRepository {
+
+    /**
+     * Fija la cantidad de cada producto con un único
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} de varias filas: crea las
+     * que no existen (sin reservas) y conserva {@code reserved} en las demás.
+     * Como {@link InventoryRepository#setQuantity}, no cambia la cantidad de
+     * un producto si quedaría por debajo de sus unidades reservadas. Debe
+     * llamarse dentro de una transacción.
+     *
+     * @return unidades reservadas de los productos que no se actualizaron
+     */
+    Map<Long, Long> upsertQuantities(Map<Long, Long> quantities);
+
+    /**
+     * Crea la fila del producto, sin reservas, si todavía no existe.
+     *
+     * @return {@code false} si ya existía (la creó otra petición concurrente)
+     */
+    boolean insertIfAbsent(Long productId, Long quantity);
+}
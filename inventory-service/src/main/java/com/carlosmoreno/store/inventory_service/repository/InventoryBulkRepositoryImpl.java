@@ -0,0 +1,54 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class InventoryBulkRepositoryImpl implements InventoryBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    InventoryBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<Long, Long> upsertQuantities(Map<Long, Long> quantities) {
+        if (quantities.isEmpty()) {
+            return Map.of();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO inventory (product_id, quantity, reserved) VALUES ");
+        List<Object> args = new ArrayList<>(quantities.size() * 2);
+        quantities.forEach((productId, quantity) -> {
+            sql.append(args.isEmpty() ? "(?, ?, 0)" : ", (?, ?, 0)");
+            args.add(productId);
+            args.add(quantity);
+        });
+        sql.append(" ON DUPLICATE KEY UPDATE quantity = "
+                + "CASE WHEN reserved <= VALUES(quantity) THEN VALUES(quantity) ELSE quantity END");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+
+        // Las filas siguen bloqueadas por el UPDATE: una cantidad rechazada es menor que reserved
+        String ids = String.join(", ", Collections.nCopies(quantities.size(), "?"));
+        Map<Long, Long> rejected = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, reserved FROM inventory WHERE product_id IN (" + ids + ")",
+                rs -> {
+                    long productId = rs.getLong(1);
+                    long reserved = rs.getLong(2);
+                    if (reserved > quantities.get(productId)) {
+                        rejected.put(productId, reserved);
+                    }
+                }, quantities.keySet().toArray());
+        return rejected;
+    }
+
+    @Override
+    public boolean insertIfAbsent(Long productId, Long quantity) {
+        return jdbcTemplate.update("INSERT IGNORE INTO inventory (product_id, quantity, reserved) VALUES (?, ?, 0)",
+                productId, quantity) == 1;
+    }
+}
@@ -1,8 +1,71 @@
 package com.carlosmoreno.store.inventory_service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.carlosmoreno.store.inventory_service.model.Inventory;
 
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryBulkRepository {
+
+    /**
+     * Descuenta stock de forma atómica solo si hay cantidad suficiente sin
+     * contar la retenida por reservas activas.
+     * La base de datos bloquea únicamente la fila del producto, por lo que
+     * compras de productos distintos no se serializan entre sí y el control
+     * sigue siendo correcto con varias instancias del servicio.
+     *
+     * @return número de filas actualizadas (0 si no existe o no alcanza el stock)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity "
+            + "WHERE i.productId = :productId AND i.quantity - i.reserved >= :quantity")
+    int decrementStock(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    /**
+     * Aplica un delta agregado sin comprobar el stock: lo usa el ledger en
+     * memoria, que ya validó cada descuento antes de confirmarlo.
+     *
+     * @return número de filas actualizadas (0 si el producto no tiene fila)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :delta WHERE i.productId = :productId")
+    int applyDelta(@Param("productId") Long productId, @Param("delta") Long delta);
+
+    /**
+     * Retiene {@code quantity} unidades para una reserva si el stock
+     * disponible alcanza.
+     *
+     * @return número de filas actualizadas (0 si no existe o no alcanza el stock)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reserved = i.reserved + :quantity "
+            + "WHERE i.productId = :productId AND i.quantity - i.reserved >= :quantity")
+    int reserve(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    /**
+     * Fija la cantidad de un producto sin tocar {@code reserved}, solo si no
+     * queda por debajo de lo ya reservado. Al no leer antes la fila, no pisa
+     * una reserva, liberación o confirmación concurrente.
+     *
+     * @return número de filas actualizadas (0 si no existe o la cantidad es menor que lo reservado)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = :quantity "
+            + "WHERE i.productId = :productId AND i.reserved <= :quantity")
+    int setQuantity(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    /** Libera unidades retenidas por una reserva cancelada o vencida. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reserved = i.reserved - :quantity WHERE i.productId = :productId")
+    int releaseReserved(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    /** Convierte unidades reservadas en vendidas al confirmar una reserva. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.reserved = i.reserved - :quantity "
+            + "WHERE i.productId = :productId")
+    int commitReserved(@Param("productId") Long productId, @Param("quantity") Long quantity);
 }
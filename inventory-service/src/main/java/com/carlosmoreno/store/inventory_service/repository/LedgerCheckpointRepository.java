@@ -0,0 +1,8 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.carlosmoreno.store.inventory_service.model.LedgerCheckpoint;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, String> {
+}
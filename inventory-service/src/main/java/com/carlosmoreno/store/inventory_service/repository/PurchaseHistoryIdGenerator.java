@@ -0,0 +1,56 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Ajusta el generador de ids de {@link PurchaseHistory} a los ids ya
+ * existentes. El historial escrito con IDENTITY tiene filas cuyo id no salió
+ * de {@code id_generators}; sin este ajuste el generador empezaría en 1 y
+ * los lotes del historial fallarían por clave duplicada. Se ejecuta al
+ * arrancar, con el esquema ya creado, y no hace nada si el generador ya va
+ * por delante.
+ */
+@Component
+public class PurchaseHistoryIdGenerator {
+
+    private static final String NAME = "purchase_history";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** {@code entityManagerFactory} solo fuerza a que el esquema exista antes. */
+    public PurchaseHistoryIdGenerator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignWithExistingIds() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM purchase_history", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long floor = maxId + PurchaseHistory.ID_ALLOCATION_SIZE + 1;
+        String update = "UPDATE id_generators SET next_val = ? WHERE name = ? AND next_val < ?";
+        if (jdbcTemplate.update(update, floor, NAME, floor) > 0 || exists()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO id_generators (name, next_val) VALUES (?, ?)", NAME, floor);
+        } catch (DuplicateKeyException e) {
+            // Otra instancia creó la fila a la vez
+            jdbcTemplate.update(update, floor, NAME, floor);
+        }
+    }
+
+    private boolean exists() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generators WHERE name = ?",
+                Integer.class, NAME);
+        return rows != null && rows > 0;
+    }
+}
@@ -1,8 +1,26 @@
 package com.carlosmoreno.store.inventory_service.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
 
-public interface PurchaseHistoryRepository extends JpaRepository<PurchaseHistory, Long> {
+public interface PurchaseHistoryRepository extends JpaRepository<PurchaseHistory, Long>,
+        JpaSpecificationExecutor<PurchaseHistory> {
+
+    @Query("SELECT MIN(h.date) FROM PurchaseHistory h")
+    LocalDateTime findOldestDate();
+
+    /** Registros de {@code [from, to)} posteriores a {@code (afterDate, afterId)}, en orden del índice de fecha. */
+    @Query("SELECT h FROM PurchaseHistory h WHERE h.date >= :from AND h.date < :to "
+            + "AND (h.date > :afterDate OR (h.date = :afterDate AND h.id > :afterId)) ORDER BY h.date, h.id")
+    List<PurchaseHistory> findRangeAfter(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                         @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId,
+                                         Limit limit);
 }
@@ -0,0 +1,29 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.carlosmoreno.store.inventory_service.model.Reservation;
+
+import jakarta.persistence.LockModeType;
+
+public interface ReservationRepository extends JpaRepository<Reservation, String> {
+
+    /** Bloquea la reserva para que confirmarla, liberarla y vencerla se excluyan entre sí. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id = :id")
+    Optional<Reservation> findByIdForUpdate(@Param("id") String id);
+
+    /** Reservas aún activas de entre {@code ids}, bloqueadas en orden de id. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id IN :ids AND r.status = 'ACTIVE' ORDER BY r.id")
+    List<Reservation> findActiveForUpdate(@Param("ids") Collection<String> ids);
+
+    List<Reservation> findByStatus(String status);
+}
@@ -0,0 +1,35 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.carlosmoreno.store.inventory_service.model.SalesRollup;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollup.Key> {
+
+    /** Suma los contadores al agregado, creándolo si no existe. */
+    @Modifying
+    @Query(value = "INSERT INTO purchase_sales_rollup "
+            + "(product_id, granularity, bucket_start, success_count, failed_count, units_sold) "
+            + "VALUES (:productId, :granularity, :bucketStart, :success, :failed, :units) "
+            + "ON DUPLICATE KEY UPDATE success_count = success_count + :success, "
+            + "failed_count = failed_count + :failed, units_sold = units_sold + :units", nativeQuery = true)
+    int increment(@Param("productId") Long productId, @Param("granularity") String granularity,
+                  @Param("bucketStart") LocalDateTime bucketStart, @Param("success") long success,
+                  @Param("failed") long failed, @Param("units") long units);
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.productId = :productId AND r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesRollup> findForProduct(@Param("productId") Long productId, @Param("granularity") String granularity,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart, r.productId")
+    List<SalesRollup> findForAllProducts(@Param("granularity") String granularity,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,250 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+
+/**
+ * Formato de los ficheros de historial archivado: bloques columnares
+ * comprimidos con gzip.
+ *
+ * <p>Cada bloque guarda hasta unos miles de registros columna a columna: ids
+ * y fechas como diferencias con el anterior en varint, producto y cantidad
+ * en varint, y estado y mensaje como índices a un diccionario del bloque.
+ * Un fichero puede tener varios miembros gzip concatenados (al añadir
+ * registros a un día ya archivado); {@link GZIPInputStream} los lee como un
+ * único flujo.</p>
+ */
+final class HistoryArchiveFile {
+
+    private static final int BLOCK_MAGIC = 0x50484131; // "PHA1"
+
+    private HistoryArchiveFile() {
+    }
+
+    /**
+     * Escritor de un miembro gzip; {@code append} lo añade al final del
+     * fichero. {@link #close()} termina el miembro y hace fsync.
+     */
+    static final class Writer implements Closeable {
+
+        private final FileOutputStream file;
+        private final BufferedOutputStream buffered;
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+
+        Writer(Path path, boolean append) throws IOException {
+            this.file = new FileOutputStream(path.toFile(), append);
+            this.buffered = new BufferedOutputStream(file, 1 << 16);
+            this.gzip = new GZIPOutputStream(buffered, 1 << 16);
+            this.out = new DataOutputStream(gzip);
+        }
+
+        void writeBlock(List<PurchaseHistory> rows) throws IOException {
+            out.writeInt(BLOCK_MAGIC);
+            writeVarLong(out, rows.size());
+            long previous = 0;
+            for (PurchaseHistory row : rows) {
+                writeVarLong(out, zigzag(row.getId() - previous));
+                previous = row.getId();
+            }
+            previous = 0;
+            for (PurchaseHistory row : rows) {
+                long micros = toMicros(row.getDate());
+                writeVarLong(out, zigzag(micros - previous));
+                previous = micros;
+            }
+            for (PurchaseHistory row : rows) {
+                writeNullable(out, row.getProductId());
+            }
+            for (PurchaseHistory row : rows) {
+                writeNullable(out, row.getQuantity());
+            }
+            writeDictionary(out, rows.stream().map(PurchaseHistory::getStatus).toList());
+            writeDictionary(out, rows.stream().map(PurchaseHistory::getMessage).toList());
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                gzip.finish();
+                buffered.flush();
+                file.getFD().sync();
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Lector por bloques: en memoria solo está el bloque actual, no el
+     * fichero completo.
+     */
+    static final class Reader implements Closeable {
+
+        private final Path path;
+        private final DataInputStream in;
+
+        Reader(Path path) throws IOException {
+            this.path = path;
+            InputStream raw = Files.newInputStream(path);
+            try {
+                this.in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(raw, 1 << 16)));
+            } catch (IOException e) {
+                raw.close();
+                throw e;
+            }
+        }
+
+        /** Siguiente bloque del fichero, o null al llegar al final. */
+        List<PurchaseHistory> nextBlock() throws IOException {
+            int magic;
+            try {
+                magic = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (magic != BLOCK_MAGIC) {
+                throw new IOException("Bloque de archivo inválido en " + path);
+            }
+            return readBlock(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static List<PurchaseHistory> readBlock(DataInputStream in) throws IOException {
+        int n = (int) readVarLong(in);
+        PurchaseHistory[] block = new PurchaseHistory[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += unzigzag(readVarLong(in));
+            block[i] = new PurchaseHistory();
+            block[i].setId(previous);
+        }
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += unzigzag(readVarLong(in));
+            block[i].setDate(fromMicros(previous));
+        }
+        for (int i = 0; i < n; i++) {
+            block[i].setProductId(readNullable(in));
+        }
+        for (int i = 0; i < n; i++) {
+            block[i].setQuantity(readNullable(in));
+        }
+        List<String> statuses = readDictionary(in, n);
+        List<String> messages = readDictionary(in, n);
+        for (int i = 0; i < n; i++) {
+            block[i].setStatus(statuses.get(i));
+            block[i].setMessage(messages.get(i));
+        }
+        return Arrays.asList(block);
+    }
+
+    /** Diccionario de valores distintos seguido de un índice por fila (0 = null). */
+    private static void writeDictionary(DataOutputStream out, List<String> values) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] indexes = new int[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                indexes[i] = codes.computeIfAbsent(value, v -> {
+                    dictionary.add(v);
+                    return dictionary.size();
+                });
+            }
+        }
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary) {
+            out.writeUTF(value);
+        }
+        for (int index : indexes) {
+            writeVarLong(out, index);
+        }
+    }
+
+    private static List<String> readDictionary(DataInputStream in, int n) throws IOException {
+        int size = (int) readVarLong(in);
+        String[] dictionary = new String[size];
+        for (int i = 0; i < size; i++) {
+            dictionary[i] = in.readUTF();
+        }
+        List<String> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int index = (int) readVarLong(in);
+            values.add(index == 0 ? null : dictionary[index - 1]);
+        }
+        return values;
+    }
+
+    private static void writeNullable(DataOutputStream out, Long value) throws IOException {
+        writeVarLong(out, value == null ? 0 : zigzag(value) + 1);
+    }
+
+    private static Long readNullable(DataInputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return raw == 0 ? null : unzigzag(raw - 1);
+    }
+
+    private static long toMicros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + date.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+}
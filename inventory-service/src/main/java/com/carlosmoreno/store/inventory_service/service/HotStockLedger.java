@@ -0,0 +1,442 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.LedgerCheckpoint;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.LedgerCheckpointRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stock en memoria para los productos de {@code inventory.hot-ledger.product-ids}.
+ *
+ * <p>Durante una venta unos pocos productos concentran casi todas las
+ * compras y el bloqueo de su fila en MySQL serializa las transacciones. Para
+ * esos productos el descuento se hace con un CAS sobre un contador en
+ * memoria, se anota en un write-ahead log ({@link LedgerWal}) y se confirma
+ * al llamador; un hilo en segundo plano aplica cada
+ * {@code inventory.hot-ledger.flush-interval} los deltas agregados a la
+ * tabla {@code inventory} y, en la misma transacción, la última secuencia
+ * aplicada en {@code ledger_checkpoint}. Al arrancar se reaplican los
+ * registros del WAL posteriores a ese checkpoint.</p>
+ *
+ * <p>Cada {@code inventory.hot-ledger.reconcile-interval} se compara la
+ * cantidad de la base de datos menos los deltas pendientes con el contador en
+ * memoria y la diferencia se publica en {@code inventory.hot-ledger.drift}.
+ * Una compra en curso puede aparecer como diferencia positiva transitoria;
+ * una diferencia persistente indica cambios en la tabla hechos por fuera del
+ * ledger.</p>
+ *
+ * <p>El ledger es dueño de las filas de sus productos: solo es correcto si
+ * una única instancia del servicio los tiene configurados.</p>
+ */
+@Component
+public class HotStockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(HotStockLedger.class);
+    private static final String CHECKPOINT = "hot-stock-ledger";
+
+    private final InventoryRepository inventoryRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Slot> slots;
+    private final Duration flushInterval;
+    private final Duration reconcileInterval;
+    private final boolean fsync;
+    private final LedgerWal wal;
+    private final Counter flushFailures;
+    private final Counter syncFailures;
+    private final Timer lockWait;
+    private final Timer syncTime;
+
+    /** Protege el WAL, {@link #lastSeq} y los deltas pendientes. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Serializa flush, reconciliación y recuperación entre sí. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private long lastSeq;
+    private long checkpointSeq;
+    private ScheduledExecutorService flusher;
+
+    private static final class Slot {
+        final AtomicLong available = new AtomicLong();
+        final AtomicLong drift = new AtomicLong();
+        /** Delta aún no aplicado en la base de datos; protegido por {@code lock}. */
+        long pending;
+    }
+
+    public HotStockLedger(InventoryRepository inventoryRepository,
+                          LedgerCheckpointRepository checkpointRepository,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventory.hot-ledger.enabled:false}") boolean enabled,
+                          @Value("${inventory.hot-ledger.product-ids:}") Set<Long> productIds,
+                          @Value("${inventory.hot-ledger.flush-interval:100ms}") Duration flushInterval,
+                          @Value("${inventory.hot-ledger.reconcile-interval:1m}") Duration reconcileInterval,
+                          @Value("${inventory.hot-ledger.wal-dir:./data/ledger-wal}") String walDir,
+                          @Value("${inventory.hot-ledger.wal-fsync:true}") boolean fsync) {
+        this.inventoryRepository = inventoryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushInterval = flushInterval;
+        this.reconcileInterval = reconcileInterval;
+        this.fsync = fsync;
+        Map<Long, Slot> configured = new HashMap<>();
+        if (enabled) {
+            productIds.forEach(id -> configured.put(id, new Slot()));
+        }
+        this.slots = Map.copyOf(configured);
+        this.wal = slots.isEmpty() ? null : new LedgerWal(Path.of(walDir));
+
+        this.flushFailures = Counter.builder("inventory.hot-ledger.flush.failures")
+                .description("Intentos fallidos de aplicar los deltas del ledger en la base de datos")
+                .register(meterRegistry);
+        this.syncFailures = Counter.builder("inventory.hot-ledger.wal.sync.failures")
+                .description("Registros del WAL que no se pudieron forzar a disco")
+                .register(meterRegistry);
+        this.lockWait = Timer.builder("inventory.hot-ledger.lock.wait")
+                .description("Espera por el cerrojo del WAL al anotar una compra")
+                .register(meterRegistry);
+        this.syncTime = Timer.builder("inventory.hot-ledger.wal.sync")
+                .description("Duración del fsync del WAL por compra")
+                .register(meterRegistry);
+        Gauge.builder("inventory.hot-ledger.pending", this, HotStockLedger::pendingTotal)
+                .description("Unidades descontadas en memoria y aún no aplicadas en la base de datos")
+                .register(meterRegistry);
+        slots.forEach((productId, slot) -> Gauge.builder("inventory.hot-ledger.drift", slot.drift, AtomicLong::get)
+                .tag("productId", productId.toString())
+                .register(meterRegistry));
+    }
+
+    @PostConstruct
+    void start() {
+        if (slots.isEmpty()) {
+            return;
+        }
+        recover();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hot-stock-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::reconcile, reconcileInterval.toMillis(), reconcileInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        if (slots.isEmpty()) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+        wal.close();
+    }
+
+    public boolean manages(Long productId) {
+        return productId != null && slots.containsKey(productId);
+    }
+
+    /** Stock disponible según el ledger, incluidos los descuentos aún no aplicados en la base de datos. */
+    public long available(Long productId) {
+        return slot(productId).available.get();
+    }
+
+    /**
+     * Descuenta {@code quantity} si hay stock suficiente. El descuento es
+     * durable (está en el WAL) cuando el método retorna.
+     *
+     * @return stock restante, o {@code -1} si no alcanza
+     * @throws UncheckedIOException si el WAL no se pudo escribir o forzar a
+     *         disco; en ese caso no se descuenta nada
+     */
+    public long tryDecrement(Long productId, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        Slot slot = slot(productId);
+        long current;
+        do {
+            current = slot.available.get();
+            if (current < quantity) {
+                return -1;
+            }
+        } while (!slot.available.compareAndSet(current, current - quantity));
+        try {
+            record(slot, productId, quantity);
+        } catch (IOException e) {
+            slot.available.addAndGet(quantity);
+            throw new UncheckedIOException("No se pudo registrar la compra del producto " + productId, e);
+        }
+        return current - quantity;
+    }
+
+    /** Devuelve unidades descontadas por una compra que después se canceló. */
+    public void release(Long productId, long quantity) {
+        Slot slot = slot(productId);
+        slot.available.addAndGet(quantity);
+        try {
+            record(slot, productId, -quantity);
+        } catch (IOException e) {
+            slot.available.addAndGet(-quantity);
+            throw new UncheckedIOException("No se pudo devolver el stock del producto " + productId, e);
+        }
+    }
+
+    /** Fija el stock disponible; el cambio se registra como un delta más. */
+    public void setQuantity(Long productId, long quantity) {
+        Slot slot = slot(productId);
+        long previous = slot.available.getAndSet(quantity);
+        try {
+            record(slot, productId, previous - quantity);
+        } catch (IOException e) {
+            slot.available.addAndGet(previous - quantity);
+            throw new UncheckedIOException("No se pudo registrar el stock del producto " + productId, e);
+        }
+    }
+
+    /**
+     * Aplica en la base de datos los deltas pendientes junto con el nuevo
+     * checkpoint y borra los segmentos del WAL que quedan cubiertos. Si la
+     * transacción falla, los deltas vuelven a quedar pendientes.
+     */
+    public void flush() {
+        if (slots.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Long> deltas = new HashMap<>();
+            long upTo;
+            lock.lock();
+            try {
+                if (lastSeq == checkpointSeq) {
+                    return;
+                }
+                upTo = lastSeq;
+                wal.rotate(upTo + 1);
+                slots.forEach((productId, slot) -> {
+                    if (slot.pending != 0) {
+                        deltas.put(productId, slot.pending);
+                        slot.pending = 0;
+                    }
+                });
+            } catch (IOException e) {
+                flushFailures.increment();
+                log.error("No se pudo rotar el WAL del ledger de stock", e);
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    applyDeltas(deltas);
+                    checkpointRepository.save(new LedgerCheckpoint(CHECKPOINT, upTo));
+                });
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    deltas.forEach((productId, delta) -> slots.get(productId).pending += delta);
+                } finally {
+                    lock.unlock();
+                }
+                flushFailures.increment();
+                log.error("No se pudieron aplicar los deltas del ledger de stock: {}", deltas, e);
+                return;
+            }
+            checkpointSeq = upTo;
+            try {
+                wal.deleteClosedSegments();
+            } catch (IOException e) {
+                log.warn("No se pudieron borrar segmentos ya aplicados del WAL: {}", e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Compara cada contador con la base de datos y publica la diferencia
+     * ({@code cantidad en BD - pendiente - disponible en memoria}).
+     *
+     * @return diferencia por producto
+     */
+    public Map<Long, Long> reconcile() {
+        Map<Long, Long> drift = new HashMap<>();
+        if (slots.isEmpty()) {
+            return drift;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Long> stored = storedQuantities();
+            lock.lock();
+            try {
+                slots.forEach((productId, slot) -> drift.put(productId,
+                        stored.getOrDefault(productId, 0L) - slot.pending - slot.available.get()));
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo reconciliar el ledger de stock: {}", e.getMessage());
+            return drift;
+        } finally {
+            flushLock.unlock();
+        }
+        drift.forEach((productId, difference) -> {
+            slots.get(productId).drift.set(difference);
+            if (difference != 0) {
+                log.warn("El ledger de stock difiere de la base de datos para el producto {}: {}",
+                        productId, difference);
+            }
+        });
+        return drift;
+    }
+
+    /**
+     * Reaplica los registros del WAL posteriores al checkpoint, empieza un WAL
+     * limpio y carga los contadores desde la base de datos.
+     */
+    private void recover() {
+        flushLock.lock();
+        try {
+            long checkpoint = checkpointRepository.findById(CHECKPOINT).map(LedgerCheckpoint::getLastSeq).orElse(0L);
+            List<LedgerWal.Entry> entries = wal.readAll();
+            Map<Long, Long> deltas = new HashMap<>();
+            long maxSeq = checkpoint;
+            for (LedgerWal.Entry entry : entries) {
+                if (entry.seq() > checkpoint) {
+                    deltas.merge(entry.productId(), entry.delta(), Long::sum);
+                }
+                maxSeq = Math.max(maxSeq, entry.seq());
+            }
+            if (maxSeq > checkpoint) {
+                long upTo = maxSeq;
+                transactionTemplate.executeWithoutResult(tx -> {
+                    applyDeltas(deltas);
+                    checkpointRepository.save(new LedgerCheckpoint(CHECKPOINT, upTo));
+                });
+                log.info("Ledger de stock: reaplicados los registros {}..{} del WAL", checkpoint + 1, upTo);
+            }
+            wal.deleteAll();
+            wal.open(maxSeq + 1);
+            lastSeq = maxSeq;
+            checkpointSeq = maxSeq;
+
+            Map<Long, Long> stored = storedQuantities();
+            slots.forEach((productId, slot) -> slot.available.set(stored.getOrDefault(productId, 0L)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el WAL del ledger de stock", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Anota el delta en el WAL y en el pendiente del producto bajo el mismo
+     * cerrojo, de modo que un flush nunca toma un checkpoint que incluya un
+     * registro cuyo delta no haya recogido. El fsync se hace fuera del
+     * cerrojo para que varias compras puedan esperar el disco a la vez.
+     *
+     * <p>Si el fsync falla se retira el delta del pendiente y se propaga el
+     * error, para que el llamador deshaga el cambio en memoria. El registro
+     * puede quedar en el WAL: si el proceso cae antes del siguiente flush, la
+     * recuperación lo aplica y el stock queda por debajo del real, nunca por
+     * encima: se pierde una venta, pero no se vende dos veces la misma unidad.</p>
+     */
+    private void record(Slot slot, Long productId, long delta) throws IOException {
+        FileChannel written;
+        long seq;
+        long waitStart = System.nanoTime();
+        lock.lock();
+        lockWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            seq = lastSeq + 1;
+            written = wal.append(seq, productId, delta);
+            lastSeq = seq;
+            slot.pending += delta;
+        } finally {
+            lock.unlock();
+        }
+        if (fsync) {
+            long syncStart = System.nanoTime();
+            try {
+                wal.sync(written, seq);
+            } catch (IOException e) {
+                syncFailures.increment();
+                lock.lock();
+                try {
+                    slot.pending -= delta;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            } finally {
+                syncTime.record(System.nanoTime() - syncStart, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void applyDeltas(Map<Long, Long> deltas) {
+        deltas.forEach((productId, delta) -> {
+            if (inventoryRepository.applyDelta(productId, delta) == 0) {
+                inventoryRepository.save(Inventory.builder().productId(productId).quantity(-delta).build());
+            }
+        });
+    }
+
+    private Map<Long, Long> storedQuantities() {
+        Map<Long, Long> stored = new HashMap<>();
+        inventoryRepository.findAllById(slots.keySet())
+                .forEach(inv -> stored.put(inv.getProductId(), inv.getQuantity()));
+        return stored;
+    }
+
+    private long pendingTotal() {
+        lock.lock();
+        try {
+            return slots.values().stream().mapToLong(slot -> slot.pending).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Slot slot(Long productId) {
+        Slot slot = slots.get(productId);
+        if (slot == null) {
+            throw new IllegalArgumentException("Product " + productId + " is not managed by the hot stock ledger");
+        }
+        return slot;
+    }
+}
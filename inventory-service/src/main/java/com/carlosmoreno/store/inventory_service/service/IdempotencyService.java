@@ -0,0 +1,427 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.model.IdempotencyRecord;
+import com.carlosmoreno.store.inventory_service.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecuta como máximo una vez las peticiones con {@code Idempotency-Key} y
+ * devuelve a los reintentos la respuesta guardada de la primera ejecución.
+ *
+ * <p>Las respuestas se guardan en una LRU acotada en memoria y en la tabla
+ * {@code idempotency_keys}, que cubre las claves desalojadas, los reinicios
+ * y las demás instancias. Los duplicados concurrentes de esta instancia
+ * esperan a la ejecución en curso; los de otras instancias encuentran la
+ * clave reclamada en la tabla y consultan hasta que se complete.</p>
+ *
+ * <p>Cada reclamación es una concesión de {@code inventory.idempotency.lease}:
+ * si la instancia que la tiene muere a mitad de la petición, el siguiente
+ * reintento toma la clave cuando la concesión vence en lugar de esperar al
+ * TTL. Tomarla solo es seguro si la primera ejecución no confirmó nada, así
+ * que la acción recibe la {@link Claim} y la completa en la misma transacción
+ * que descuenta el stock, o la fija antes de un cambio que no puede confirmar
+ * junto con ella. Una instancia que pierde la concesión no sobrescribe la
+ * respuesta de la que la tomó y su transacción se deshace.</p>
+ *
+ * <p>Las respuestas 5xx no se guardan: la clave se libera para que el
+ * cliente pueda reintentar.</p>
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    /** Respuesta guardada; {@code replayed} indica que no se volvió a ejecutar. */
+    public record StoredResponse(String fingerprint, int status, String body, boolean replayed) {
+
+        StoredResponse asReplay() {
+            return replayed ? this : new StoredResponse(fingerprint, status, body, true);
+        }
+    }
+
+    /**
+     * Reclamación de la clave que está ejecutando la acción. Las acciones que
+     * no cambian nada pueden ignorarla: la respuesta se guarda al terminar.
+     */
+    public interface Claim {
+
+        /** Sin Idempotency-Key no hay reclamación. */
+        Claim NONE = new Claim() {
+            @Override
+            public void pin() {
+            }
+
+            @Override
+            public void complete(HttpStatus status, Object body) {
+            }
+        };
+
+        /**
+         * Impide que otra petición tome la clave cuando venza la concesión.
+         * Se llama antes de un cambio que no se confirma en la base de datos;
+         * si la instancia muere después, los reintentos reciben 409 hasta el
+         * TTL en lugar de repetirlo.
+         *
+         * @throws ResponseStatusException 409 si otra petición ya tomó la clave
+         */
+        void pin();
+
+        /**
+         * Guarda la respuesta dentro de la transacción en curso, que la
+         * confirma junto con los cambios de la acción.
+         *
+         * @throws ResponseStatusException 409 si otra petición ya tomó la
+         *                                 clave; la transacción se deshace
+         */
+        void complete(HttpStatus status, Object body);
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration lease;
+    private final Duration cleanupInterval;
+    private final Cache<String, StoredResponse> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executions;
+    private final Counter dedupCache;
+    private final Counter dedupInFlight;
+    private final Counter dedupDatabase;
+
+    private ScheduledExecutorService cleaner;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${inventory.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${inventory.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                              @Value("${inventory.idempotency.lease:30s}") Duration lease,
+                              @Value("${inventory.idempotency.cleanup-interval:1h}") Duration cleanupInterval) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.lease = lease;
+        this.cleanupInterval = cleanupInterval;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+        this.executions = Counter.builder("purchase.idempotency.executions")
+                .description("Peticiones con Idempotency-Key ejecutadas por primera vez")
+                .register(meterRegistry);
+        this.dedupCache = dedupCounter(meterRegistry, "cache");
+        this.dedupInFlight = dedupCounter(meterRegistry, "in-flight");
+        this.dedupDatabase = dedupCounter(meterRegistry, "database");
+    }
+
+    @PostConstruct
+    void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::deleteExpired, cleanupInterval.toMillis(), cleanupInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (cleaner != null) {
+            cleaner.shutdown();
+        }
+    }
+
+    /**
+     * Ejecuta {@code action} una sola vez por clave.
+     *
+     * @param fingerprint identifica el contenido de la petición; reutilizar
+     *                    la clave con otro contenido responde 422
+     */
+    public StoredResponse execute(String key, String fingerprint, Function<Claim, ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La Idempotency-Key debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+        StoredResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            dedupCache.increment();
+            return checked(cached, fingerprint).asReplay();
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            dedupInFlight.increment();
+            return checked(await(running), fingerprint).asReplay();
+        }
+        try {
+            StoredResponse response = executeOnce(key, fingerprint, action);
+            mine.complete(response);
+            return checked(response, fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Borra las claves más antiguas que {@code inventory.idempotency.ttl}. */
+    void deleteExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(
+                    tx -> repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+            if (deleted != null && deleted > 0) {
+                log.debug("Eliminadas {} claves de idempotencia vencidas", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron eliminar las claves de idempotencia vencidas", e);
+        }
+    }
+
+    /**
+     * Reclama la clave en la tabla y ejecuta la acción. Si ya está reclamada,
+     * devuelve la respuesta guardada o espera a que la complete la instancia
+     * que la reclamó, y la toma si su concesión vence mientras espera.
+     */
+    private StoredResponse executeOnce(String key, String fingerprint, Function<Claim, ResponseEntity<?>> action) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Optional<IdempotencyRecord> stored = repository.findById(key);
+            if (stored.isEmpty()) {
+                LocalDateTime claimedAt = now();
+                if (claim(key, fingerprint, claimedAt)) {
+                    return run(key, fingerprint, claimedAt, action);
+                }
+                continue;
+            }
+            IdempotencyRecord record = stored.get();
+            if (!pending(record)) {
+                StoredResponse response = new StoredResponse(record.getFingerprint(), record.getStatus(),
+                        record.getBody(), true);
+                cache.put(key, response);
+                dedupDatabase.increment();
+                return response;
+            }
+            if (!record.getFingerprint().equals(fingerprint)) {
+                throw fingerprintMismatch();
+            }
+            LocalDateTime claimedAt = now();
+            if (record.getStatus() == IdempotencyRecord.IN_PROGRESS && leaseExpired(record, claimedAt)
+                    && takeOver(key, claimedAt)) {
+                log.warn("Tomada la Idempotency-Key {}: la concesión anterior venció sin completarse", key);
+                return run(key, fingerprint, claimedAt, action);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Ya hay una petición en curso con la Idempotency-Key " + key);
+            }
+            sleep();
+        }
+    }
+
+    private StoredResponse run(String key, String fingerprint, LocalDateTime claimedAt,
+                               Function<Claim, ResponseEntity<?>> action) {
+        ActiveClaim claim = new ActiveClaim(key, fingerprint, claimedAt);
+        ResponseEntity<?> result;
+        try {
+            result = action.apply(claim);
+        } catch (RuntimeException e) {
+            release(key, claimedAt);
+            throw e;
+        }
+        executions.increment();
+        if (claim.completed != null) {
+            cache.put(key, claim.completed.asReplay());
+            return claim.completed;
+        }
+        StoredResponse response = new StoredResponse(fingerprint, result.getStatusCode().value(),
+                toJson(result.getBody()), false);
+        if (result.getStatusCode().is5xxServerError()) {
+            release(key, claimedAt);
+            return response;
+        }
+        Integer completed = transactionTemplate.execute(
+                tx -> repository.complete(key, claimedAt, response.status(), response.body()));
+        if (completed == null || completed == 0) {
+            log.warn("La concesión de la Idempotency-Key {} venció antes de completar la petición", key);
+            return response;
+        }
+        cache.put(key, response.asReplay());
+        return response;
+    }
+
+    private boolean claim(String key, String fingerprint, LocalDateTime claimedAt) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> repository.claim(key, fingerprint, claimedAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private static boolean pending(IdempotencyRecord record) {
+        return record.getStatus() == IdempotencyRecord.IN_PROGRESS || record.getStatus() == IdempotencyRecord.PINNED;
+    }
+
+    private boolean leaseExpired(IdempotencyRecord record, LocalDateTime now) {
+        return record.getClaimedAt() == null || record.getClaimedAt().isBefore(now.minus(lease));
+    }
+
+    private boolean takeOver(String key, LocalDateTime claimedAt) {
+        Integer updated = transactionTemplate.execute(
+                tx -> repository.takeOver(key, claimedAt, claimedAt.minus(lease)));
+        return updated != null && updated == 1;
+    }
+
+    private void release(String key, LocalDateTime claimedAt) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> repository.release(key, claimedAt));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo liberar la Idempotency-Key {}", key, e);
+        }
+    }
+
+    /** Milisegundos: la concesión se compara por igualdad con la columna guardada. */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Reclamación de una ejecución. {@code completed} solo se asigna cuando
+     * la transacción que guardó la respuesta se confirma.
+     */
+    private final class ActiveClaim implements Claim {
+
+        private final String key;
+        private final String fingerprint;
+        private final LocalDateTime claimedAt;
+        private StoredResponse completed;
+
+        private ActiveClaim(String key, String fingerprint, LocalDateTime claimedAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.claimedAt = claimedAt;
+        }
+
+        @Override
+        public void pin() {
+            Integer pinned = transactionTemplate.execute(tx -> repository.pin(key, claimedAt));
+            if (pinned == null || pinned == 0) {
+                throw leaseLost(key);
+            }
+        }
+
+        @Override
+        public void complete(HttpStatus status, Object body) {
+            StoredResponse response = new StoredResponse(fingerprint, status.value(), toJson(body), false);
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (repository.complete(key, claimedAt, response.status(), response.body()) == 0) {
+                    throw leaseLost(key);
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        completed = response;
+                    }
+                });
+            });
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    private static StoredResponse checked(StoredResponse response, String fingerprint) {
+        if (!response.fingerprint().equals(fingerprint)) {
+            throw fingerprintMismatch();
+        }
+        return response;
+    }
+
+    private static ResponseStatusException leaseLost(String key) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "La concesión de la Idempotency-Key " + key + " venció y otra petición la tomó");
+    }
+
+    private static ResponseStatusException fingerprintMismatch() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "La Idempotency-Key ya se usó con una solicitud distinta");
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Espera interrumpida");
+        }
+    }
+
+    private static Counter dedupCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("purchase.idempotency.deduplicated")
+                .description("Reintentos respondidos con la respuesta guardada sin volver a ejecutar")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,247 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.carlosmoreno.store.inventory_service.model.InventoryBulkResult;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Carga masiva de cantidades ({@code PUT /api/inventory}) desde un array JSON
+ * o un CSV {@code productId,quantity}.
+ *
+ * <p>El cuerpo se lee en streaming y se procesa en bloques de
+ * {@code inventory.bulk.chunk-size} filas: los ids de cada bloque se validan
+ * con una sola consulta a products-service y se escriben con un único
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} en su propia transacción. La
+ * memoria depende del tamaño del bloque, no del cuerpo; a cambio, si la carga
+ * se corta a medias los bloques anteriores ya quedaron aplicados.</p>
+ *
+ * <p>Las filas que no se pueden aplicar (formato, producto inexistente,
+ * products-service caído, cantidad menor que las unidades reservadas, error de
+ * escritura en la base de datos o en el WAL del {@link HotStockLedger}) se
+ * informan en el resultado y no detienen la carga, salvo un JSON mal formado,
+ * que no permite seguir leyendo.</p>
+ */
+@Service
+public class InventoryBulkService {
+
+    private final InventoryRepository repository;
+    private final ProductClient productClient;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxReportedFailures;
+
+    public InventoryBulkService(InventoryRepository repository,
+                                ProductClient productClient,
+                                HotStockLedger hotStockLedger,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${inventory.bulk.chunk-size:1000}") int chunkSize,
+                                @Value("${inventory.bulk.max-reported-failures:1000}") int maxReportedFailures) {
+        this.repository = repository;
+        this.productClient = productClient;
+        this.hotStockLedger = hotStockLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /** Fila leída del cuerpo; {@code error} indica que no se pudo interpretar. */
+    private record Row(long row, Long productId, Long quantity, String error) {
+    }
+
+    /** Carga un array JSON de objetos {@code {"productId": 1, "quantity": 10}}. */
+    public InventoryBulkResult upsertJson(InputStream body) throws IOException {
+        InventoryBulkResult result = new InventoryBulkResult();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                fail(result, new Row(0, null, null, "El cuerpo debe ser un array JSON"));
+                return result;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                add(readJsonRow(parser, ++row), chunk, result);
+            }
+        } catch (JsonProcessingException e) {
+            fail(result, new Row(row, null, null, "JSON inválido: " + e.getOriginalMessage()));
+        }
+        apply(chunk, result);
+        return result;
+    }
+
+    /**
+     * Carga un CSV {@code productId,quantity}, una fila por línea. La
+     * primera línea se ignora si no empieza por un número (cabecera).
+     */
+    public InventoryBulkResult upsertCsv(InputStream body) throws IOException {
+        InventoryBulkResult result = new InventoryBulkResult();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank() || (line == 1 && !Character.isDigit(text.strip().charAt(0)))) {
+                    continue;
+                }
+                add(readCsvRow(text, line), chunk, result);
+            }
+        }
+        apply(chunk, result);
+        return result;
+    }
+
+    private Row readJsonRow(JsonParser parser, long row) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new Row(row, null, null, "Cada elemento debe ser un objeto con productId y quantity");
+        }
+        Long productId = null;
+        Long quantity = null;
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!field.equals("productId") && !field.equals("quantity")) {
+                parser.skipChildren();
+            } else if (value != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                error = field + " debe ser un entero";
+            } else if (field.equals("productId")) {
+                productId = parser.getLongValue();
+            } else {
+                quantity = parser.getLongValue();
+            }
+        }
+        return new Row(row, productId, quantity, error);
+    }
+
+    private static Row readCsvRow(String text, long line) {
+        String[] columns = text.split(",", -1);
+        if (columns.length != 2) {
+            return new Row(line, null, null, "Se esperan dos columnas: productId,quantity");
+        }
+        try {
+            return new Row(line, Long.valueOf(columns[0].strip()), Long.valueOf(columns[1].strip()), null);
+        } catch (NumberFormatException e) {
+            return new Row(line, null, null, "productId y quantity deben ser enteros");
+        }
+    }
+
+    private void add(Row row, List<Row> chunk, InventoryBulkResult result) {
+        result.setReceived(result.getReceived() + 1);
+        if (row.error() == null && (row.productId() == null || row.quantity() == null)) {
+            row = new Row(row.row(), row.productId(), row.quantity(), "productId y quantity son obligatorios");
+        } else if (row.error() == null && row.quantity() < 0) {
+            row = new Row(row.row(), row.productId(), row.quantity(), "La cantidad no puede ser negativa");
+        }
+        if (row.error() != null) {
+            fail(result, row);
+            return;
+        }
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            apply(chunk, result);
+        }
+    }
+
+    /**
+     * Valida y escribe un bloque y lo vacía. Si un producto aparece varias
+     * veces en el bloque gana la última fila.
+     */
+    private void apply(List<Row> chunk, InventoryBulkResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> quantities = new LinkedHashMap<>();
+        chunk.forEach(row -> quantities.put(row.productId(), row.quantity()));
+        Set<Long> missing;
+        try {
+            missing = productClient.findMissing(quantities.keySet());
+        } catch (ProductServiceUnavailableException e) {
+            failAll(chunk, result, "No fue posible validar el producto: " + e.getMessage());
+            return;
+        }
+
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (missing.contains(row.productId())) {
+                fail(result, new Row(row.row(), row.productId(), row.quantity(),
+                        "El producto con ID " + row.productId() + " no existe"));
+            } else {
+                accepted.add(row);
+            }
+        }
+        quantities.keySet().removeAll(missing);
+        Map<Long, Long> ledger = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (hotStockLedger.manages(productId)) {
+                ledger.put(productId, quantity);
+            }
+        });
+        quantities.keySet().removeAll(ledger.keySet());
+
+        Map<Long, String> errors = new HashMap<>();
+        try {
+            Map<Long, Long> rejected = transactionTemplate.execute(status -> repository.upsertQuantities(quantities));
+            rejected.forEach((productId, reserved) -> errors.put(productId, "La cantidad " + quantities.get(productId)
+                    + " es menor que las " + reserved + " unidades reservadas del producto " + productId));
+        } catch (DataAccessException e) {
+            String error = "No fue posible guardar el inventario: " + e.getMostSpecificCause().getMessage();
+            quantities.keySet().forEach(productId -> errors.put(productId, error));
+        }
+        ledger.forEach((productId, quantity) -> {
+            try {
+                hotStockLedger.setQuantity(productId, quantity);
+            } catch (RuntimeException e) {
+                errors.put(productId, "No fue posible guardar el inventario: " + e.getMessage());
+            }
+        });
+        for (Row row : accepted) {
+            String error = errors.get(row.productId());
+            if (error == null) {
+                result.setUpdated(result.getUpdated() + 1);
+            } else {
+                fail(result, new Row(row.row(), row.productId(), row.quantity(), error));
+            }
+        }
+        chunk.clear();
+    }
+
+    private void failAll(List<Row> rows, InventoryBulkResult result, String error) {
+        rows.forEach(row -> fail(result, new Row(row.row(), row.productId(), row.quantity(), error)));
+        rows.clear();
+    }
+
+    private void fail(InventoryBulkResult result, Row row) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures().size() < maxReportedFailures) {
+            result.getFailures().add(new InventoryBulkResult.RowFailure(row.row(), row.productId(), row.error()));
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.carlosmoreno.store.inventory_service.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
 import com.carlosmoreno.store.inventory_service.model.Inventory;
 import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
 
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 @RequiredArgsConstructor
@@ -16,41 +28,150 @@ public class InventoryService {
 
     private final InventoryRepository repository;
     private final ProductClient productClient;
+    private final HotStockLedger hotStockLedger;
+    private final Scheduler jdbcScheduler;
 
+    /**
+     * Lectura rápida: si existe la fila de inventario se devuelve sin consultar
+     * products-service. Solo para ids sin fila se confirma que el producto
+     * exista (la respuesta queda en la cache de {@link ProductClient}) y se
+     * devuelve una cantidad cero calculada, sin escribir nada en la base de
+     * datos. Los productos del {@link HotStockLedger} se leen de memoria,
+     * donde están los descuentos aún no aplicados en la tabla.
+     */
     public Inventory getInventory(Long productId) {
-        try {
-            productClient.getProductById(productId);
-        } catch (Exception e) {
-           throw new ResponseStatusException(HttpStatus.NOT_FOUND, "El producto con ID " + productId + " no existe");
+        if (hotStockLedger.manages(productId)) {
+            return ledgerInventory(productId);
         }
+        return repository.findById(productId).orElseGet(() -> {
+            try {
+                productClient.requireProduct(productId);
+            } catch (ProductNotFoundException e) {
+                throw productNotFound(productId);
+            } catch (ProductServiceUnavailableException e) {
+                throw productServiceUnavailable(e);
+            }
+            return emptyInventory(productId);
+        });
+    }
 
+    /**
+     * Variante de {@link #getInventory(Long)} para varios productos: una
+     * consulta a la tabla y, para los ids sin fila, una sola validación en
+     * products-service. Los productos inexistentes no aparecen en la
+     * respuesta; el resto se devuelve en el orden pedido.
+     */
+    public List<Inventory> getInventories(Collection<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+        Map<Long, Inventory> found = new HashMap<>();
+        repository.findAllById(ids.stream().filter(id -> !hotStockLedger.manages(id)).toList())
+                .forEach(inv -> found.put(inv.getProductId(), inv));
+        List<Long> withoutRow = ids.stream()
+                .filter(id -> !hotStockLedger.manages(id) && !found.containsKey(id))
+                .toList();
+        Set<Long> missing;
+        try {
+            missing = withoutRow.isEmpty() ? Set.of() : productClient.findMissing(withoutRow);
+        } catch (ProductServiceUnavailableException e) {
+            throw productServiceUnavailable(e);
+        }
 
-        return repository.findById(productId)
-            .orElseGet(() -> {
-                Inventory newInv = Inventory.builder()
-                        .productId(productId)
-                        .quantity(0L)
-                        .build();
-                return repository.save(newInv);
-            });
+        List<Inventory> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (hotStockLedger.manages(id)) {
+                result.add(ledgerInventory(id));
+            } else if (found.containsKey(id)) {
+                result.add(found.get(id));
+            } else if (!missing.contains(id)) {
+                result.add(emptyInventory(id));
+            }
+        }
+        return result;
     }
 
     public Inventory updateQuantity(Long productId, Long quantity) {
         try {
-            productClient.getProductById(productId);
-        } catch (RuntimeException ex) {
+            productClient.requireProduct(productId);
+        } catch (ProductNotFoundException ex) {
             throw new ResponseStatusException(
                 HttpStatus.NOT_FOUND,
                 "El producto con ID " + productId + " no existe"
             );
+        } catch (ProductServiceUnavailableException ex) {
+            throw productServiceUnavailable(ex);
         }
-        Inventory inv = repository.findById(productId).orElse(Inventory.builder()
+        return saveQuantity(productId, quantity);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #getInventory(Long)}: el acceso a la
+     * base de datos se ejecuta en el scheduler JDBC acotado y la validación
+     * del producto, cuando hace falta, no ocupa ningún hilo.
+     */
+    public Mono<Inventory> getInventoryAsync(Long productId) {
+        if (hotStockLedger.manages(productId)) {
+            return Mono.just(ledgerInventory(productId));
+        }
+        return Mono.fromCallable(() -> repository.findById(productId))
+                .subscribeOn(jdbcScheduler)
+                .flatMap(found -> found.map(Mono::just).orElseGet(() -> productClient.requireProductAsync(productId)
+                        .onErrorMap(ProductNotFoundException.class, e -> productNotFound(productId))
+                        .onErrorMap(ProductServiceUnavailableException.class, InventoryService::productServiceUnavailable)
+                        .thenReturn(emptyInventory(productId))));
+    }
+
+    /**
+     * Variante no bloqueante de {@link #updateQuantity(Long, Long)}.
+     */
+    public Mono<Inventory> updateQuantityAsync(Long productId, Long quantity) {
+        return productClient.requireProductAsync(productId)
+                .onErrorMap(ProductNotFoundException.class, e -> productNotFound(productId))
+                .onErrorMap(ProductServiceUnavailableException.class, InventoryService::productServiceUnavailable)
+                .then(Mono.fromCallable(() -> saveQuantity(productId, quantity)).subscribeOn(jdbcScheduler));
+    }
+
+    private static Inventory emptyInventory(Long productId) {
+        return Inventory.builder()
                 .productId(productId)
                 .quantity(0L)
-                .build());
-        inv.setQuantity(quantity);
-        return repository.save(inv);
+                .build();
+    }
+
+    private Inventory ledgerInventory(Long productId) {
+        return Inventory.builder()
+                .productId(productId)
+                .quantity(hotStockLedger.available(productId))
+                .build();
     }
 
-   
+    /**
+     * Fija la cantidad con una actualización condicional que conserva
+     * {@code reserved}; si el producto no tiene fila se crea. Responde 409 si
+     * la cantidad es menor que las unidades reservadas.
+     */
+    private Inventory saveQuantity(Long productId, Long quantity) {
+        if (hotStockLedger.manages(productId)) {
+            hotStockLedger.setQuantity(productId, quantity);
+            return ledgerInventory(productId);
+        }
+        boolean saved = repository.setQuantity(productId, quantity) == 1
+                || repository.insertIfAbsent(productId, quantity)
+                || repository.setQuantity(productId, quantity) == 1;
+        Inventory inv = repository.findById(productId).orElseThrow();
+        if (!saved) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "La cantidad " + quantity + " es menor que las " + inv.getReserved()
+                            + " unidades reservadas del producto " + productId);
+        }
+        return inv;
+    }
+
+    private static ResponseStatusException productNotFound(Long productId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "El producto con ID " + productId + " no existe");
+    }
+
+    private static ResponseStatusException productServiceUnavailable(ProductServiceUnavailableException ex) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "No fue posible validar el producto: " + ex.getMessage());
+    }
 }
@@ -0,0 +1,221 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log en segmentos del {@link HotStockLedger}. Cada registro
+ * ocupa {@value #RECORD_SIZE} bytes: secuencia, producto, delta y CRC32.
+ *
+ * <p>Los segmentos se llaman {@code ledger-<primera secuencia>.wal}, de modo
+ * que el orden alfabético es el orden del log. Al leer, un registro
+ * incompleto o con CRC erróneo (escritura cortada por una caída) marca el
+ * final del segmento.</p>
+ *
+ * <p>No es seguro para uso concurrente: el ledger serializa las escrituras y
+ * las rotaciones con su propio cerrojo. Solo {@link #sync} se llama fuera de
+ * él.</p>
+ */
+class LedgerWal {
+
+    static final int RECORD_SIZE = 28;
+
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".wal";
+
+    record Entry(long seq, long productId, long delta) {
+    }
+
+    private final Path directory;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+    private Path segment;
+    private long size;
+    private boolean dirty;
+    private long lastSeq;
+    /** Todos los registros hasta esta secuencia están en disco. */
+    private volatile long forcedSeq;
+
+    LedgerWal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio del WAL " + directory, e);
+        }
+    }
+
+    /** Lee todos los registros de todos los segmentos, en orden. */
+    List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (Path file : segments()) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (true) {
+                    record.clear();
+                    int read;
+                    do {
+                        read = in.read(record);
+                    } while (read > 0 && record.hasRemaining());
+                    if (record.hasRemaining()) {
+                        break;
+                    }
+                    record.flip();
+                    long seq = record.getLong();
+                    long productId = record.getLong();
+                    long delta = record.getLong();
+                    if (record.getInt() != crc(seq, productId, delta)) {
+                        break;
+                    }
+                    entries.add(new Entry(seq, productId, delta));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Abre un segmento nuevo que empieza en {@code firstSeq}; los registros
+     * anteriores ya deben estar en disco.
+     */
+    void open(long firstSeq) throws IOException {
+        segment = directory.resolve(String.format("%s%019d%s", PREFIX, firstSeq, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        size = channel.size();
+        dirty = false;
+        lastSeq = firstSeq - 1;
+        forcedSeq = lastSeq;
+    }
+
+    /**
+     * Escribe un registro en el segmento actual sin forzarlo a disco.
+     *
+     * @return el canal escrito, para hacer {@link #sync(FileChannel)} fuera
+     *         del cerrojo del ledger
+     */
+    FileChannel append(long seq, long productId, long delta) throws IOException {
+        if (!channel.isOpen()) {
+            // FileChannel se cierra sin forzarse si interrumpen a un hilo mientras escribe
+            forceClosed();
+            open(seq);
+        }
+        buffer.clear();
+        buffer.putLong(seq).putLong(productId).putLong(delta).putInt(crc(seq, productId, delta));
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            // Un registro a medias cortaría la lectura de los siguientes
+            try {
+                channel.truncate(size);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        size += RECORD_SIZE;
+        dirty = true;
+        lastSeq = seq;
+        return channel;
+    }
+
+    /**
+     * Cierra el segmento actual (forzándolo a disco) y abre otro que empieza
+     * en {@code nextSeq}. No hace nada si el segmento actual está vacío.
+     */
+    void rotate(long nextSeq) throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+            forcedSeq = lastSeq;
+        } else {
+            forceClosed();
+        }
+        open(nextSeq);
+    }
+
+    /** Borra los segmentos anteriores al actual. */
+    void deleteClosedSegments() throws IOException {
+        for (Path file : segments()) {
+            if (!file.equals(segment)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /** Borra todos los segmentos, incluido el actual si estaba abierto. */
+    void deleteAll() throws IOException {
+        close();
+        for (Path file : segments()) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+            forcedSeq = lastSeq;
+        }
+    }
+
+    /**
+     * Fuerza a disco el registro {@code seq} escrito en {@code written}. Si
+     * el canal ya está cerrado, solo se da por forzado si una rotación o un
+     * cierre lo forzó después de escribirlo; un canal cerrado por una
+     * interrupción no se forzó.
+     */
+    void sync(FileChannel written, long seq) throws IOException {
+        try {
+            written.force(false);
+        } catch (ClosedChannelException e) {
+            if (forcedSeq < seq) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fuerza el segmento actual, cuyo canal se cerró sin forzarlo,
+     * reabriendo el fichero.
+     */
+    private void forceClosed() throws IOException {
+        try (FileChannel reopened = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            reopened.force(false);
+        }
+        forcedSeq = lastSeq;
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static int crc(long seq, long productId, long delta) {
+        CRC32 crc = new CRC32();
+        ByteBuffer bytes = ByteBuffer.allocate(24).putLong(seq).putLong(productId).putLong(delta);
+        crc.update(bytes.array());
+        return (int) crc.getValue();
+    }
+}
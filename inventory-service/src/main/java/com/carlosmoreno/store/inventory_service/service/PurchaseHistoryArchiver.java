@@ -0,0 +1,328 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.util.LongHashSet;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Retención del historial de compras por particiones diarias.
+ *
+ * <p>{@code purchase_history} conserva solo los últimos
+ * {@code purchase.history.retention.hot-days} días. Cada día anterior se
+ * compacta en un fichero {@code history-<día>.phz} de
+ * {@code purchase.history.retention.archive-dir} ({@link HistoryArchiveFile})
+ * y después se borra de la tabla, así que el coste de insertar y mantener
+ * los índices no crece con la antigüedad del servicio. Los ficheros se
+ * eliminan pasados {@code purchase.history.retention.archive-days} días (0 =
+ * nunca).</p>
+ *
+ * <p>{@link #watermark()} marca hasta dónde hay ficheros: los registros
+ * anteriores se leen de ellos y de la tabla, y los posteriores solo de la
+ * tabla. El fichero de un día se escribe completo y se mueve de forma
+ * atómica antes de borrar sus filas. Un registro que llega con fecha de un
+ * día ya archivado se añade a su fichero en la siguiente pasada; hasta
+ * entonces se lee de la tabla. Si el borrado de las filas falla después de mover
+ * el fichero, la siguiente pasada omite los ids que ya están en él y solo
+ * borra las filas, así que repetir una pasada no duplica registros.</p>
+ *
+ * <p>Las particiones nativas de MySQL exigen incluir la fecha en la clave
+ * primaria y no las soporta el esquema generado por JPA; por eso las
+ * particiones frías son ficheros.</p>
+ */
+@Component
+public class PurchaseHistoryArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseHistoryArchiver.class);
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".phz";
+    private static final int BLOCK_SIZE = 5000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final Comparator<PurchaseHistory> OLDEST_FIRST =
+            Comparator.comparing(PurchaseHistory::getDate).thenComparing(PurchaseHistory::getId);
+
+    private final PurchaseHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int hotDays;
+    private final int archiveDays;
+    private final Duration interval;
+    private final Path directory;
+    private final NavigableSet<LocalDate> archivedDays = new ConcurrentSkipListSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter archivedRows;
+    private final Counter failures;
+
+    private ScheduledExecutorService archiver;
+
+    public PurchaseHistoryArchiver(PurchaseHistoryRepository historyRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${purchase.history.retention.enabled:false}") boolean enabled,
+                                   @Value("${purchase.history.retention.hot-days:30}") int hotDays,
+                                   @Value("${purchase.history.retention.archive-days:365}") int archiveDays,
+                                   @Value("${purchase.history.retention.interval:1h}") Duration interval,
+                                   @Value("${purchase.history.retention.archive-dir:./data/history-archive}") String archiveDir) {
+        this.historyRepository = historyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.hotDays = hotDays;
+        this.archiveDays = archiveDays;
+        this.interval = interval;
+        this.directory = Path.of(archiveDir);
+        this.archivedRows = Counter.builder("purchase.history.archive.rows")
+                .description("Registros de historial movidos a ficheros de archivo")
+                .register(meterRegistry);
+        this.failures = Counter.builder("purchase.history.archive.failures")
+                .description("Pasadas de archivado fallidas")
+                .register(meterRegistry);
+        Gauge.builder("purchase.history.archive.days", archivedDays, NavigableSet::size)
+                .description("Días de historial archivados en disco")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        loadArchivedDays();
+        if (!enabled) {
+            return;
+        }
+        archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "purchase-history-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archiver.scheduleWithFixedDelay(this::runRetention, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (archiver != null) {
+            archiver.shutdown();
+        }
+    }
+
+    /**
+     * Inicio del primer día no archivado: los registros anteriores están en
+     * ficheros. Null si no hay nada archivado.
+     */
+    public LocalDateTime watermark() {
+        LocalDate last = archivedDays.isEmpty() ? null : archivedDays.last();
+        return last == null ? null : last.plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Archiva cada día anterior a {@code cutoff} que tenga registros en la
+     * tabla, del más antiguo al más reciente.
+     *
+     * @return registros archivados
+     */
+    public long archiveBefore(LocalDate cutoff) {
+        lock.lock();
+        try {
+            long total = 0;
+            LocalDateTime oldest;
+            while ((oldest = historyRepository.findOldestDate()) != null && oldest.toLocalDate().isBefore(cutoff)) {
+                total += archiveDay(oldest.toLocalDate());
+            }
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lee de los ficheros los registros de {@code [from, to)} que cumplen
+     * {@code filter}, del más reciente al más antiguo, hasta {@code max}.
+     *
+     * <p>Cada día se lee por bloques y solo se conservan los {@code max}
+     * registros más recientes que cumplen el filtro, de modo que la memoria
+     * depende del tamaño de página y no del volumen del día. Se deja de leer
+     * días en cuanto se reúnen {@code max} registros.</p>
+     *
+     * @param from null para empezar por el día archivado más antiguo
+     * @param to   null para terminar en el día archivado más reciente
+     */
+    public List<PurchaseHistory> find(LocalDateTime from, LocalDateTime to, Predicate<PurchaseHistory> filter,
+                                      int max) {
+        List<PurchaseHistory> result = new ArrayList<>();
+        NavigableSet<LocalDate> days = to == null
+                ? archivedDays
+                : archivedDays.headSet(to.toLocalDate(), !to.toLocalTime().equals(LocalTime.MIDNIGHT));
+        for (LocalDate day : days.descendingSet()) {
+            if (result.size() >= max || (from != null && day.isBefore(from.toLocalDate()))) {
+                break;
+            }
+            int wanted = max - result.size();
+            // Montículo con el más antiguo en la cabeza: al pasar de wanted se descarta
+            PriorityQueue<PurchaseHistory> newest = new PriorityQueue<>(wanted + 1, OLDEST_FIRST);
+            try {
+                forEachArchived(day, h -> {
+                    if ((to == null || h.getDate().isBefore(to))
+                            && (from == null || !h.getDate().isBefore(from))
+                            && filter.test(h)) {
+                        newest.add(h);
+                        if (newest.size() > wanted) {
+                            newest.poll();
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el archivo de historial del " + day, e);
+            }
+            List<PurchaseHistory> rows = new ArrayList<>(newest);
+            rows.sort(OLDEST_FIRST.reversed());
+            result.addAll(rows);
+        }
+        return result;
+    }
+
+    /** Pasada periódica: archiva los días fuera de la ventana y purga ficheros vencidos. */
+    void runRetention() {
+        try {
+            LocalDate today = LocalDate.now();
+            long rows = archiveBefore(today.minusDays(hotDays));
+            if (rows > 0) {
+                log.info("Archivados {} registros de historial anteriores a {}", rows, today.minusDays(hotDays));
+            }
+            if (archiveDays > 0) {
+                purgeBefore(today.minusDays(archiveDays));
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Falló la pasada de retención del historial de compras", e);
+        }
+    }
+
+    /** Elimina los ficheros de los días anteriores a {@code cutoff}. */
+    void purgeBefore(LocalDate cutoff) {
+        for (LocalDate day : List.copyOf(archivedDays.headSet(cutoff))) {
+            try {
+                Files.deleteIfExists(file(day));
+                archivedDays.remove(day);
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar el archivo de historial del {}", day, e);
+            }
+        }
+    }
+
+    private long archiveDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        Path target = file(day);
+        Path tmp = directory.resolve(target.getFileName() + ".tmp");
+        List<Long> ids = new ArrayList<>();
+        LongHashSet alreadyArchived = new LongHashSet();
+        long written = 0;
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(target)) {
+                // Registros tardíos de un día ya archivado: se añaden como un miembro gzip más.
+                // Los que ya están en el fichero (borrado fallido en una pasada anterior) se omiten.
+                forEachArchived(day, h -> alreadyArchived.add(h.getId()));
+                Files.copy(target, tmp, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(tmp);
+            }
+            try (HistoryArchiveFile.Writer writer = new HistoryArchiveFile.Writer(tmp, true)) {
+                LocalDateTime afterDate = start;
+                long afterId = 0;
+                List<PurchaseHistory> block;
+                do {
+                    block = historyRepository.findRangeAfter(start, end, afterDate, afterId, Limit.of(BLOCK_SIZE));
+                    if (!block.isEmpty()) {
+                        List<PurchaseHistory> fresh = alreadyArchived.size() == 0 ? block
+                                : block.stream().filter(h -> !alreadyArchived.contains(h.getId())).toList();
+                        if (!fresh.isEmpty()) {
+                            writer.writeBlock(fresh);
+                            written += fresh.size();
+                        }
+                        PurchaseHistory last = block.get(block.size() - 1);
+                        afterDate = last.getDate();
+                        afterId = last.getId();
+                        block.forEach(h -> ids.add(h.getId()));
+                    }
+                } while (block.size() == BLOCK_SIZE);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo archivar el historial del " + day, e);
+        }
+        archivedDays.add(day);
+        // Se borran solo los ids archivados, en lotes cortos para no retener bloqueos
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + DELETE_BATCH_SIZE, ids.size()));
+            transactionTemplate.executeWithoutResult(tx -> historyRepository.deleteAllByIdInBatch(batch));
+        }
+        archivedRows.increment(written);
+        return ids.size();
+    }
+
+    private void forEachArchived(LocalDate day, Consumer<PurchaseHistory> action) throws IOException {
+        try (HistoryArchiveFile.Reader reader = new HistoryArchiveFile.Reader(file(day))) {
+            List<PurchaseHistory> block;
+            while ((block = reader.nextBlock()) != null) {
+                block.forEach(action);
+            }
+        }
+    }
+
+    private void loadArchivedDays() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    archivedDays.add(LocalDate.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    log.warn("Se ignora el fichero {} del directorio de archivo", name);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el directorio de archivo " + directory, e);
+        }
+    }
+
+    private Path file(LocalDate day) {
+        return directory.resolve(PREFIX + day + SUFFIX);
+    }
+}
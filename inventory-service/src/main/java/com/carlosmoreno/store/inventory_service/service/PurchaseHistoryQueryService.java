@@ -0,0 +1,194 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistoryPage;
+import com.carlosmoreno.store.inventory_service.model.SalesRollup;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.SalesRollupRepository;
+
+/**
+ * Consultas de lectura sobre el historial de compras.
+ *
+ * <p>El listado usa paginación por cursor (keyset): cada página continúa
+ * desde el último {@code (date, id)} devuelto, así que su coste no crece con
+ * la profundidad como con OFFSET. Los registros anteriores a
+ * {@link PurchaseHistoryArchiver#watermark()} se leen además de los ficheros
+ * de archivo y se mezclan con los de la tabla por {@code (date, id)}. La
+ * tabla se consulta sin limitarla a la marca: un registro tardío de un día
+ * ya archivado sigue en ella hasta la siguiente pasada del archivador y
+ * también debe verse. El resumen de ventas se lee de {@link SalesRollup}.</p>
+ */
+@Service
+public class PurchaseHistoryQueryService {
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    /** Último {@code (date, id)} entregado. */
+    private record Cursor(LocalDateTime date, Long id) {
+    }
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+    private static final Comparator<PurchaseHistory> NEWEST_FIRST_ORDER =
+            Comparator.comparing(PurchaseHistory::getDate).thenComparing(PurchaseHistory::getId).reversed();
+
+    private final PurchaseHistoryRepository historyRepository;
+    private final SalesRollupRepository rollupRepository;
+    private final PurchaseHistoryArchiver archiver;
+    private final int maxPageSize;
+    private final Duration maxSummaryRange;
+
+    public PurchaseHistoryQueryService(PurchaseHistoryRepository historyRepository,
+                                       SalesRollupRepository rollupRepository,
+                                       PurchaseHistoryArchiver archiver,
+                                       @Value("${purchase.history.query.max-page-size:500}") int maxPageSize,
+                                       @Value("${purchase.history.query.max-summary-range:366d}") Duration maxSummaryRange) {
+        this.historyRepository = historyRepository;
+        this.rollupRepository = rollupRepository;
+        this.archiver = archiver;
+        this.maxPageSize = maxPageSize;
+        this.maxSummaryRange = maxSummaryRange;
+    }
+
+    /**
+     * Lista el historial del más reciente al más antiguo.
+     *
+     * @param from   inclusive; null sin límite
+     * @param to     exclusive; null sin límite
+     * @param cursor {@code nextCursor} de la página anterior; null para la primera
+     */
+    public PurchaseHistoryPage find(Long productId, String status, LocalDateTime from, LocalDateTime to,
+                                    String cursor, int limit) {
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El límite debe estar entre 1 y " + maxPageSize);
+        }
+        Cursor after = cursor == null ? null : decodeCursor(cursor);
+        LocalDateTime watermark = archiver.watermark();
+        List<PurchaseHistory> rows = historyRepository.findBy(
+                specification(productId, status, from, to, after),
+                q -> q.sortBy(NEWEST_FIRST).limit(limit + 1).all());
+        // Los ficheros solo tienen registros anteriores a la marca: si la tabla ya
+        // llenó la página con registros posteriores, no hace falta leerlos
+        if (watermark != null && (from == null || from.isBefore(watermark))
+                && (rows.size() <= limit || rows.get(limit).getDate().isBefore(watermark))) {
+            LocalDateTime archiveTo = to == null || to.isAfter(watermark) ? watermark : to;
+            if (after != null && after.date().isBefore(archiveTo)) {
+                archiveTo = after.date().plusNanos(1_000);
+            }
+            rows = merge(rows, archiver.find(from, archiveTo, matcher(productId, status, after), limit + 1),
+                    limit + 1);
+        }
+        if (rows.size() <= limit) {
+            return new PurchaseHistoryPage(rows, null);
+        }
+        List<PurchaseHistory> page = new ArrayList<>(rows.subList(0, limit));
+        return new PurchaseHistoryPage(page, encodeCursor(page.get(limit - 1)));
+    }
+
+    /**
+     * Ventas agregadas por {@code granularity} (HOUR o DAY) en
+     * {@code [from, to)}; sin {@code productId} devuelve todos los productos.
+     */
+    public List<SalesRollup> summary(Long productId, String granularity, LocalDateTime from, LocalDateTime to) {
+        String normalized = granularity.toUpperCase();
+        if (!SalesRollup.HOUR.equals(normalized) && !SalesRollup.DAY.equals(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La granularidad debe ser HOUR o DAY");
+        }
+        if (!from.isBefore(to) || Duration.between(from, to).compareTo(maxSummaryRange) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El rango debe ser positivo y de como máximo " + maxSummaryRange.toDays() + " días");
+        }
+        return productId == null
+                ? rollupRepository.findForAllProducts(normalized, from, to)
+                : rollupRepository.findForProduct(productId, normalized, from, to);
+    }
+
+    private static Specification<PurchaseHistory> specification(Long productId, String status, LocalDateTime from,
+                                                                LocalDateTime to, Cursor after) {
+        Specification<PurchaseHistory> specification = (root, query, cb) -> cb.conjunction();
+        if (productId != null) {
+            specification = specification.and((root, query, cb) -> cb.equal(root.get("productId"), productId));
+        }
+        if (status != null) {
+            specification = specification.and((root, query, cb) -> cb.equal(root.get("status"), status));
+        }
+        if (from != null) {
+            specification = specification.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), from));
+        }
+        if (to != null) {
+            specification = specification.and((root, query, cb) -> cb.lessThan(root.get("date"), to));
+        }
+        if (after != null) {
+            specification = specification.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("date"), after.date()),
+                    cb.and(cb.equal(root.get("date"), after.date()), cb.lessThan(root.get("id"), after.id()))));
+        }
+        return specification;
+    }
+
+    /** Los mismos filtros que {@link #specification}, para los registros archivados. */
+    private static Predicate<PurchaseHistory> matcher(Long productId, String status, Cursor after) {
+        return h -> (productId == null || productId.equals(h.getProductId()))
+                && (status == null || status.equals(h.getStatus()))
+                && (after == null || h.getDate().isBefore(after.date())
+                        || (h.getDate().equals(after.date()) && h.getId() < after.id()));
+    }
+
+    /**
+     * Mezcla dos listas ordenadas del más reciente al más antiguo, hasta
+     * {@code max}. Un registro puede estar a la vez en la tabla y en su
+     * fichero si falló el borrado tras archivarlo; se devuelve una sola vez.
+     */
+    private static List<PurchaseHistory> merge(List<PurchaseHistory> table, List<PurchaseHistory> archived,
+                                               int max) {
+        List<PurchaseHistory> merged = new ArrayList<>(max);
+        int t = 0;
+        int a = 0;
+        while (merged.size() < max && (t < table.size() || a < archived.size())) {
+            if (a == archived.size()
+                    || (t < table.size() && NEWEST_FIRST_ORDER.compare(table.get(t), archived.get(a)) <= 0)) {
+                PurchaseHistory next = table.get(t++);
+                if (a < archived.size() && archived.get(a).getId().equals(next.getId())) {
+                    a++;
+                }
+                merged.add(next);
+            } else {
+                merged.add(archived.get(a++));
+            }
+        }
+        return merged;
+    }
+
+    private static String encodeCursor(PurchaseHistory last) {
+        String raw = last.getDate() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(CURSOR_SEPARATOR);
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.SalesRollup;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.SalesRollupRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registra el historial de compras fuera del camino crítico.
+ *
+ * <p>Los registros se encolan en una cola acotada y un hilo en segundo plano
+ * los persiste en lotes de hasta {@code purchase.history.batch-size} o cada
+ * {@code purchase.history.flush-interval}, lo que ocurra primero. Si la cola
+ * está llena durante más de {@code purchase.history.offer-timeout}, el
+ * registro se escribe en el hilo llamador, frenando al productor en lugar de
+ * perder datos.</p>
+ *
+ * <p>Los registros SUCCESS se encolan solo después del commit de la compra.
+ * Con {@code purchase.history.success-mode=outbox} se guardan dentro de la
+ * misma transacción que descuenta el stock, de modo que no se pierden si el
+ * proceso cae antes de vaciar la cola.</p>
+ *
+ * <p>Cada lote actualiza en la misma transacción los agregados por hora y
+ * por día de {@link SalesRollup}.</p>
+ */
+@Component
+public class PurchaseHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseHistoryWriter.class);
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final Comparator<SalesRollup.Key> ROLLUP_ORDER = Comparator
+            .comparing(SalesRollup.Key::getProductId)
+            .thenComparing(SalesRollup.Key::getGranularity)
+            .thenComparing(SalesRollup.Key::getBucketStart);
+
+    private final PurchaseHistoryRepository historyRepository;
+    private final SalesRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PurchaseHistory> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final boolean outbox;
+    private final Counter callerRuns;
+    private final Counter writeFailures;
+
+    /** Registros encolados que todavía no se han escrito (incluye el lote en curso). */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public PurchaseHistoryWriter(PurchaseHistoryRepository historyRepository,
+                                 SalesRollupRepository rollupRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${purchase.history.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${purchase.history.batch-size:500}") int batchSize,
+                                 @Value("${purchase.history.flush-interval:200ms}") Duration flushInterval,
+                                 @Value("${purchase.history.offer-timeout:50ms}") Duration offerTimeout,
+                                 @Value("${purchase.history.success-mode:async}") String successMode) {
+        this.historyRepository = historyRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.outbox = "outbox".equalsIgnoreCase(successMode);
+        this.callerRuns = Counter.builder("purchase.history.caller.runs")
+                .description("Registros escritos en el hilo llamador por cola llena")
+                .register(meterRegistry);
+        this.writeFailures = Counter.builder("purchase.history.write.failures")
+                .description("Registros de historial que no se pudieron guardar ni reintentando fila por fila")
+                .register(meterRegistry);
+        Gauge.builder("purchase.history.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "purchase-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+    }
+
+    public void record(PurchaseHistory history) {
+        recordAll(List.of(history));
+    }
+
+    /**
+     * Registra varios movimientos. Los SUCCESS se difieren al commit de la
+     * transacción actual (o se guardan en ella en modo outbox); el resto se
+     * encola de inmediato para que sobreviva a un rollback.
+     */
+    public void recordAll(List<PurchaseHistory> entries) {
+        List<PurchaseHistory> successes = new ArrayList<>();
+        for (PurchaseHistory entry : entries) {
+            if ("SUCCESS".equals(entry.getStatus())) {
+                successes.add(entry);
+            } else {
+                enqueue(entry);
+            }
+        }
+        if (successes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            successes.forEach(this::enqueue);
+        } else if (outbox) {
+            save(successes);
+        } else {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    successes.forEach(PurchaseHistoryWriter.this::enqueue);
+                }
+            });
+        }
+    }
+
+    /**
+     * Persiste de forma síncrona todo lo que haya en la cola y espera a que
+     * termine el lote que el hilo de fondo pueda tener en curso.
+     */
+    public void flush() {
+        List<PurchaseHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private void enqueue(PurchaseHistory entry) {
+        try {
+            pending.incrementAndGet();
+            if (queue.offer(entry, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            pending.decrementAndGet();
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+        callerRuns.increment();
+        persist(List.of(entry));
+    }
+
+    private void drainLoop() {
+        List<PurchaseHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PurchaseHistory first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PurchaseHistory next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /** Escribe un lote que salió de la cola. */
+    private void write(List<PurchaseHistory> batch) {
+        try {
+            persist(batch);
+        } finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * Guarda un lote en una transacción. Si falla, se reintenta fila por fila
+     * para que un registro problemático no arrastre al resto; los que vuelven
+     * a fallar se cuentan en {@code purchase.history.write.failures}.
+     */
+    private void persist(List<PurchaseHistory> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> save(batch));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Falló un lote de {} registros de historial de compras; se reintenta fila por fila",
+                    batch.size(), e);
+        }
+        for (PurchaseHistory entry : batch) {
+            // El intento fallido pudo asignarle un id que no llegó a guardarse
+            entry.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(tx -> save(List.of(entry)));
+            } catch (RuntimeException e) {
+                writeFailures.increment();
+                log.error("No se pudo guardar el registro de historial de compras {}", entry, e);
+            }
+        }
+    }
+
+    /** Guarda los registros y suma sus contadores a los agregados. */
+    private void save(List<PurchaseHistory> entries) {
+        historyRepository.saveAll(entries);
+        // Orden fijo de filas para que dos lotes concurrentes no se bloqueen mutuamente
+        Map<SalesRollup.Key, long[]> deltas = new TreeMap<>(ROLLUP_ORDER);
+        for (PurchaseHistory entry : entries) {
+            if (entry.getProductId() == null || entry.getDate() == null) {
+                continue;
+            }
+            LocalDateTime hour = entry.getDate().truncatedTo(ChronoUnit.HOURS);
+            accumulate(deltas, new SalesRollup.Key(entry.getProductId(), SalesRollup.HOUR, hour), entry);
+            accumulate(deltas, new SalesRollup.Key(entry.getProductId(), SalesRollup.DAY,
+                    hour.truncatedTo(ChronoUnit.DAYS)), entry);
+        }
+        deltas.forEach((key, d) -> rollupRepository.increment(key.getProductId(), key.getGranularity(),
+                key.getBucketStart(), d[0], d[1], d[2]));
+    }
+
+    /** Acumula {éxitos, fallos, unidades vendidas}. */
+    private static void accumulate(Map<SalesRollup.Key, long[]> deltas, SalesRollup.Key key, PurchaseHistory entry) {
+        long[] d = deltas.computeIfAbsent(key, k -> new long[3]);
+        if ("SUCCESS".equals(entry.getStatus())) {
+            d[0]++;
+            d[2] += entry.getQuantity() == null ? 0 : entry.getQuantity();
+        } else {
+            d[1]++;
+        }
+    }
+}
@@ -1,58 +1,192 @@
 package com.carlosmoreno.store.inventory_service.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.carlosmoreno.store.inventory_service.client.ProductClient;
 import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseRequest;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseResponse;
 import com.carlosmoreno.store.inventory_service.model.Inventory;
 import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseItemResult;
 import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
 import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
-import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService.Claim;
 
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+/**
+ * Compras individuales y por lotes.
+ *
+ * <p>Cada etapa de la compra individual se mide en {@code purchase.stage}
+ * (etiqueta {@code stage}): {@code product-check}, {@code inventory-update}
+ * (el UPDATE condicional; con contención es sobre todo espera del bloqueo de
+ * fila), {@code inventory-load}, {@code ledger-decrement} y
+ * {@code history-write}. La espera por una conexión del pool se publica en
+ * {@code hikaricp.connections.acquire}.</p>
+ */
 @Service
-@RequiredArgsConstructor
 public class PurchaseService {
 
     private final InventoryRepository inventoryRepository;
     private final ProductClient productClient;
-    private final PurchaseHistoryRepository historyRepository;
+    private final PurchaseHistoryWriter historyWriter;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler jdbcScheduler;
+    private final Timer productCheckTimer;
+    private final Timer inventoryUpdateTimer;
+    private final Timer inventoryLoadTimer;
+    private final Timer ledgerDecrementTimer;
+    private final Timer historyWriteTimer;
 
-     @Transactional
-    public synchronized Inventory purchase(PurchaseRequest request) {
+    public PurchaseService(InventoryRepository inventoryRepository,
+                           ProductClient productClient,
+                           PurchaseHistoryWriter historyWriter,
+                           HotStockLedger hotStockLedger,
+                           TransactionTemplate transactionTemplate,
+                           Scheduler jdbcScheduler,
+                           MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.productClient = productClient;
+        this.historyWriter = historyWriter;
+        this.hotStockLedger = hotStockLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcScheduler = jdbcScheduler;
+        this.productCheckTimer = stageTimer(meterRegistry, "product-check");
+        this.inventoryUpdateTimer = stageTimer(meterRegistry, "inventory-update");
+        this.inventoryLoadTimer = stageTimer(meterRegistry, "inventory-load");
+        this.ledgerDecrementTimer = stageTimer(meterRegistry, "ledger-decrement");
+        this.historyWriteTimer = stageTimer(meterRegistry, "history-write");
+    }
+
+    /**
+     * Compra bloqueante. La validación del producto se hace antes de abrir la
+     * transacción para no retener una conexión del pool durante la llamada a
+     * products-service: con hilos virtuales el pool es el único límite de
+     * concurrencia y cada milisegundo que se retiene cuenta. Los productos
+     * del {@link HotStockLedger} se descuentan en memoria, sin transacción.
+     */
+    public Inventory purchase(PurchaseRequest request) {
+        return purchase(request, Claim.NONE);
+    }
+
+    /**
+     * Compra con {@code Idempotency-Key}: la respuesta se guarda en
+     * {@code claim} en la misma transacción que descuenta el stock. Los
+     * productos del {@link HotStockLedger} no tienen transacción; la clave se
+     * fija antes de descontar y, si la respuesta no se puede guardar, el stock
+     * se devuelve.
+     */
+    public Inventory purchase(PurchaseRequest request, Claim claim) {
 
         // Validar producto
+        Timer.Sample check = Timer.start();
         try {
-            productClient.getProductById(request.getProductId());
-        } catch (RuntimeException ex) {
+            productClient.requireProduct(request.getProductId());
+        } catch (ProductNotFoundException ex) {
             saveHistory(request, "FAILED", "Producto no existe");
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "El producto con ID " + request.getProductId() + " no existe");
+        } catch (ProductServiceUnavailableException ex) {
+            saveHistory(request, "FAILED", "Servicio de productos no disponible");
+            throw productServiceUnavailable(ex);
+        } finally {
+            check.stop(productCheckTimer);
         }
 
-        // Buscar inventario
-        Inventory inv = inventoryRepository.findById(request.getProductId())
-                .orElseThrow(() -> {
-                    saveHistory(request, "FAILED", "No stock para el producto");
-                    return new InsufficientStockException("No stock for product " + request.getProductId());
-                });
+        return executePurchase(request, claim);
+    }
+
+    /**
+     * Variante no bloqueante de {@link #purchase(PurchaseRequest)}. La
+     * validación del producto se compone sin bloquear ningún hilo; el
+     * descuento de stock corre en su propia transacción dentro del scheduler
+     * JDBC acotado.
+     */
+    public Mono<Inventory> purchaseAsync(PurchaseRequest request) {
+        return Mono.defer(() -> {
+                    Timer.Sample check = Timer.start();
+                    return productClient.requireProductAsync(request.getProductId())
+                            .doFinally(signal -> check.stop(productCheckTimer));
+                })
+                .onErrorMap(ProductNotFoundException.class, ex -> {
+                    saveHistory(request, "FAILED", "Producto no existe");
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "El producto con ID " + request.getProductId() + " no existe");
+                })
+                .onErrorMap(ProductServiceUnavailableException.class, ex -> {
+                    saveHistory(request, "FAILED", "Servicio de productos no disponible");
+                    return productServiceUnavailable(ex);
+                })
+                .then(Mono.fromCallable(() -> executePurchase(request, Claim.NONE)).subscribeOn(jdbcScheduler));
+    }
+
+    private Inventory executePurchase(PurchaseRequest request, Claim claim) {
+        if (hotStockLedger.manages(request.getProductId())) {
+            return applyLedgerPurchase(request, claim);
+        }
+        return transactionTemplate.execute(tx -> applyPurchase(request, claim));
+    }
 
-        // Validar cantidad
-        if (inv.getQuantity() < request.getQuantity()) {
+    private Inventory applyLedgerPurchase(PurchaseRequest request, Claim claim) {
+        claim.pin();
+        long remaining = ledgerDecrementTimer.record(
+                () -> hotStockLedger.tryDecrement(request.getProductId(), request.getQuantity()));
+        if (remaining < 0) {
+            saveHistory(request, "FAILED", "Stock insuficiente");
+            throw new InsufficientStockException("Insufficient stock for product " + request.getProductId());
+        }
+        Inventory result = Inventory.builder()
+                .productId(request.getProductId())
+                .quantity(remaining)
+                .build();
+        try {
+            claim.complete(HttpStatus.OK, result);
+        } catch (RuntimeException e) {
+            hotStockLedger.release(request.getProductId(), request.getQuantity());
+            throw e;
+        }
+        saveHistory(request, "SUCCESS", "Compra realizada correctamente");
+        return result;
+    }
+
+    private Inventory applyPurchase(PurchaseRequest request, Claim claim) {
+        // Descontar stock de forma atómica (bloqueo a nivel de fila en la BD)
+        int updated = inventoryUpdateTimer.record(
+                () -> inventoryRepository.decrementStock(request.getProductId(), request.getQuantity()));
+
+        if (updated == 0) {
+            if (!inventoryRepository.existsById(request.getProductId())) {
+                saveHistory(request, "FAILED", "No stock para el producto");
+                throw new InsufficientStockException("No stock for product " + request.getProductId());
+            }
             saveHistory(request, "FAILED", "Stock insuficiente");
             throw new InsufficientStockException("Insufficient stock for product " + request.getProductId());
         }
 
-        // Actualizar cantidad
-        inv.setQuantity(inv.getQuantity() - request.getQuantity());
-        Inventory saved = inventoryRepository.save(inv);
+        Inventory saved = inventoryLoadTimer.record(() -> inventoryRepository.findById(request.getProductId()))
+                .orElseThrow(() -> new IllegalStateException(
+                        "Inventory for product " + request.getProductId() + " disappeared after update"));
+        claim.complete(HttpStatus.OK, saved);
 
         // Registrar éxito
         saveHistory(request, "SUCCESS", "Compra realizada correctamente");
@@ -60,6 +194,154 @@ public class PurchaseService {
         return saved;
     }
 
+    /**
+     * Procesa todas las líneas de una compra en una sola transacción.
+     *
+     * <p>Los productos se validan contra la réplica local y, los que no
+     * conoce, con una única llamada a products-service. Las filas de
+     * inventario se actualizan en orden ascendente de {@code productId}, de
+     * modo que dos lotes concurrentes siempre bloquean
+     * las filas en el mismo orden y no pueden generar un deadlock. Sin
+     * {@code allowPartial}, cualquier línea fallida deshace el lote completo.</p>
+     */
+    public BatchPurchaseResponse purchaseBatch(BatchPurchaseRequest request) {
+        List<PurchaseRequest> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La compra no contiene productos");
+        }
+
+        // Validar todos los productos en una sola llamada
+        Set<Long> productIds = items.stream()
+                .map(PurchaseRequest::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> missing;
+        try {
+            missing = productClient.findMissing(productIds);
+        } catch (ProductServiceUnavailableException ex) {
+            throw productServiceUnavailable(ex);
+        }
+
+        PurchaseItemResult[] results = new PurchaseItemResult[items.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            PurchaseRequest item = items.get(i);
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                results[i] = itemResult(item, "FAILED", "Solicitud inválida");
+            } else if (missing.contains(item.getProductId())) {
+                results[i] = itemResult(item, "FAILED", "Producto no existe");
+            } else {
+                pending.add(i);
+            }
+        }
+        pending.sort(Comparator.comparing(i -> items.get(i).getProductId()));
+
+        boolean allowPartial = request.isAllowPartial();
+        List<PurchaseRequest> ledgerApplied = new ArrayList<>();
+        Boolean committed;
+        try {
+            committed = transactionTemplate.execute(tx -> {
+                if (!allowPartial && pending.size() < items.size()) {
+                    return false;
+                }
+                for (int i : pending) {
+                    PurchaseRequest item = items.get(i);
+                    if (applyBatchItem(item, ledgerApplied)) {
+                        results[i] = itemResult(item, "SUCCESS", "Compra realizada correctamente");
+                    } else {
+                        results[i] = itemResult(item, "FAILED", "Stock insuficiente");
+                        if (!allowPartial) {
+                            tx.setRollbackOnly();
+                            return false;
+                        }
+                    }
+                }
+
+                Map<Long, Long> remaining = new HashMap<>();
+                inventoryRepository.findAllById(productIds)
+                        .forEach(inv -> remaining.put(inv.getProductId(), inv.getQuantity()));
+                ledgerApplied.forEach(item -> remaining.put(item.getProductId(),
+                        hotStockLedger.available(item.getProductId())));
+                for (PurchaseItemResult result : results) {
+                    if ("SUCCESS".equals(result.getStatus())) {
+                        result.setRemainingQuantity(remaining.get(result.getProductId()));
+                    }
+                }
+                historyWriter.recordAll(historyOf(results));
+                return true;
+            });
+        } catch (RuntimeException e) {
+            releaseLedger(ledgerApplied);
+            throw e;
+        }
+
+        if (!Boolean.TRUE.equals(committed)) {
+            releaseLedger(ledgerApplied);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || "SUCCESS".equals(results[i].getStatus())) {
+                    results[i] = itemResult(items.get(i), "CANCELLED",
+                            "Compra cancelada: otra línea del lote falló");
+                }
+            }
+            historyWriter.recordAll(historyOf(results));
+        }
+
+        List<PurchaseItemResult> resultList = List.of(results);
+        long succeeded = resultList.stream().filter(r -> "SUCCESS".equals(r.getStatus())).count();
+        String status = succeeded == results.length ? "COMPLETED" : succeeded > 0 ? "PARTIAL" : "REJECTED";
+        return new BatchPurchaseResponse(status, resultList);
+    }
+
+    /**
+     * Descuenta una línea del lote: en memoria si el producto es del
+     * {@link HotStockLedger} (anotándola para devolverla si el lote se
+     * cancela) o en la fila de inventario dentro de la transacción.
+     */
+    private boolean applyBatchItem(PurchaseRequest item, List<PurchaseRequest> ledgerApplied) {
+        if (!hotStockLedger.manages(item.getProductId())) {
+            return inventoryRepository.decrementStock(item.getProductId(), item.getQuantity()) == 1;
+        }
+        if (hotStockLedger.tryDecrement(item.getProductId(), item.getQuantity()) < 0) {
+            return false;
+        }
+        ledgerApplied.add(item);
+        return true;
+    }
+
+    private void releaseLedger(List<PurchaseRequest> ledgerApplied) {
+        ledgerApplied.forEach(item -> hotStockLedger.release(item.getProductId(), item.getQuantity()));
+        ledgerApplied.clear();
+    }
+
+    private static PurchaseItemResult itemResult(PurchaseRequest item, String status, String message) {
+        return PurchaseItemResult.builder()
+                .productId(item.getProductId())
+                .quantity(item.getQuantity())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static List<PurchaseHistory> historyOf(PurchaseItemResult[] results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PurchaseHistory> history = new ArrayList<>(results.length);
+        for (PurchaseItemResult result : results) {
+            history.add(PurchaseHistory.builder()
+                    .productId(result.getProductId())
+                    .quantity(result.getQuantity())
+                    .date(now)
+                    .status("SUCCESS".equals(result.getStatus()) ? "SUCCESS" : "FAILED")
+                    .message(result.getMessage())
+                    .build());
+        }
+        return history;
+    }
+
+    private static ResponseStatusException productServiceUnavailable(ProductServiceUnavailableException ex) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "No fue posible validar los productos: " + ex.getMessage());
+    }
+
     private void saveHistory(PurchaseRequest request, String status, String message) {
         PurchaseHistory history = PurchaseHistory.builder()
                 .productId(request.getProductId())
@@ -68,6 +350,13 @@ public class PurchaseService {
                 .status(status)
                 .message(message)
                 .build();
-        historyRepository.save(history);
+        historyWriteTimer.record(() -> historyWriter.record(history));
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("purchase.stage")
+                .description("Duración de cada etapa de una compra")
+                .tag("stage", stage)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,274 @@
+package com.carlosmoreno.store.inventory_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.Reservation;
+import com.carlosmoreno.store.inventory_service.model.ReservationRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.ReservationRepository;
+import com.carlosmoreno.store.inventory_service.util.TimingWheel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reservas de stock con vencimiento: {@code reserve} retiene unidades
+ * ({@code Inventory.reserved}), {@code confirm} las convierte en una compra y
+ * {@code release} o el vencimiento las devuelven al disponible.
+ *
+ * <p>Los vencimientos se programan en una {@link TimingWheel} que un hilo
+ * avanza cada {@code inventory.reservations.tick}; vencer una reserva no
+ * requiere recorrer la tabla. Al arrancar se reprograman las reservas
+ * activas guardadas. Confirmar, liberar y vencer bloquean la fila de la
+ * reserva, así que solo una de las tres transiciones tiene efecto.</p>
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final int EXPIRY_BATCH_SIZE = 500;
+    private static final Duration EXPIRY_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final InventoryRepository inventoryRepository;
+    private final ReservationRepository reservationRepository;
+    private final ProductClient productClient;
+    private final HotStockLedger hotStockLedger;
+    private final PurchaseHistoryWriter historyWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Duration tick;
+    private final TimingWheel<String> expirations;
+    private final Counter expiredCounter;
+    private final Timer expiryLag;
+
+    private ScheduledExecutorService expirer;
+
+    public ReservationService(InventoryRepository inventoryRepository,
+                              ReservationRepository reservationRepository,
+                              ProductClient productClient,
+                              HotStockLedger hotStockLedger,
+                              PurchaseHistoryWriter historyWriter,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.reservations.default-ttl:10m}") Duration defaultTtl,
+                              @Value("${inventory.reservations.max-ttl:1h}") Duration maxTtl,
+                              @Value("${inventory.reservations.tick:10ms}") Duration tick) {
+        this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.productClient = productClient;
+        this.hotStockLedger = hotStockLedger;
+        this.historyWriter = historyWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.tick = tick;
+        // 4 niveles de 256 casillas: con ticks de 10 ms cubren más de un año
+        this.expirations = new TimingWheel<>(tick.toMillis(), 8, 4, System.currentTimeMillis());
+        this.expiredCounter = Counter.builder("inventory.reservations.expired")
+                .description("Reservas vencidas sin confirmar")
+                .register(meterRegistry);
+        this.expiryLag = Timer.builder("inventory.reservations.expiry.lag")
+                .description("Retraso entre el vencimiento de una reserva y la liberación de su stock")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("inventory.reservations.scheduled", expirations, TimingWheel::size)
+                .description("Vencimientos programados en la rueda de tiempo")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        List<Reservation> active = reservationRepository.findByStatus(Reservation.ACTIVE);
+        active.forEach(r -> expirations.schedule(r.getId(), r.getExpiresAt().toEpochMilli()));
+        if (!active.isEmpty()) {
+            log.info("Reprogramados {} vencimientos de reservas activas", active.size());
+        }
+        expirer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expirer.scheduleWithFixedDelay(this::expireDue, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (expirer != null) {
+            expirer.shutdown();
+        }
+    }
+
+    public Reservation reserve(ReservationRequest request) {
+        if (request.getProductId() == null || request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Solicitud inválida");
+        }
+        Duration ttl = request.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(request.getTtlSeconds());
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La duración de la reserva debe estar entre 1 y " + maxTtl.toSeconds() + " segundos");
+        }
+        if (hotStockLedger.manages(request.getProductId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "El producto con ID " + request.getProductId() + " se gestiona en memoria y no admite reservas");
+        }
+        try {
+            productClient.requireProduct(request.getProductId());
+        } catch (ProductNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "El producto con ID " + request.getProductId() + " no existe");
+        } catch (ProductServiceUnavailableException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "No fue posible validar el producto: " + ex.getMessage());
+        }
+
+        Instant now = Instant.now();
+        Reservation reservation = Reservation.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(request.getProductId())
+                .quantity(request.getQuantity())
+                .status(Reservation.ACTIVE)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build();
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (inventoryRepository.reserve(reservation.getProductId(), reservation.getQuantity()) == 0) {
+                throw new InsufficientStockException("Insufficient stock for product " + reservation.getProductId());
+            }
+            reservationRepository.save(reservation);
+        });
+        expirations.schedule(reservation.getId(), reservation.getExpiresAt().toEpochMilli());
+        return reservation;
+    }
+
+    public Reservation get(String id) {
+        return reservationRepository.findById(id).orElseThrow(() -> reservationNotFound(id));
+    }
+
+    /**
+     * Convierte la reserva en compra. Confirmar una reserva ya confirmada
+     * devuelve la misma reserva; una liberada o vencida responde 409.
+     */
+    public Reservation confirm(String id) {
+        Reservation reservation = transactionTemplate.execute(tx -> {
+            Reservation locked = lockActive(id);
+            if (Reservation.ACTIVE.equals(locked.getStatus())) {
+                locked.setStatus(Reservation.CONFIRMED);
+                inventoryRepository.commitReserved(locked.getProductId(), locked.getQuantity());
+                historyWriter.record(PurchaseHistory.builder()
+                        .productId(locked.getProductId())
+                        .quantity(locked.getQuantity())
+                        .date(LocalDateTime.now())
+                        .status("SUCCESS")
+                        .message("Compra confirmada desde la reserva " + id)
+                        .build());
+            }
+            return locked;
+        });
+        if (!Reservation.CONFIRMED.equals(reservation.getStatus())) {
+            throw conflict(reservation);
+        }
+        return reservation;
+    }
+
+    /**
+     * Devuelve el stock retenido. Liberar una reserva ya liberada o vencida
+     * no tiene efecto; una confirmada responde 409.
+     */
+    public Reservation release(String id) {
+        Reservation reservation = transactionTemplate.execute(tx -> {
+            Reservation locked = lockActive(id);
+            if (Reservation.ACTIVE.equals(locked.getStatus())) {
+                locked.setStatus(Reservation.RELEASED);
+                inventoryRepository.releaseReserved(locked.getProductId(), locked.getQuantity());
+            }
+            return locked;
+        });
+        if (Reservation.CONFIRMED.equals(reservation.getStatus())) {
+            throw conflict(reservation);
+        }
+        return reservation;
+    }
+
+    /** Vence las reservas cuyo plazo ya pasó según la rueda de tiempo. */
+    void expireDue() {
+        List<String> due = expirations.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += EXPIRY_BATCH_SIZE) {
+            List<String> batch = due.subList(from, Math.min(from + EXPIRY_BATCH_SIZE, due.size()));
+            try {
+                expire(batch);
+            } catch (RuntimeException e) {
+                log.error("No se pudieron vencer {} reservas; se reintentará", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + EXPIRY_RETRY_DELAY.toMillis();
+                batch.forEach(id -> expirations.schedule(id, retryAt));
+            }
+        }
+    }
+
+    private void expire(List<String> ids) {
+        List<Reservation> expired = transactionTemplate.execute(tx -> {
+            List<Reservation> active = reservationRepository.findActiveForUpdate(ids);
+            Map<Long, Long> released = new TreeMap<>();
+            for (Reservation reservation : active) {
+                reservation.setStatus(Reservation.EXPIRED);
+                released.merge(reservation.getProductId(), reservation.getQuantity(), Long::sum);
+            }
+            released.forEach(inventoryRepository::releaseReserved);
+            return active;
+        });
+        Instant now = Instant.now();
+        for (Reservation reservation : expired) {
+            expiryLag.record(Duration.between(reservation.getExpiresAt(), now));
+        }
+        expiredCounter.increment(expired.size());
+    }
+
+    /**
+     * Bloquea la reserva. Si sigue activa pero su plazo ya pasó (la rueda aún
+     * no la procesó), la vence aquí mismo.
+     */
+    private Reservation lockActive(String id) {
+        Reservation locked = reservationRepository.findByIdForUpdate(id).orElseThrow(() -> reservationNotFound(id));
+        if (Reservation.ACTIVE.equals(locked.getStatus()) && !locked.getExpiresAt().isAfter(Instant.now())) {
+            locked.setStatus(Reservation.EXPIRED);
+            inventoryRepository.releaseReserved(locked.getProductId(), locked.getQuantity());
+            expiredCounter.increment();
+        }
+        return locked;
+    }
+
+    private static ResponseStatusException reservationNotFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "La reserva " + id + " no existe");
+    }
+
+    private static ResponseStatusException conflict(Reservation reservation) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "La reserva " + reservation.getId() + " está en estado " + reservation.getStatus());
+    }
+}
@@ -0,0 +1,131 @@
+package com.carlosmoreno.store.inventory_service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rueda de tiempo jerárquica: programa y vence elementos en O(1) amortizado,
+ * sin ordenar ni recorrer todos los pendientes.
+ *
+ * <p>Cada nivel tiene {@code 2^bits} casillas; una casilla del nivel 0 dura
+ * {@code tickMillis} y una del nivel {@code L} agrupa {@code 2^(bits·L)}
+ * ticks. Un elemento se guarda en el nivel más bajo cuyo alcance cubre su
+ * vencimiento y baja de nivel (cascada) cuando la rueda llega a su casilla,
+ * como en los temporizadores del kernel de Linux. Los vencimientos más allá
+ * del último nivel se reprograman al bajar.</p>
+ *
+ * <p>Es seguro para uso concurrente; {@link #advance(long)} debe llamarlo un
+ * único hilo.</p>
+ */
+public final class TimingWheel<T> {
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int levels;
+    private final long mask;
+    private final List<List<List<Entry<T>>>> buckets;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Último tick procesado. */
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, int bits, int levels, long startMillis) {
+        if (tickMillis <= 0 || bits <= 0 || levels <= 0 || (long) bits * levels >= 62) {
+            throw new IllegalArgumentException("Invalid timing wheel shape");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.levels = levels;
+        this.mask = (1L << bits) - 1;
+        this.buckets = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<List<Entry<T>>> slots = new ArrayList<>(1 << bits);
+            for (int slot = 0; slot < 1 << bits; slot++) {
+                slots.add(new ArrayList<>());
+            }
+            buckets.add(slots);
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Programa {@code item} para {@code deadlineMillis}. Un vencimiento ya
+     * pasado se entrega en el siguiente {@link #advance(long)}.
+     */
+    public void schedule(T item, long deadlineMillis) {
+        long deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        lock.lock();
+        try {
+            place(new Entry<>(item, Math.max(deadlineTick, currentTick + 1)));
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta {@code nowMillis}.
+     *
+     * @return los elementos vencidos, en orden de vencimiento por tick
+     */
+    public List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            while (currentTick < targetTick) {
+                long tick = ++currentTick;
+                for (int level = levels - 1; level > 0; level--) {
+                    if ((tick & ((1L << (bits * level)) - 1)) == 0) {
+                        List<Entry<T>> bucket = bucket(level, tick);
+                        List<Entry<T>> moved = new ArrayList<>(bucket);
+                        bucket.clear();
+                        moved.forEach(this::place);
+                    }
+                }
+                List<Entry<T>> due = bucket(0, tick);
+                for (Entry<T> entry : due) {
+                    expired.add(entry.item());
+                }
+                size -= due.size();
+                due.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return expired;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Coloca la entrada en el nivel más bajo que alcanza su vencimiento. */
+    private void place(Entry<T> entry) {
+        long delta = entry.deadlineTick() - currentTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << (bits * (level + 1))) {
+                bucket(level, entry.deadlineTick()).add(entry);
+                return;
+            }
+        }
+        // Más allá del último nivel: se guarda en la casilla más lejana y se
+        // reprograma con su vencimiento real cuando baje.
+        long farthest = currentTick + (1L << (bits * levels)) - 1;
+        bucket(levels - 1, farthest).add(entry);
+    }
+
+    private List<Entry<T>> bucket(int level, long tick) {
+        return buckets.get(level).get((int) ((tick >>> (bits * level)) & mask));
+    }
+}
@@ -0,0 +1,67 @@
+package com.carlosmoreno.store.inventory_service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+/**
+ * En JRE 21 un hilo virtual que se bloquea dentro de un bloque o método
+ * {@code synchronized} fija (pin) su hilo portador. Esta prueba recorre el
+ * bytecode del servicio y falla si encuentra alguno; los candados deben ser
+ * {@link java.util.concurrent.locks.ReentrantLock}.
+ */
+class VirtualThreadPinningTest {
+
+    @Test
+    void mainClasses_shouldNotUseSynchronized() throws Exception {
+        List<String> offenders = new ArrayList<>();
+        try (Stream<Path> classes = Files.walk(classesRoot())) {
+            for (Path file : (Iterable<Path>) classes.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                offenders.addAll(synchronizedMethods(file));
+            }
+        }
+        assertTrue(offenders.isEmpty(), "synchronized fija hilos virtuales: " + offenders);
+    }
+
+    private static Path classesRoot() throws URISyntaxException {
+        return Path.of(InventoryServiceApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static List<String> synchronizedMethods(Path file) throws IOException {
+        List<String> found = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            ClassReader reader = new ClassReader(in);
+            String owner = reader.getClassName().replace('/', '.');
+            reader.accept(new ClassVisitor(Opcodes.ASM9) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor,
+                                                 String signature, String[] exceptions) {
+                    if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                        found.add(owner + "#" + name);
+                    }
+                    return new MethodVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitInsn(int opcode) {
+                            if (opcode == Opcodes.MONITORENTER) {
+                                found.add(owner + "#" + name + " (bloque)");
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,120 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseRequest;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara un carrito de {@value #CART_SIZE} líneas comprado con
+ * {@code purchaseBatch} frente a {@value #CART_SIZE} llamadas a
+ * {@code purchase}. Cada llamada a products-service (individual o batch)
+ * se simula con {@value #REMOTE_LATENCY_MS} ms de latencia.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BatchPurchaseBenchmarkTest {
+
+    private static final int CART_SIZE = 20;
+    private static final int CARTS = 50;
+    private static final long REMOTE_LATENCY_MS = 2;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        for (long id = 1; id <= CART_SIZE; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity(1_000_000L).build());
+        }
+        doAnswer(inv -> {
+            Thread.sleep(REMOTE_LATENCY_MS);
+            return null;
+        }).when(productClient).requireProduct(any());
+        when(productClient.findMissing(anyCollection())).thenAnswer(inv -> {
+            Thread.sleep(REMOTE_LATENCY_MS);
+            return Set.of();
+        });
+    }
+
+    @Test
+    void compareBatchWithSinglePurchases() {
+        List<PurchaseRequest> cart = new ArrayList<>();
+        for (long id = CART_SIZE; id >= 1; id--) {
+            PurchaseRequest item = new PurchaseRequest();
+            item.setProductId(id);
+            item.setQuantity(1L);
+            cart.add(item);
+        }
+        BatchPurchaseRequest batch = new BatchPurchaseRequest();
+        batch.setItems(cart);
+
+        // Calentamiento
+        for (int i = 0; i < 5; i++) {
+            cart.forEach(purchaseService::purchase);
+            purchaseService.purchaseBatch(batch);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CARTS; i++) {
+            cart.forEach(purchaseService::purchase);
+        }
+        double singleMs = (System.nanoTime() - start) / 1_000_000.0 / CARTS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < CARTS; i++) {
+            purchaseService.purchaseBatch(batch);
+        }
+        double batchMs = (System.nanoTime() - start) / 1_000_000.0 / CARTS;
+
+        System.out.printf("[benchmark] cart of %d items, %d carts:%n", CART_SIZE, CARTS);
+        System.out.printf("  %d single purchases: %8.2f ms/cart%n", CART_SIZE, singleMs);
+        System.out.printf("  one batch purchase:  %8.2f ms/cart (x%.1f)%n", batchMs, singleMs / batchMs);
+    }
+}
@@ -0,0 +1,104 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryArchiver;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Latencia de inserción del historial a medida que crece la tabla: sin
+ * retención (la tabla acumula todos los días) frente a archivar los días
+ * fuera de una ventana de {@value #HOT_DAYS} días tras cada día insertado.
+ * Sin el log de SQL de {@code @DataJpaTest}, que dominaría el tiempo medido.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseHistoryWriter.class, PurchaseHistoryArchiver.class, SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HistoryRetentionBenchmarkTest {
+
+    private static final int DAYS = 12;
+    private static final int ROWS_PER_DAY = 10_000;
+    private static final int HOT_DAYS = 3;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @Autowired
+    private PurchaseHistoryArchiver archiver;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @BeforeEach
+    void setUp() {
+        historyWriter.flush();
+        historyRepository.deleteAll();
+        ReflectionTestUtils.invokeMethod(archiver, "purgeBefore", LocalDate.MAX);
+    }
+
+    @Test
+    void compareInsertLatencyWithAndWithoutRetention() {
+        List<Double> growing = run(false);
+        long growingRows = historyRepository.count();
+        setUp();
+        List<Double> retained = run(true);
+        long retainedRows = historyRepository.count();
+
+        System.out.printf("[benchmark] %d days x %d history rows, hot window %d days (ms per 1000 inserts):%n",
+                DAYS, ROWS_PER_DAY, HOT_DAYS);
+        System.out.printf("  %-4s %12s %12s%n", "day", "no retention", "retention");
+        for (int day = 0; day < DAYS; day++) {
+            System.out.printf("  %-4d %12.2f %12.2f%n", day + 1, growing.get(day), retained.get(day));
+        }
+        System.out.printf("  final table rows: %d vs %d%n", growingRows, retainedRows);
+        assertTrue(retainedRows <= (long) (HOT_DAYS + 1) * ROWS_PER_DAY);
+    }
+
+    private List<Double> run(boolean retention) {
+        List<Double> latencies = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            long start = System.nanoTime();
+            for (int i = 0; i < ROWS_PER_DAY; i++) {
+                historyWriter.record(PurchaseHistory.builder()
+                        .productId((long) (i % 100) + 1)
+                        .quantity(1L)
+                        .date(date.atStartOfDay().plusSeconds(i))
+                        .status(i % 10 == 0 ? "FAILED" : "SUCCESS")
+                        .message(i % 10 == 0 ? "Stock insuficiente" : "Compra realizada con éxito")
+                        .build());
+            }
+            historyWriter.flush();
+            latencies.add((System.nanoTime() - start) / 1_000_000.0 / (ROWS_PER_DAY / 1000.0));
+            if (retention) {
+                archiver.archiveBefore(date.minusDays(HOT_DAYS - 1));
+            }
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,115 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara el throughput de compras concurrentes sobre un único producto
+ * entre el descuento en su fila de inventario y el {@link HotStockLedger}
+ * (con fsync del WAL en cada compra). El producto 1 está en el ledger y el
+ * 2 no; products-service responde sin latencia, como con la réplica local.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "inventory.hot-ledger.enabled=true",
+        "inventory.hot-ledger.product-ids=1",
+        "inventory.hot-ledger.wal-dir=target/benchmark-ledger-wal"
+})
+class HotProductLedgerBenchmarkTest {
+
+    private static final long LEDGER_PRODUCT = 1L;
+    private static final long ROW_PRODUCT = 2L;
+    private static final int THREADS = 32;
+    private static final int PURCHASES = 4000;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.save(Inventory.builder().productId(ROW_PRODUCT).quantity(2L * PURCHASES).build());
+        hotStockLedger.setQuantity(LEDGER_PRODUCT, 2L * PURCHASES);
+    }
+
+    @Test
+    void compareRowUpdateWithLedger() throws Exception {
+        // Calentamiento
+        run(ROW_PRODUCT, PURCHASES / 4);
+        run(LEDGER_PRODUCT, PURCHASES / 4);
+
+        double row = run(ROW_PRODUCT, PURCHASES);
+        double ledger = run(LEDGER_PRODUCT, PURCHASES);
+        hotStockLedger.flush();
+
+        System.out.printf("[benchmark] %d purchases of a single product, %d threads:%n", PURCHASES, THREADS);
+        System.out.printf("  conditional row update: %8.1f ops/s%n", row);
+        System.out.printf("  hot stock ledger:       %8.1f ops/s (x%.1f)%n", ledger, ledger / row);
+        long expected = 2L * PURCHASES - PURCHASES - PURCHASES / 4;
+        assertEquals(expected, inventoryRepository.findById(LEDGER_PRODUCT).orElseThrow().getQuantity());
+        assertEquals(expected, inventoryRepository.findById(ROW_PRODUCT).orElseThrow().getQuantity());
+    }
+
+    private double run(long productId, int purchases) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < purchases; i++) {
+            PurchaseRequest request = new PurchaseRequest();
+            request.setProductId(productId);
+            request.setQuantity(1L);
+            futures.add(pool.submit(() -> purchaseService.purchase(request)));
+        }
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        return purchases / (elapsed / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.InventoryService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara la latencia de lectura de inventario ({@code GET /api/inventory/{id}})
+ * entre el camino anterior (consulta remota del producto y alta de una fila
+ * en cero si no existe) y la lectura local actual. La mitad de las lecturas
+ * son de ids sin fila. La primera consulta de cada producto simula una
+ * llamada a products-service de {@value #REMOTE_LATENCY_MS} ms; las
+ * siguientes, un acierto en la cache de {@link ProductClient}.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ InventoryService.class, HotStockLedger.class, SchedulerConfig.class, SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class InventoryReadLatencyBenchmarkTest {
+
+    private static final int PRODUCTS = 500;
+    private static final int READS = 5000;
+    private static final long REMOTE_LATENCY_MS = 5;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    private final Set<Long> cached = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(inv -> {
+            if (cached.add(inv.getArgument(0))) {
+                Thread.sleep(REMOTE_LATENCY_MS);
+            }
+            return null;
+        }).when(productClient).requireProduct(any());
+    }
+
+    @Test
+    void compareLegacyAndLocalReads() {
+        // Calentamiento
+        measure(this::legacyRead);
+        measure(inventoryService::getInventory);
+
+        long[] legacy = measure(this::legacyRead);
+        long[] local = measure(inventoryService::getInventory);
+
+        System.out.printf("[benchmark] %d inventory reads, half of them without a row, %d ms remote latency:%n",
+                READS, REMOTE_LATENCY_MS);
+        print("remote check + insert", legacy);
+        print("local read", local);
+    }
+
+    /** Camino de lectura anterior, reproducido para comparar. */
+    private Inventory legacyRead(Long productId) {
+        productClient.requireProduct(productId);
+        return inventoryRepository.findById(productId).orElseGet(() -> inventoryRepository.save(
+                Inventory.builder().productId(productId).quantity(0L).build()));
+    }
+
+    private void reset() {
+        cached.clear();
+        inventoryRepository.deleteAll();
+        List<Inventory> rows = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id += 2) {
+            rows.add(Inventory.builder().productId(id).quantity(10L).build());
+        }
+        inventoryRepository.saveAll(rows);
+    }
+
+    private long[] measure(LongFunction<Inventory> read) {
+        reset();
+        long[] latencies = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            long start = System.nanoTime();
+            read.apply((long) (i % PRODUCTS) + 1);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(String mode, long[] sorted) {
+        System.out.printf("  %-22s p50 %6.3f ms, p99 %6.3f ms%n", mode,
+                sorted[sorted.length / 2] / 1_000_000.0, sorted[(int) (sorted.length * 0.99)] / 1_000_000.0);
+    }
+}
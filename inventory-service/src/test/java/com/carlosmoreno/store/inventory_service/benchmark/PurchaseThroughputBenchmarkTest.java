@@ -0,0 +1,120 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara el throughput de compras sobre productos distintos entre el
+ * control por fila actual y un candado global equivalente al antiguo
+ * {@code synchronized}. La llamada a products-service se simula con una
+ * latencia fija para que el efecto de la serialización sea visible.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseThroughputBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int PRODUCTS = 16;
+    private static final int PURCHASES = 800;
+    private static final long PRODUCT_CHECK_LATENCY_MS = 5;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    private final Object globalLock = new Object();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(inv -> {
+            Thread.sleep(PRODUCT_CHECK_LATENCY_MS);
+            return null;
+        }).when(productClient).requireProduct(any());
+    }
+
+    @Test
+    void compareGlobalLockWithRowLevelUpdate() throws Exception {
+        double serialized = run(true);
+        double perProduct = run(false);
+
+        System.out.printf("[benchmark] purchase throughput, %d threads / %d products:%n", THREADS, PRODUCTS);
+        System.out.printf("  global lock (old synchronized): %8.1f ops/s%n", serialized);
+        System.out.printf("  conditional row update:         %8.1f ops/s (x%.1f)%n", perProduct, perProduct / serialized);
+    }
+
+    private double run(boolean globalLock) throws Exception {
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity((long) PURCHASES).build());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < PURCHASES; i++) {
+            PurchaseRequest request = new PurchaseRequest();
+            request.setProductId((long) (i % PRODUCTS) + 1);
+            request.setQuantity(1L);
+            futures.add(pool.submit(() -> {
+                if (globalLock) {
+                    synchronized (this.globalLock) {
+                        return purchaseService.purchase(request);
+                    }
+                }
+                return purchaseService.purchase(request);
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        return PURCHASES / (elapsed / 1_000_000_000.0);
+    }
+}
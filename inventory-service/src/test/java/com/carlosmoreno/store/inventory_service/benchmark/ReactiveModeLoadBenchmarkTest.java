@@ -0,0 +1,151 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mide cuántas compras pueden estar en vuelo a la vez con un número fijo de
+ * hilos de petición ({@value #REQUEST_THREADS}) en modo bloqueante frente a
+ * modo reactivo. La llamada a products-service se simula con
+ * {@value #REMOTE_LATENCY_MS} ms de latencia.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReactiveModeLoadBenchmarkTest {
+
+    private static final int REQUEST_THREADS = 4;
+    private static final int PURCHASES = 400;
+    private static final long REMOTE_LATENCY_MS = 50;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(1L).quantity(1_000_000L).build());
+
+        doAnswer(inv -> {
+            enter();
+            try {
+                Thread.sleep(REMOTE_LATENCY_MS);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return null;
+        }).when(productClient).requireProduct(any());
+        when(productClient.requireProductAsync(any())).thenAnswer(inv -> Mono.delay(Duration.ofMillis(REMOTE_LATENCY_MS))
+                .doOnSubscribe(s -> enter())
+                .doFinally(s -> inFlight.decrementAndGet())
+                .then());
+    }
+
+    @Test
+    void compareBlockingAndReactiveModes() throws Exception {
+        long blockingMs = runBlocking();
+        int blockingMax = maxInFlight.getAndSet(0);
+
+        long reactiveMs = runReactive();
+        int reactiveMax = maxInFlight.getAndSet(0);
+
+        System.out.printf("[benchmark] %d purchases, %d request threads, %d ms remote latency:%n",
+                PURCHASES, REQUEST_THREADS, REMOTE_LATENCY_MS);
+        System.out.printf("  blocking: max in-flight %4d, total %6d ms%n", blockingMax, blockingMs);
+        System.out.printf("  reactive: max in-flight %4d, total %6d ms%n", reactiveMax, reactiveMs);
+    }
+
+    private long runBlocking() throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        CountDownLatch done = new CountDownLatch(PURCHASES);
+        long start = System.nanoTime();
+        for (int i = 0; i < PURCHASES; i++) {
+            requestThreads.execute(() -> {
+                try {
+                    purchaseService.purchase(request());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        requestThreads.shutdown();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private long runReactive() throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        CountDownLatch done = new CountDownLatch(PURCHASES);
+        long start = System.nanoTime();
+        for (int i = 0; i < PURCHASES; i++) {
+            requestThreads.execute(() -> purchaseService.purchaseAsync(request())
+                    .doFinally(s -> done.countDown())
+                    .subscribe());
+        }
+        done.await(5, TimeUnit.MINUTES);
+        requestThreads.shutdown();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void enter() {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    }
+
+    private static PurchaseRequest request() {
+        PurchaseRequest request = new PurchaseRequest();
+        request.setProductId(1L);
+        request.setQuantity(1L);
+        return request;
+    }
+}
@@ -0,0 +1,120 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.Reservation;
+import com.carlosmoreno.store.inventory_service.model.ReservationRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.ReservationRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.ReservationService;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Mide el throughput de {@code reserve} con varios hilos y, una vez creadas
+ * todas, el retraso entre el vencimiento de cada reserva y la liberación de
+ * su stock. El plazo es mayor que el tiempo de creación para que los
+ * vencimientos no compitan con las reservas nuevas.
+ *
+ * <p>Ejecutar con {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ ReservationService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.datasource.hikari.connection-timeout=60000")
+class ReservationBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int PRODUCTS = 50;
+    private static final int RESERVATIONS = 2000;
+    private static final long TTL_SECONDS = 10;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity((long) RESERVATIONS).build());
+        }
+    }
+
+    @Test
+    void measureReserveThroughputAndExpiryLag() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            ReservationRequest request = new ReservationRequest();
+            request.setProductId((long) (i % PRODUCTS) + 1);
+            request.setQuantity(1L);
+            request.setTtlSeconds(TTL_SECONDS);
+            futures.add(pool.submit(() -> reservationService.reserve(request)));
+        }
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (meterRegistry.get("inventory.reservations.expired").counter().count() < RESERVATIONS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        HistogramSnapshot lag = meterRegistry.get("inventory.reservations.expiry.lag").timer().takeSnapshot();
+        System.out.printf("[benchmark] %d reservations, %d threads, %d products:%n", RESERVATIONS, THREADS, PRODUCTS);
+        System.out.printf("  reserve throughput: %8.1f ops/s%n", RESERVATIONS / seconds);
+        for (ValueAtPercentile p : lag.percentileValues()) {
+            System.out.printf("  expiry lag p%-4.0f   %8.1f ms%n", p.percentile() * 100, p.value(TimeUnit.MILLISECONDS));
+        }
+        System.out.printf("  expiry lag max     %8.1f ms%n", lag.max(TimeUnit.MILLISECONDS));
+        assertEquals(RESERVATIONS, reservationRepository.findByStatus(Reservation.EXPIRED).size());
+        inventoryRepository.findAll().forEach(inv -> assertEquals(0L, inv.getReserved()));
+    }
+}
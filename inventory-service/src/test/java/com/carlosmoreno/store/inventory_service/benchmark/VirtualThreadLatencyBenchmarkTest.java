@@ -0,0 +1,151 @@
+package com.carlosmoreno.store.inventory_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compara la latencia de cola de {@value #CLIENTS} clientes concurrentes
+ * servidos por un pool de {@value #PLATFORM_THREADS} hilos de plataforma (el
+ * máximo por defecto de Tomcat) frente a un hilo virtual por petición. La
+ * llamada a products-service se simula con {@value #REMOTE_LATENCY_MS} ms. Se
+ * amplía el connection-timeout del pool para medir la espera en lugar de
+ * contar peticiones rechazadas.
+ *
+ * <p>Requiere JRE 21+; en versiones anteriores se omite. Ejecutar con
+ * {@code mvn test -Pbenchmark} usando un JDK 21.</p>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.connection-timeout=60000"
+})
+class VirtualThreadLatencyBenchmarkTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int ROUNDS = 3;
+    private static final int PRODUCTS = 50;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long REMOTE_LATENCY_MS = 20;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity(1_000_000L).build());
+        }
+        doAnswer(inv -> {
+            Thread.sleep(REMOTE_LATENCY_MS);
+            return null;
+        }).when(productClient).requireProduct(any());
+    }
+
+    @Test
+    void compareTailLatency() throws Exception {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        assumeTrue(virtual != null, "Los hilos virtuales requieren JRE 21+");
+
+        // Calentamiento
+        run(Executors.newFixedThreadPool(PLATFORM_THREADS));
+
+        long[] platform = run(Executors.newFixedThreadPool(PLATFORM_THREADS));
+        long[] virtualThreads = run(virtual);
+
+        System.out.printf("[benchmark] %d concurrent clients x %d rounds, %d ms remote latency:%n",
+                CLIENTS, ROUNDS, REMOTE_LATENCY_MS);
+        print("platform (" + PLATFORM_THREADS + " threads)", platform);
+        print("virtual threads", virtualThreads);
+    }
+
+    private long[] run(ExecutorService executor) throws Exception {
+        long[] latencies = new long[CLIENTS * ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Future<Long>> futures = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                PurchaseRequest request = new PurchaseRequest();
+                request.setProductId((long) (i % PRODUCTS) + 1);
+                request.setQuantity(1L);
+                long submitted = System.nanoTime();
+                futures.add(executor.submit(() -> {
+                    purchaseService.purchase(request);
+                    return System.nanoTime() - submitted;
+                }));
+            }
+            for (int i = 0; i < CLIENTS; i++) {
+                latencies[round * CLIENTS + i] = futures.get(i).get(2, TimeUnit.MINUTES);
+            }
+        }
+        executor.shutdown();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(String mode, long[] sorted) {
+        System.out.printf("  %-24s p50 %6.1f ms, p99 %6.1f ms, max %6.1f ms%n", mode,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    /** {@code Executors.newVirtualThreadPerTaskExecutor()} por reflexión para compilar con Java 17. */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.carlosmoreno.store.inventory_service.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.carlosmoreno.store.inventory_service.config.ResilienceConfig;
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ProductClientTest {
+
+    /** Con un transporte real, las respuestas usan los codecs del cliente, que incluyen CBOR. */
+    private static final ExchangeStrategies RESPONSE_STRATEGIES = ExchangeStrategies.builder()
+            .codecs(codecs -> codecs.customCodecs().register(new Jackson2CborDecoder()))
+            .build();
+
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final AtomicReference<HttpStatus> serverStatus = new AtomicReference<>();
+    private final AtomicLong serverVersion = new AtomicLong();
+    private final AtomicBoolean serverCbor = new AtomicBoolean();
+    private final AtomicReference<MediaType> servedType = new AtomicReference<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ProductReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        remoteCalls.set(0);
+        serverVersion.set(0);
+        serverCbor.set(true);
+        meterRegistry = new SimpleMeterRegistry();
+        replica = new ProductReplica("http://products", "key", false, Duration.ofSeconds(1), 1000,
+                WebClient.builder(), meterRegistry);
+    }
+
+    @Test
+    void requireProductAndFindMissing_shouldSkipRemoteCall_forIdsKnownByReplica() {
+        replica = mock(ProductReplica.class);
+        when(replica.contains(1L)).thenReturn(true);
+        when(replica.contains(2L)).thenReturn(true);
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO);
+
+        client.requireProduct(1L);
+        assertEquals(Set.of(), client.findMissing(List.of(1L, 2L)));
+        assertEquals(0, remoteCalls.get());
+
+        assertEquals(Set.of(404L), client.findMissing(List.of(1L, 404L)));
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void getProductById_shouldServeRepeatedLookupsFromCache() {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO);
+
+        ProductSummary first = client.getProductById(1L);
+        ProductSummary second = client.getProductById(1L);
+
+        assertEquals(1L, first.id());
+        assertEquals(first, second);
+        assertEquals(1, remoteCalls.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "products").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void getProductById_shouldRequestCbor_andAcceptJsonFromServersWithoutIt() {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO);
+
+        assertEquals(new ProductSummary(1L, 0L), client.getProductById(1L));
+        assertEquals(MediaType.APPLICATION_CBOR, servedType.get());
+
+        serverCbor.set(false);
+        assertEquals(new ProductSummary(2L, 0L), client.getProductById(2L));
+        assertEquals(MediaType.APPLICATION_JSON, servedType.get());
+    }
+
+    @Test
+    void getProductById_shouldCacheNotFound() {
+        ProductClient client = client(HttpStatus.NOT_FOUND, Duration.ZERO);
+
+        assertThrows(ProductNotFoundException.class, () -> client.getProductById(7L));
+        assertThrows(ProductNotFoundException.class, () -> client.getProductById(7L));
+
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void getProductById_shouldMakeSingleRemoteCall_forConcurrentLookupsOfSameId() throws Exception {
+        ProductClient client = client(HttpStatus.OK, Duration.ofMillis(100));
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ProductSummary>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 32; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return client.getProductById(5L);
+            }));
+        }
+        start.countDown();
+        for (Future<ProductSummary> f : futures) {
+            assertEquals(5L, f.get(5, TimeUnit.SECONDS).id());
+        }
+        pool.shutdown();
+
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void getProductById_shouldCoalesceConcurrentLookupsOfDifferentIds_intoOneBatchCall() throws Exception {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO, true);
+        ExecutorService pool = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ProductSummary>> futures = new ArrayList<>();
+
+        for (int i = 1; i <= 20; i++) {
+            long id = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                return client.getProductById(id);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1L, futures.get(i).get(5, TimeUnit.SECONDS).id());
+        }
+        pool.shutdown();
+
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void getProductById_shouldFailFast_whenCircuitIsOpenAfterSustainedErrors() {
+        CircuitBreaker circuitBreaker = new ResilienceConfig().productsCircuitBreaker(
+                50, Duration.ofSeconds(1), 4, 4, Duration.ofMinutes(1), meterRegistry);
+        ProductClient client = client(HttpStatus.SERVICE_UNAVAILABLE, Duration.ZERO, false,
+                Duration.ofMinutes(1), Duration.ZERO, circuitBreaker, Bulkhead.ofDefaults("products"));
+
+        for (long id = 1; id <= 2; id++) {
+            long productId = id;
+            assertThrows(ProductServiceUnavailableException.class, () -> client.getProductById(productId));
+        }
+        int callsBeforeOpen = remoteCalls.get();
+
+        assertThrows(ProductServiceUnavailableException.class, () -> client.getProductById(3L));
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(callsBeforeOpen, remoteCalls.get());
+        assertEquals(1.0, meterRegistry.get("products.circuitbreaker.transitions")
+                .tag("from", "CLOSED").tag("to", "OPEN").counter().count());
+    }
+
+    @Test
+    void getProductById_shouldRejectCalls_whenBulkheadIsFull() throws Exception {
+        Bulkhead bulkhead = new ResilienceConfig().productsBulkhead(1, meterRegistry);
+        ProductClient client = client(HttpStatus.OK, Duration.ofMillis(200), false,
+                Duration.ofMinutes(1), Duration.ZERO, CircuitBreaker.ofDefaults("products"), bulkhead);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        Future<ProductSummary> first = pool.submit(() -> client.getProductById(1L));
+        Thread.sleep(50);
+        Future<ProductSummary> second = pool.submit(() -> client.getProductById(2L));
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).id());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertInstanceOf(ProductServiceUnavailableException.class, rejected.getCause());
+        assertEquals(1.0, meterRegistry.get("products.bulkhead.rejected").counter().count());
+    }
+
+    @Test
+    void getProductById_shouldFallBackToLastKnownValue_whenProductsServiceFails() throws Exception {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO, false,
+                Duration.ofMillis(1), Duration.ofMinutes(10),
+                CircuitBreaker.ofDefaults("products"), Bulkhead.ofDefaults("products"));
+        assertEquals(1L, client.getProductById(1L).id());
+
+        Thread.sleep(10);
+        serverStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertEquals(1L, client.getProductById(1L).id());
+        assertThrows(ProductServiceUnavailableException.class, () -> client.getProductById(2L));
+        assertEquals(1.0, meterRegistry.get("products.fallback.stale").counter().count());
+    }
+
+    @Test
+    void getProductById_shouldRevalidateWithETag_andReuseBodyWhenNotModified() throws Exception {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO, false,
+                Duration.ofMillis(1), Duration.ZERO, CircuitBreaker.ofDefaults("products"),
+                Bulkhead.ofDefaults("products"));
+
+        ProductSummary first = client.getProductById(1L);
+        Thread.sleep(10);
+        ProductSummary second = client.getProductById(1L);
+        serverVersion.set(1);
+        Thread.sleep(10);
+        ProductSummary changed = client.getProductById(1L);
+
+        assertEquals(first, second);
+        assertEquals(1L, changed.version());
+        assertEquals(3, remoteCalls.get());
+        assertEquals(1.0, meterRegistry.get("products.client.not-modified").counter().count());
+    }
+
+    @Test
+    void getProductById_shouldRevalidateProductsLoadedInBatch() throws Exception {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO, true,
+                Duration.ofMillis(1), Duration.ZERO, CircuitBreaker.ofDefaults("products"),
+                Bulkhead.ofDefaults("products"));
+
+        client.getProductsByIds(List.of(1L, 2L));
+        Thread.sleep(10);
+        assertEquals(0L, client.getProductById(2L).version());
+
+        assertEquals(2, remoteCalls.get());
+        assertEquals(1.0, meterRegistry.get("products.client.not-modified").counter().count());
+    }
+
+    @Test
+    void getProductsByIds_shouldReturnEmptyForMissingProducts() {
+        ProductClient client = client(HttpStatus.OK, Duration.ZERO, true);
+
+        Map<Long, Optional<ProductSummary>> result = client.getProductsByIds(List.of(1L, 2L, 404L));
+
+        assertTrue(result.get(1L).isPresent());
+        assertTrue(result.get(2L).isPresent());
+        assertTrue(result.get(404L).isEmpty());
+        assertEquals(1, remoteCalls.get());
+    }
+
+    private ProductClient client(HttpStatus status, Duration latency) {
+        return client(status, latency, false);
+    }
+
+    private ProductClient client(HttpStatus status, Duration latency, boolean batchEnabled) {
+        return client(status, latency, batchEnabled, Duration.ofMinutes(1), Duration.ZERO,
+                CircuitBreaker.ofDefaults("products"), Bulkhead.ofDefaults("products"));
+    }
+
+    /**
+     * Simula products-service: {@code GET /api/products/{id}} responde con el
+     * estado de {@code serverStatus} y {@code POST /api/products/batch}
+     * devuelve todos los ids pedidos salvo el 404 (o falla si el estado es 5xx).
+     * Todos los productos tienen la versión {@code serverVersion}, que el GET
+     * publica como ETag y compara con {@code If-None-Match}. Si
+     * {@code serverCbor} está activo y el cliente acepta CBOR, el cuerpo se
+     * envía en CBOR y el ETag lleva el sufijo {@code -cbor}.
+     */
+    private ProductClient client(HttpStatus status, Duration latency, boolean batchEnabled, Duration ttl,
+                                 Duration staleTtl, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        serverStatus.set(status);
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            HttpStatus current = serverStatus.get();
+            remoteCalls.incrementAndGet();
+            String path = request.url().getPath();
+            long version = serverVersion.get();
+            boolean cbor = serverCbor.get() && request.headers().getAccept().contains(MediaType.APPLICATION_CBOR);
+            String etag = "\"" + version + (cbor ? "-cbor" : "") + "\"";
+            String body;
+            if (path.endsWith("/batch")) {
+                body = readBody(request).replaceAll("[\\[\\]\\s]", "");
+                body = "[" + Arrays.stream(body.split(","))
+                        .filter(id -> !id.equals("404"))
+                        .map(id -> "{\"id\":" + id + ",\"name\":\"Producto\",\"version\":" + version + "}")
+                        .collect(Collectors.joining(",")) + "]";
+            } else {
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                body = current.is2xxSuccessful()
+                        ? "{\"id\":" + id + ",\"name\":\"Producto\",\"version\":" + version + "}"
+                        : "";
+            }
+            boolean notModified = current.is2xxSuccessful()
+                    && request.headers().getIfNoneMatch().contains(etag);
+            ClientResponse.Builder response = ClientResponse.create(notModified
+                            ? HttpStatus.NOT_MODIFIED
+                            : path.endsWith("/batch") && !current.is5xxServerError() ? HttpStatus.OK : current,
+                    RESPONSE_STRATEGIES);
+            if (!path.endsWith("/batch") && current.is2xxSuccessful()) {
+                response.header(HttpHeaders.ETAG, etag);
+            }
+            if (!notModified && cbor) {
+                servedType.set(MediaType.APPLICATION_CBOR);
+                response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE)
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(cbor(body))));
+            } else if (!notModified) {
+                servedType.set(MediaType.APPLICATION_JSON);
+                response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body);
+            }
+            ClientResponse built = response.build();
+            return Mono.delay(latency).thenReturn(built);
+        });
+        return new ProductClient("http://products", "key", 100, ttl, Duration.ofSeconds(5),
+                batchEnabled, Duration.ofMillis(100), 100, staleTtl, circuitBreaker, bulkhead, replica, builder,
+                meterRegistry);
+    }
+
+    private static byte[] cbor(String json) {
+        try {
+            return new CBORMapper().writeValueAsBytes(new ObjectMapper().readTree(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readBody(ClientRequest request) {
+        MockClientHttpRequest mock = new MockClientHttpRequest(request.method(), request.url());
+        ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+        request.body().insert(mock, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return strategies.messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).block();
+        return mock.getBodyAsString().block();
+    }
+}
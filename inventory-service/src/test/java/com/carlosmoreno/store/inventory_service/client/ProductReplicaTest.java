@@ -0,0 +1,107 @@
+package com.carlosmoreno.store.inventory_service.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ProductReplicaTest {
+
+    private final List<String> requests = new ArrayList<>();
+    private String snapshot;
+    private String events;
+    private HttpStatus eventsStatus;
+    private ProductReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        requests.clear();
+        eventsStatus = HttpStatus.OK;
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request.url().getPath() + (request.url().getQuery() == null ? "" : "?" + request.url().getQuery()));
+            boolean isSnapshot = request.url().getPath().endsWith("/snapshot");
+            return Mono.just(ClientResponse.create(isSnapshot ? HttpStatus.OK : eventsStatus)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(isSnapshot ? snapshot : events)
+                    .build());
+        });
+        replica = new ProductReplica("http://products", "key", false, Duration.ofSeconds(1), 10,
+                builder, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void contains_shouldBeFalse_untilSnapshotIsLoaded() {
+        assertFalse(replica.isReady());
+        assertFalse(replica.contains(1L));
+    }
+
+    @Test
+    void sync_shouldLoadSnapshotAndApplyEventsAfterCursor() {
+        snapshot = "{\"cursor\":5,\"ids\":[1,2,3]}";
+        events = "[{\"id\":16,\"seq\":6,\"productId\":4,\"type\":\"CREATED\"},"
+                + "{\"id\":15,\"seq\":7,\"productId\":2,\"type\":\"DELETED\"},"
+                + "{\"id\":17,\"seq\":8,\"productId\":3,\"type\":\"UPDATED\"}]";
+
+        replica.sync();
+
+        assertTrue(replica.isReady());
+        assertTrue(replica.contains(1L));
+        assertFalse(replica.contains(2L));
+        assertTrue(replica.contains(3L));
+        assertTrue(replica.contains(4L));
+        assertEquals(3, replica.size());
+        assertEquals(List.of("/api/products/snapshot", "/api/products/events?after=5&size=10"), requests);
+
+        events = "[]";
+        replica.sync();
+
+        assertEquals("/api/products/events?after=8&size=10", requests.get(requests.size() - 1));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void sync_shouldReloadSnapshot_whenEventsAfterCursorWerePurged() {
+        snapshot = "{\"cursor\":5,\"ids\":[1,2,3]}";
+        events = "[]";
+        replica.sync();
+
+        snapshot = "{\"cursor\":40,\"ids\":[1,3,9]}";
+        eventsStatus = HttpStatus.GONE;
+        events = "";
+        replica.sync();
+
+        assertTrue(replica.isReady());
+        assertFalse(replica.contains(2L));
+        assertTrue(replica.contains(9L));
+        assertEquals("/api/products/snapshot", requests.get(requests.size() - 1));
+
+        eventsStatus = HttpStatus.OK;
+        events = "[]";
+        replica.sync();
+
+        assertEquals("/api/products/events?after=40&size=10", requests.get(requests.size() - 1));
+    }
+
+    @Test
+    void sync_shouldKeepReplicaNotReady_whenSnapshotFails() {
+        snapshot = "not json";
+
+        replica.sync();
+
+        assertFalse(replica.isReady());
+        assertFalse(replica.contains(1L));
+    }
+}
@@ -0,0 +1,112 @@
+package com.carlosmoreno.store.inventory_service.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+class ProductsHttpConfigTest {
+
+    private final ProductsHttpConfig config = new ProductsHttpConfig();
+    private final List<String> protocols = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private DisposableServer server;
+    private ConnectionProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle((request, response) -> {
+                    protocols.add(request.protocol());
+                    return response.sendString(Mono.just("{\"id\":1}"));
+                })
+                .bindNow();
+        provider = config.productsConnectionProvider(4, 10, Duration.ofMillis(500), Duration.ofSeconds(15),
+                Duration.ofMinutes(5), Duration.ofSeconds(30), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.dispose();
+        server.disposeNow();
+    }
+
+    @Test
+    void http1_shouldReuseThePooledConnection_andPublishPoolMetrics() throws InterruptedException {
+        WebClient client = client("http1");
+
+        get(client);
+        awaitReleased();
+        get(client);
+        awaitReleased();
+
+        assertEquals(List.of("HTTP/1.1", "HTTP/1.1"), protocols);
+        assertEquals(1.0, meterRegistry.get("products.http.pool.total").gauge().value());
+        assertEquals(1.0, meterRegistry.get("products.http.pool.idle").gauge().value());
+        assertEquals(0.0, meterRegistry.get("products.http.pool.active").gauge().value());
+        assertEquals(0.0, meterRegistry.get("products.http.pool.pending").gauge().value());
+    }
+
+    @Test
+    void h2c_shouldSpeakHttp2WithoutTls() {
+        WebClient client = client("h2c");
+
+        get(client);
+        get(client);
+
+        assertEquals(List.of("HTTP/2.0", "HTTP/2.0"), protocols);
+    }
+
+    @Test
+    void dispose_shouldRemoveThePoolMetrics() {
+        get(client("http1"));
+        assertEquals(1, meterRegistry.find("products.http.pool.total").gauges().size());
+
+        provider.disposeLater().block(Duration.ofSeconds(5));
+
+        assertTrue(meterRegistry.find("products.http.pool.total").gauges().isEmpty());
+        assertTrue(meterRegistry.find("products.http.pool.active").gauges().isEmpty());
+    }
+
+    @Test
+    void unknownProtocol_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> client("h3"));
+    }
+
+    private WebClient client(String protocol) {
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + server.port())
+                .clientConnector(config.productsHttpConnector(provider, protocol, Duration.ofMillis(500),
+                        Duration.ofSeconds(1)))
+                .build();
+    }
+
+    /** La conexión vuelve al pool justo después de entregar la respuesta. */
+    private void awaitReleased() throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get("products.http.pool.active").gauge().value() > 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void get(WebClient client) {
+        client.get().uri("/api/products/1").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,55 @@
+package com.carlosmoreno.store.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PurchaseHistoryIdGenerator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseHistoryIdGeneratorTest {
+
+    @Autowired
+    private PurchaseHistoryIdGenerator idGenerator;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        historyRepository.deleteAll();
+    }
+
+    @Test
+    void alignWithExistingIds_shouldSkipIdsWrittenBeforeTheTableGenerator() {
+        jdbcTemplate.update("INSERT INTO purchase_history (id, product_id, quantity, status) "
+                + "VALUES (5000, 1, 1, 'SUCCESS')");
+
+        idGenerator.alignWithExistingIds();
+        PurchaseHistory saved = historyRepository.saveAndFlush(PurchaseHistory.builder()
+                .productId(1L)
+                .quantity(1L)
+                .date(LocalDateTime.now())
+                .status("SUCCESS")
+                .build());
+
+        assertTrue(saved.getId() > 5000);
+    }
+}
@@ -0,0 +1,312 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.LedgerCheckpointRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotStockLedgerTest {
+
+    private static final Long HOT = 1L;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path walDir;
+
+    private final List<HotStockLedger> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(HOT).quantity(10L).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(ledger -> ReflectionTestUtils.invokeMethod(ledger, "stop"));
+    }
+
+    @Test
+    void decrements_shouldStayInMemory_untilFlushAppliesAggregatedDelta() {
+        HotStockLedger ledger = start(true);
+
+        assertTrue(ledger.manages(HOT));
+        assertFalse(ledger.manages(2L));
+        assertEquals(7L, ledger.tryDecrement(HOT, 3));
+        assertEquals(5L, ledger.tryDecrement(HOT, 2));
+        assertEquals(-1L, ledger.tryDecrement(HOT, 6));
+        ledger.release(HOT, 1);
+        assertEquals(6L, ledger.available(HOT));
+        assertEquals(10L, quantity(HOT));
+
+        ledger.flush();
+
+        assertEquals(6L, quantity(HOT));
+        assertEquals(Map.of(HOT, 0L), ledger.reconcile());
+    }
+
+    @Test
+    void restart_shouldReplayDecrementsNotYetFlushed_exactlyOnce() {
+        HotStockLedger crashed = start(true);
+        crashed.tryDecrement(HOT, 4);
+        crashed.setQuantity(HOT, 20);
+        crashed.tryDecrement(HOT, 5);
+        // Simula una caída: el ledger no llega a hacer flush ni stop
+        started.remove(crashed);
+
+        HotStockLedger restarted = start(true);
+
+        assertEquals(15L, quantity(HOT));
+        assertEquals(15L, restarted.available(HOT));
+
+        start(true);
+        assertEquals(15L, quantity(HOT));
+    }
+
+    @Test
+    void reconcile_shouldReportDrift_whenTableIsChangedOutsideTheLedger() {
+        HotStockLedger ledger = start(true);
+        ledger.tryDecrement(HOT, 2);
+
+        inventoryRepository.save(Inventory.builder().productId(HOT).quantity(15L).build());
+
+        assertEquals(Map.of(HOT, 5L), ledger.reconcile());
+    }
+
+    @Test
+    void concurrentDecrements_shouldNeverOversell() throws Exception {
+        HotStockLedger ledger = start(false);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                go.await();
+                int bought = 0;
+                for (int i = 0; i < 5; i++) {
+                    if (ledger.tryDecrement(HOT, 1) >= 0) {
+                        bought++;
+                    }
+                }
+                return bought;
+            }));
+        }
+        go.countDown();
+        int bought = 0;
+        for (Future<Integer> future : futures) {
+            bought += future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        ledger.flush();
+
+        assertEquals(10, bought);
+        assertEquals(0L, ledger.available(HOT));
+        assertEquals(0L, quantity(HOT));
+    }
+
+    @Test
+    void failedSync_shouldFailPurchase_andLeaveStockUntouched() {
+        HotStockLedger ledger = start(true);
+        Object wal = ReflectionTestUtils.getField(ledger, "wal");
+        FailingForceChannel channel = new FailingForceChannel(
+                (FileChannel) ReflectionTestUtils.getField(wal, "channel"), new IOException("force simulado fallido"));
+        ReflectionTestUtils.setField(wal, "channel", channel);
+
+        assertThrows(UncheckedIOException.class, () -> ledger.tryDecrement(HOT, 3));
+        assertEquals(10L, ledger.available(HOT));
+
+        channel.failing = false;
+        assertEquals(8L, ledger.tryDecrement(HOT, 2));
+        ledger.flush();
+
+        assertEquals(8L, quantity(HOT));
+        assertEquals(Map.of(HOT, 0L), ledger.reconcile());
+    }
+
+    @Test
+    void channelClosedBeforeSync_shouldFailPurchase_unlessARotationForcedIt() {
+        HotStockLedger ledger = start(true);
+        Object wal = ReflectionTestUtils.getField(ledger, "wal");
+        FailingForceChannel channel = new FailingForceChannel(
+                (FileChannel) ReflectionTestUtils.getField(wal, "channel"), new ClosedByInterruptException());
+        ReflectionTestUtils.setField(wal, "channel", channel);
+
+        assertThrows(UncheckedIOException.class, () -> ledger.tryDecrement(HOT, 3));
+        assertEquals(10L, ledger.available(HOT));
+
+        // El siguiente registro lo cubre un cierre que sí lo forzó
+        long next = (Long) ReflectionTestUtils.getField(wal, "lastSeq") + 1;
+        ReflectionTestUtils.setField(wal, "forcedSeq", next);
+        assertEquals(7L, ledger.tryDecrement(HOT, 3));
+        channel.failing = false;
+    }
+
+    private HotStockLedger start(boolean fsync) {
+        HotStockLedger ledger = new HotStockLedger(inventoryRepository, checkpointRepository, transactionTemplate,
+                new SimpleMeterRegistry(), true, Set.of(HOT), Duration.ofHours(1), Duration.ofHours(1),
+                walDir.toString(), fsync);
+        ReflectionTestUtils.invokeMethod(ledger, "start");
+        started.add(ledger);
+        return ledger;
+    }
+
+    private long quantity(Long productId) {
+        return inventoryRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    /** Canal del WAL cuyo {@code force} lanza {@code failure} mientras {@code failing} esté activo. */
+    private static final class FailingForceChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private final IOException failure;
+        volatile boolean failing = true;
+
+        FailingForceChannel(FileChannel delegate, IOException failure) {
+            this.delegate = delegate;
+            this.failure = failure;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failing) {
+                throw failure;
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.model.IdempotencyRecord;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.repository.IdempotencyRecordRepository;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService;
+import com.carlosmoreno.store.inventory_service.service.IdempotencyService.StoredResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService service;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        inventoryRepository.deleteAll();
+        meterRegistry = new SimpleMeterRegistry();
+        service = newService(meterRegistry);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_shouldReplayStoredResponse_withoutRunningAgain() {
+        StoredResponse first = service.execute("key-1", "1:2", claim -> purchase());
+        StoredResponse retry = service.execute("key-1", "1:2", claim -> purchase());
+
+        assertEquals(1, executions.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals(200, retry.status());
+        assertEquals(1.0, meterRegistry.get("purchase.idempotency.deduplicated").tag("source", "cache").counter().count());
+    }
+
+    @Test
+    void execute_shouldReplayFromDatabase_whenCacheDoesNotHaveTheKey() {
+        service.execute("key-1", "1:2", claim -> purchase());
+
+        StoredResponse retry = newService(new SimpleMeterRegistry()).execute("key-1", "1:2", claim -> purchase());
+
+        assertEquals(1, executions.get());
+        assertTrue(retry.replayed());
+        assertEquals("{\"quantity\":1}", retry.body());
+    }
+
+    @Test
+    void concurrentDuplicates_shouldWaitForTheFirstExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<StoredResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> service.execute("key-1", "1:2", claim -> {
+                await(release);
+                return purchase();
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        int replayed = 0;
+        for (Future<StoredResponse> f : futures) {
+            StoredResponse response = f.get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.status());
+            replayed += response.replayed() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertEquals(1, executions.get());
+        assertEquals(threads - 1, replayed);
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedWithDifferentRequest_andNotStoreServerErrors() {
+        service.execute("key-1", "1:2", claim -> purchase());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.execute("key-1", "1:3", claim -> purchase()));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+
+        ResponseEntity<?> failure = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "caído"));
+        assertEquals(503, service.execute("key-2", "1:2", claim -> failure).status());
+        assertFalse(repository.existsById("key-2"));
+        assertFalse(service.execute("key-2", "1:2", claim -> purchase()).replayed());
+    }
+
+    @Test
+    void execute_shouldTakeOverClaim_whenItsLeaseExpired() {
+        LocalDateTime deadInstanceClaim = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).minusMinutes(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                tx -> repository.claim("key-1", "1:2", deadInstanceClaim));
+
+        StoredResponse response = service.execute("key-1", "1:2", claim -> purchase());
+
+        assertEquals(1, executions.get());
+        assertFalse(response.replayed());
+        IdempotencyRecord stored = repository.findById("key-1").orElseThrow();
+        assertEquals(200, stored.getStatus());
+        assertTrue(stored.getClaimedAt().isAfter(deadInstanceClaim));
+        Integer staleCompletion = new TransactionTemplate(transactionManager).execute(
+                tx -> repository.complete("key-1", deadInstanceClaim, 500, null));
+        assertEquals(0, staleCompletion);
+    }
+
+    @Test
+    void execute_shouldConflict_whileClaimLeaseIsAlive() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                tx -> repository.claim("key-1", "1:2", LocalDateTime.now()));
+        IdempotencyService impatient = new IdempotencyService(repository, new TransactionTemplate(transactionManager),
+                new ObjectMapper(), new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMillis(200),
+                Duration.ofSeconds(30), Duration.ofHours(1));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> impatient.execute("key-1", "1:2", claim -> purchase()));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void purchaseOutlivingItsLease_shouldRollBack_whenAnotherInstanceTookTheKey() throws Exception {
+        inventoryRepository.save(Inventory.builder().productId(1L).quantity(10L).build());
+        IdempotencyService slowInstance = newService(new SimpleMeterRegistry(), Duration.ofMillis(100));
+        IdempotencyService retryInstance = newService(new SimpleMeterRegistry(), Duration.ofMillis(100));
+        CountDownLatch decremented = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        Future<StoredResponse> slow = pool.submit(() -> slowInstance.execute("key-1", "1:2", claim ->
+                new TransactionTemplate(transactionManager).execute(tx -> {
+                    inventoryRepository.decrementStock(1L, 1L);
+                    decremented.countDown();
+                    sleep(400);
+                    claim.complete(HttpStatus.OK, Map.of("quantity", executions.incrementAndGet()));
+                    return ResponseEntity.ok().build();
+                })));
+        decremented.await(5, TimeUnit.SECONDS);
+        sleep(150);
+        StoredResponse retry = retryInstance.execute("key-1", "1:2", claim ->
+                new TransactionTemplate(transactionManager).execute(tx -> {
+                    inventoryRepository.decrementStock(1L, 1L);
+                    claim.complete(HttpStatus.OK, Map.of("quantity", executions.incrementAndGet()));
+                    return ResponseEntity.ok().build();
+                }));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> slow.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(HttpStatus.CONFLICT, ((ResponseStatusException) ex.getCause()).getStatusCode());
+        assertEquals(200, retry.status());
+        assertEquals(9L, inventoryRepository.findById(1L).orElseThrow().getQuantity());
+        assertEquals(retry.body(), repository.findById("key-1").orElseThrow().getBody());
+    }
+
+    @Test
+    void execute_shouldNotStoreCompletion_whoseTransactionRolledBack() {
+        StoredResponse failed = service.execute("key-1", "1:2", claim -> {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                    claim.complete(HttpStatus.OK, Map.of("quantity", 1));
+                    throw new IllegalStateException("commit fallido");
+                });
+            } catch (IllegalStateException e) {
+                return ResponseEntity.internalServerError().build();
+            }
+            return ResponseEntity.ok().build();
+        });
+
+        assertEquals(500, failed.status());
+        assertFalse(repository.existsById("key-1"));
+    }
+
+    @Test
+    void pinnedClaim_shouldNotBeTakenOver_afterItsLeaseExpired() {
+        LocalDateTime deadInstanceClaim = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).minusMinutes(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            repository.claim("key-1", "1:2", deadInstanceClaim);
+            repository.pin("key-1", deadInstanceClaim);
+        });
+        IdempotencyService impatient = new IdempotencyService(repository, new TransactionTemplate(transactionManager),
+                new ObjectMapper(), new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMillis(200),
+                Duration.ofSeconds(30), Duration.ofHours(1));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> impatient.execute("key-1", "1:2", claim -> purchase()));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(0, executions.get());
+    }
+
+    private ResponseEntity<?> purchase() {
+        return ResponseEntity.ok(Map.of("quantity", executions.incrementAndGet()));
+    }
+
+    private IdempotencyService newService(SimpleMeterRegistry registry) {
+        return newService(registry, Duration.ofSeconds(30));
+    }
+
+    private IdempotencyService newService(SimpleMeterRegistry registry, Duration lease) {
+        return new IdempotencyService(repository, new TransactionTemplate(transactionManager), new ObjectMapper(),
+                registry, 100, Duration.ofHours(1), Duration.ofSeconds(5), lease, Duration.ofHours(1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.InventoryBulkResult;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.InventoryBulkService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ HotStockLedger.class, SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryBulkServiceTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    private InventoryBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(1L).quantity(10L).reserved(3L).build());
+        when(productClient.findMissing(anyCollection())).thenReturn(Set.of(99L));
+        bulkService = new InventoryBulkService(inventoryRepository, productClient, hotStockLedger,
+                new TransactionTemplate(transactionManager), new ObjectMapper(), 2, 1);
+    }
+
+    @Test
+    void upsertJson_shouldInsertAndUpdateInChunks_keepingReservations() throws IOException {
+        InventoryBulkResult result = bulkService.upsertJson(body("""
+                [{"productId": 1, "quantity": 50}, {"productId": 2, "quantity": 7},
+                 {"productId": 3, "quantity": 0, "warehouse": {"id": "A"}}]"""));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(3, result.getUpdated());
+        assertEquals(0, result.getFailed());
+        assertEquals(50L, quantity(1L));
+        assertEquals(3L, inventoryRepository.findById(1L).orElseThrow().getReserved());
+        assertEquals(7L, quantity(2L));
+        assertEquals(0L, quantity(3L));
+        verify(productClient, times(2)).findMissing(anyCollection());
+    }
+
+    @Test
+    void upsertCsv_shouldReportFailedRows_andApplyTheRest() throws IOException {
+        InventoryBulkResult result = bulkService.upsertCsv(body("""
+                productId,quantity
+                1,20
+                99,5
+                abc,1
+                4,-1
+                5,8
+                """));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getUpdated());
+        assertEquals(3, result.getFailed());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(3, result.getFailures().get(0).getRow());
+        assertEquals(20L, quantity(1L));
+        assertEquals(8L, quantity(5L));
+        assertTrue(inventoryRepository.findById(99L).isEmpty());
+    }
+
+    @Test
+    void upsertCsv_shouldRejectRows_belowReservedUnits() throws IOException {
+        InventoryBulkResult result = bulkService.upsertCsv(body("""
+                1,2
+                2,4
+                """));
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getFailures().get(0).getRow());
+        assertTrue(result.getFailures().get(0).getError().contains("3 unidades reservadas"));
+        assertEquals(10L, quantity(1L));
+        assertEquals(4L, quantity(2L));
+    }
+
+    @Test
+    void upsertCsv_shouldReportLedgerFailures_asRowFailures() throws IOException {
+        HotStockLedger failingLedger = mock(HotStockLedger.class);
+        when(failingLedger.manages(5L)).thenReturn(true);
+        doThrow(new UncheckedIOException("No se pudo registrar el stock del producto 5", new IOException("disco")))
+                .when(failingLedger).setQuantity(5L, 8L);
+        InventoryBulkService service = new InventoryBulkService(inventoryRepository, productClient, failingLedger,
+                new TransactionTemplate(transactionManager), new ObjectMapper(), 2, 1);
+
+        InventoryBulkResult result = service.upsertCsv(body("""
+                1,20
+                5,8
+                2,4
+                """));
+
+        assertEquals(2, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getFailures().get(0).getRow());
+        assertEquals(20L, quantity(1L));
+        assertEquals(4L, quantity(2L));
+    }
+
+    @Test
+    void upsertJson_shouldFailChunk_whenProductsServiceIsUnavailable() throws IOException {
+        when(productClient.findMissing(anyCollection()))
+                .thenThrow(new ProductServiceUnavailableException("caído", null))
+                .thenReturn(Set.of());
+
+        InventoryBulkResult result = bulkService.upsertJson(body("""
+                [{"productId": 1, "quantity": 1}, {"productId": 2, "quantity": 2}, {"productId": 3, "quantity": 3}]
+                """));
+
+        assertEquals(2, result.getFailed());
+        assertEquals(1, result.getUpdated());
+        assertEquals(10L, quantity(1L));
+        assertEquals(3L, quantity(3L));
+    }
+
+    @Test
+    void upsertJson_shouldStopAtMalformedJson_keepingPreviousChunks() throws IOException {
+        InventoryBulkResult result = bulkService.upsertJson(body("""
+                [{"productId": 2, "quantity": 2}, {"productId": 3, "quantity": 3}, {"productId": 4, "quan"""));
+
+        assertEquals(2, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getFailures().get(0).getError().startsWith("JSON inválido"));
+        assertEquals(3L, quantity(3L));
+    }
+
+    private long quantity(Long productId) {
+        return inventoryRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
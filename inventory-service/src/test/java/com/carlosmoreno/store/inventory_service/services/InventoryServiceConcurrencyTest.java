@@ -0,0 +1,146 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.Reservation;
+import com.carlosmoreno.store.inventory_service.model.ReservationRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.ReservationRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.InventoryService;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+import com.carlosmoreno.store.inventory_service.service.ReservationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ InventoryService.class, ReservationService.class, PurchaseService.class, PurchaseHistoryWriter.class,
+        HotStockLedger.class, SchedulerConfig.class, SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceConcurrencyTest {
+
+    private static final Long PRODUCT = 1L;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(PRODUCT).quantity(100L).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        historyWriter.flush();
+    }
+
+    @Test
+    void updateQuantity_shouldNotOverwriteReserved_underConcurrentReservations() throws Exception {
+        int reservations = 50;
+        int updates = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < reservations; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return reservationService.reserve(request(1L));
+            }));
+        }
+        for (int i = 0; i < updates; i++) {
+            long quantity = i % 2 == 0 ? 100L : 80L;
+            futures.add(pool.submit(() -> {
+                start.await();
+                return inventoryService.updateQuantity(PRODUCT, quantity);
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Inventory inventory = inventoryRepository.findById(PRODUCT).orElseThrow();
+        long active = reservationRepository.findAll().stream()
+                .filter(r -> Reservation.ACTIVE.equals(r.getStatus()))
+                .mapToLong(Reservation::getQuantity)
+                .sum();
+        assertEquals(reservations, active);
+        assertEquals(active, inventory.getReserved());
+    }
+
+    @Test
+    void updateQuantity_shouldConflict_andKeepStock_whenBelowReserved() {
+        reservationService.reserve(request(30L));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> inventoryService.updateQuantity(PRODUCT, 20L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        Inventory inventory = inventoryRepository.findById(PRODUCT).orElseThrow();
+        assertEquals(100L, inventory.getQuantity());
+        assertEquals(30L, inventory.getReserved());
+        assertEquals(30L, inventoryService.updateQuantity(PRODUCT, 30L).getQuantity());
+    }
+
+    @Test
+    void updateQuantity_shouldCreateRow_withoutReservations() {
+        Inventory created = inventoryService.updateQuantity(2L, 15L);
+
+        assertEquals(15L, created.getQuantity());
+        assertEquals(0L, created.getReserved());
+    }
+
+    private static ReservationRequest request(Long quantity) {
+        ReservationRequest request = new ReservationRequest();
+        request.setProductId(PRODUCT);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -1,7 +1,8 @@
 package com.carlosmoreno.store.inventory_service.services;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -12,17 +13,25 @@ import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.exception.ProductNotFoundException;
+import com.carlosmoreno.store.inventory_service.exception.ProductServiceUnavailableException;
 import com.carlosmoreno.store.inventory_service.model.Inventory;
 import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
 import com.carlosmoreno.store.inventory_service.service.InventoryService;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 class InventoryServiceTest {
 
     @Mock
@@ -31,6 +40,9 @@ class InventoryServiceTest {
     @Mock
     private ProductClient productClient;
 
+    @Mock
+    private HotStockLedger hotStockLedger;
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -48,7 +60,6 @@ class InventoryServiceTest {
                 .quantity(5L)
                 .build();
 
-        when(productClient.getProductById(productId)).thenReturn(new HashMap<>());
         when(repository.findById(productId)).thenReturn(Optional.of(existing));
 
         // when
@@ -58,38 +69,61 @@ class InventoryServiceTest {
         assertNotNull(result);
         assertEquals(5L, result.getQuantity());
         verify(repository, never()).save(any());
+        verify(productClient, never()).requireProduct(any());
     }
 
     @Test
-    void getInventory_shouldCreateNewInventory_whenNotFound() {
+    void getInventory_shouldReturnComputedZeroWithoutWriting_whenNotFound() {
         Long productId = 2L;
-        when(productClient.getProductById(productId)).thenReturn(new HashMap<>());
         when(repository.findById(productId)).thenReturn(Optional.empty());
 
-        Inventory newInv = Inventory.builder()
-                .productId(productId)
-                .quantity(0L)
-                .build();
-        when(repository.save(any(Inventory.class))).thenReturn(newInv);
-
         Inventory result = inventoryService.getInventory(productId);
 
         assertNotNull(result);
         assertEquals(productId, result.getProductId());
         assertEquals(0L, result.getQuantity());
-        verify(repository).save(any(Inventory.class));
+        verify(repository, never()).save(any());
     }
 
     @Test
     void getInventory_shouldThrowNotFound_whenProductClientFails() {
         Long productId = 3L;
-        when(productClient.getProductById(productId)).thenThrow(new RuntimeException("No existe"));
+        when(repository.findById(productId)).thenReturn(Optional.empty());
+        doThrow(new ProductNotFoundException(productId)).when(productClient).requireProduct(productId);
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> inventoryService.getInventory(productId));
 
         assertEquals("404 NOT_FOUND \"El producto con ID 3 no existe\"", ex.getMessage());
-        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getInventory_shouldThrowServiceUnavailable_whenProductsServiceIsDown() {
+        Long productId = 4L;
+        when(repository.findById(productId)).thenReturn(Optional.empty());
+        doThrow(new ProductServiceUnavailableException("circuit open", null)).when(productClient).requireProduct(productId);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> inventoryService.getInventory(productId));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getInventories_shouldValidateOnlyIdsWithoutRow_andSkipMissingProducts() {
+        Inventory existing = Inventory.builder().productId(5L).quantity(9L).build();
+        when(repository.findAllById(List.of(6L, 5L, 404L))).thenReturn(List.of(existing));
+        when(productClient.findMissing(List.of(6L, 404L))).thenReturn(Set.of(404L));
+
+        List<Inventory> result = inventoryService.getInventories(List.of(6L, 5L, 404L, 5L));
+
+        assertEquals(2, result.size());
+        assertEquals(6L, result.get(0).getProductId());
+        assertEquals(0L, result.get(0).getQuantity());
+        assertEquals(existing, result.get(1));
+        verify(repository, never()).save(any());
     }
 
     // -------------------------------------------------------------------------
@@ -100,19 +134,17 @@ class InventoryServiceTest {
         Long productId = 10L;
         Long newQty = 8L;
 
-        Inventory inv = Inventory.builder()
+        when(repository.setQuantity(productId, newQty)).thenReturn(1);
+        when(repository.findById(productId)).thenReturn(Optional.of(Inventory.builder()
                 .productId(productId)
-                .quantity(3L)
-                .build();
-
-        when(productClient.getProductById(productId)).thenReturn(new HashMap<>());
-        when(repository.findById(productId)).thenReturn(Optional.of(inv));
-        when(repository.save(any(Inventory.class))).thenAnswer(i -> i.getArgument(0));
+                .quantity(newQty)
+                .build()));
 
         Inventory result = inventoryService.updateQuantity(productId, newQty);
 
         assertEquals(newQty, result.getQuantity());
-        verify(repository).save(inv);
+        verify(repository, never()).insertIfAbsent(any(), any());
+        verify(repository, never()).save(any());
     }
 
     @Test
@@ -120,26 +152,84 @@ class InventoryServiceTest {
         Long productId = 20L;
         Long newQty = 10L;
 
-        when(productClient.getProductById(productId)).thenReturn(new HashMap<>());
-        when(repository.findById(productId)).thenReturn(Optional.empty());
-        when(repository.save(any(Inventory.class))).thenAnswer(i -> i.getArgument(0));
+        when(repository.setQuantity(productId, newQty)).thenReturn(0);
+        when(repository.insertIfAbsent(productId, newQty)).thenReturn(true);
+        when(repository.findById(productId)).thenReturn(Optional.of(Inventory.builder()
+                .productId(productId)
+                .quantity(newQty)
+                .build()));
 
         Inventory result = inventoryService.updateQuantity(productId, newQty);
 
         assertEquals(productId, result.getProductId());
         assertEquals(newQty, result.getQuantity());
-        verify(repository).save(any(Inventory.class));
+        verify(repository).insertIfAbsent(productId, newQty);
+    }
+
+    @Test
+    void updateQuantity_shouldConflict_whenQuantityIsBelowReserved() {
+        Long productId = 21L;
+
+        when(repository.setQuantity(productId, 2L)).thenReturn(0);
+        when(repository.insertIfAbsent(productId, 2L)).thenReturn(false);
+        when(repository.findById(productId)).thenReturn(Optional.of(Inventory.builder()
+                .productId(productId)
+                .quantity(10L)
+                .reserved(5L)
+                .build()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> inventoryService.updateQuantity(productId, 2L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertTrue(ex.getMessage().contains("5 unidades reservadas"));
     }
 
     @Test
     void updateQuantity_shouldThrowNotFound_whenProductClientFails() {
         Long productId = 30L;
-        when(productClient.getProductById(productId)).thenThrow(new RuntimeException("no existe"));
+        doThrow(new ProductNotFoundException(productId)).when(productClient).requireProduct(productId);
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> inventoryService.updateQuantity(productId, 5L));
 
         assertTrue(ex.getMessage().contains("El producto con ID 30 no existe"));
+        verify(repository, never()).setQuantity(any(), any());
+    }
+
+    // -------------------------------------------------------------------------
+    // Modo reactivo
+    // -------------------------------------------------------------------------
+    @Test
+    void getInventoryAsync_shouldReturnExistingInventory_whenFound() {
+        Long productId = 40L;
+        Inventory existing = Inventory.builder()
+                .productId(productId)
+                .quantity(7L)
+                .build();
+
+        when(repository.findById(productId)).thenReturn(Optional.of(existing));
+
+        Inventory result = reactiveService().getInventoryAsync(productId).block();
+
+        assertEquals(7L, result.getQuantity());
+        verify(productClient, never()).requireProductAsync(any());
+    }
+
+    @Test
+    void getInventoryAsync_shouldFailWithNotFound_whenProductDoesNotExist() {
+        Long productId = 41L;
+        when(repository.findById(productId)).thenReturn(Optional.empty());
+        when(productClient.requireProductAsync(productId)).thenReturn(Mono.error(new ProductNotFoundException(productId)));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> reactiveService().getInventoryAsync(productId).block());
+
+        assertTrue(ex.getMessage().contains("El producto con ID 41 no existe"));
         verify(repository, never()).save(any());
     }
+
+    private InventoryService reactiveService() {
+        return new InventoryService(repository, productClient, hotStockLedger, Schedulers.immediate());
+    }
 }
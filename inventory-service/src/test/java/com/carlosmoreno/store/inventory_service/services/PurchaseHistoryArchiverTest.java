@@ -0,0 +1,196 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistoryPage;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryArchiver;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryQueryService;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseHistoryQueryService.class, PurchaseHistoryWriter.class, PurchaseHistoryArchiver.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseHistoryArchiverTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+    private static final Path ARCHIVE_DIR = Path.of("target/test-history-archive");
+
+    @Autowired
+    private PurchaseHistoryArchiver archiver;
+
+    @Autowired
+    private PurchaseHistoryQueryService queryService;
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        historyWriter.flush();
+        historyRepository.deleteAll();
+        ReflectionTestUtils.invokeMethod(archiver, "purgeBefore", LocalDate.MAX);
+    }
+
+    @Test
+    void archiveBefore_shouldMoveOldDaysToFiles_andKeepThemQueryable() {
+        for (int day = 0; day < 4; day++) {
+            for (int i = 0; i < 5; i++) {
+                record(i % 2 == 0 ? 1L : 2L, i == 4 ? "FAILED" : "SUCCESS", DAY.plusDays(day).atTime(10, i));
+            }
+        }
+        historyWriter.flush();
+
+        assertEquals(15, archiver.archiveBefore(DAY.plusDays(3)));
+
+        assertEquals(5, historyRepository.count());
+        assertEquals(DAY.plusDays(3).atStartOfDay(), archiver.watermark());
+        assertTrue(Files.exists(ARCHIVE_DIR.resolve("history-" + DAY + ".phz")));
+
+        List<PurchaseHistory> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            PurchaseHistoryPage page = queryService.find(null, null, null, null, cursor, 3);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(20, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getDate().isAfter(all.get(i).getDate()));
+        }
+
+        PurchaseHistoryPage failed = queryService.find(1L, "FAILED", DAY.atStartOfDay(), DAY.plusDays(2).atStartOfDay(),
+                null, 50);
+        assertEquals(2, failed.getItems().size());
+        assertEquals(DAY.plusDays(1).atTime(10, 4), failed.getItems().get(0).getDate());
+        assertNull(failed.getNextCursor());
+    }
+
+    @Test
+    void lateRowsForArchivedDay_shouldBeAppendedToItsFile() {
+        record(1L, "SUCCESS", DAY.atTime(9, 0));
+        historyWriter.flush();
+        archiver.archiveBefore(DAY.plusDays(1));
+
+        historyWriter.record(PurchaseHistory.builder()
+                .productId(7L)
+                .quantity(3L)
+                .date(DAY.atTime(23, 59, 59, 123_456_000))
+                .status("FAILED")
+                .build());
+        historyWriter.flush();
+        // Antes de la siguiente pasada el registro tardío se lee de la tabla
+        List<PurchaseHistory> beforeArchive = queryService.find(null, null, null, null, null, 1).getItems();
+        assertEquals(7L, beforeArchive.get(0).getProductId());
+        assertEquals(1, archiver.archiveBefore(DAY.plusDays(1)));
+
+        List<PurchaseHistory> rows = queryService.find(null, null, null, null, null, 50).getItems();
+        assertEquals(2, rows.size());
+        PurchaseHistory late = rows.get(0);
+        assertEquals(7L, late.getProductId());
+        assertEquals(3L, late.getQuantity());
+        assertEquals(DAY.atTime(23, 59, 59, 123_456_000), late.getDate());
+        assertEquals("FAILED", late.getStatus());
+        assertNull(late.getMessage());
+        assertEquals(0, historyRepository.count());
+    }
+
+    @Test
+    void rerunAfterFailedDelete_shouldNotDuplicateArchivedRows() {
+        for (int i = 0; i < 3; i++) {
+            record(1L, "SUCCESS", DAY.atTime(10, i));
+        }
+        historyWriter.flush();
+        archiver.archiveBefore(DAY.plusDays(1));
+
+        // Las filas siguen en la tabla como si el borrado hubiera fallado tras mover el fichero
+        for (PurchaseHistory h : queryService.find(null, null, null, null, null, 50).getItems()) {
+            jdbcTemplate.update("INSERT INTO purchase_history (id, product_id, quantity, date, status, message) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", h.getId(), h.getProductId(), h.getQuantity(), h.getDate(),
+                    h.getStatus(), h.getMessage());
+        }
+        record(2L, "FAILED", DAY.atTime(11, 0));
+        historyWriter.flush();
+        assertEquals(4, queryService.find(null, null, null, null, null, 50).getItems().size());
+
+        assertEquals(4, archiver.archiveBefore(DAY.plusDays(1)));
+
+        assertEquals(0, historyRepository.count());
+        List<PurchaseHistory> rows = queryService.find(null, null, null, null, null, 50).getItems();
+        assertEquals(4, rows.size());
+        assertEquals(4, rows.stream().map(PurchaseHistory::getId).distinct().count());
+        assertEquals(2L, rows.get(0).getProductId());
+    }
+
+    @Test
+    void find_shouldReturnNewestMatches_inPagesSmallerThanTheDay() {
+        for (int i = 0; i < 50; i++) {
+            record(i % 2 == 0 ? 1L : 2L, "SUCCESS", DAY.atTime(10, i));
+        }
+        historyWriter.flush();
+        archiver.archiveBefore(DAY.plusDays(1));
+
+        List<PurchaseHistory> page = archiver.find(null, null, h -> h.getProductId() == 2L, 3);
+
+        assertEquals(List.of(DAY.atTime(10, 49), DAY.atTime(10, 47), DAY.atTime(10, 45)),
+                page.stream().map(PurchaseHistory::getDate).toList());
+    }
+
+    @Test
+    void purge_shouldDeleteArchivesOutsideTheRetentionWindow() {
+        record(1L, "SUCCESS", DAY.atTime(9, 0));
+        record(1L, "SUCCESS", DAY.plusDays(1).atTime(9, 0));
+        historyWriter.flush();
+        archiver.archiveBefore(DAY.plusDays(2));
+
+        ReflectionTestUtils.invokeMethod(archiver, "purgeBefore", DAY.plusDays(1));
+
+        assertFalse(Files.exists(ARCHIVE_DIR.resolve("history-" + DAY + ".phz")));
+        List<PurchaseHistory> rows = queryService.find(null, null, null, null, null, 50).getItems();
+        assertEquals(1, rows.size());
+        assertEquals(DAY.plusDays(1).atTime(9, 0), rows.get(0).getDate());
+    }
+
+    private void record(Long productId, String status, LocalDateTime date) {
+        historyWriter.record(PurchaseHistory.builder()
+                .productId(productId)
+                .quantity(1L)
+                .date(date)
+                .status(status)
+                .message("Compra " + status)
+                .build());
+    }
+}
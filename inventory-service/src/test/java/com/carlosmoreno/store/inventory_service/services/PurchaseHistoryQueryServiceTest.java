@@ -0,0 +1,155 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistoryPage;
+import com.carlosmoreno.store.inventory_service.model.SalesRollup;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.SalesRollupRepository;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryArchiver;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryQueryService;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseHistoryQueryService.class, PurchaseHistoryWriter.class, PurchaseHistoryArchiver.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseHistoryQueryServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 10, 9, 0);
+
+    @Autowired
+    private PurchaseHistoryQueryService queryService;
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @Autowired
+    private SalesRollupRepository rollupRepository;
+
+    @Autowired
+    private PurchaseHistoryArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        historyWriter.flush();
+        historyRepository.deleteAll();
+        rollupRepository.deleteAll();
+        ReflectionTestUtils.invokeMethod(archiver, "purgeBefore", LocalDate.MAX);
+    }
+
+    @Test
+    void find_shouldWalkAllPagesNewestFirst_withoutGapsOrDuplicates() {
+        // Tres registros por minuto: el cursor debe desempatar por id
+        for (int i = 0; i < 30; i++) {
+            record(1L, i % 3 == 0 ? "FAILED" : "SUCCESS", 1L, BASE.plusMinutes(i / 3));
+        }
+        historyWriter.flush();
+
+        List<PurchaseHistory> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PurchaseHistoryPage page = queryService.find(1L, null, null, null, cursor, 7);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages);
+        assertEquals(30, seen.size());
+        assertEquals(30, new HashSet<>(seen.stream().map(PurchaseHistory::getId).toList()).size());
+        for (int i = 1; i < seen.size(); i++) {
+            PurchaseHistory prev = seen.get(i - 1);
+            PurchaseHistory cur = seen.get(i);
+            assertTrue(prev.getDate().isAfter(cur.getDate())
+                    || prev.getDate().equals(cur.getDate()) && prev.getId() > cur.getId());
+        }
+    }
+
+    @Test
+    void find_shouldFilterByProductStatusAndDateRange() {
+        record(1L, "SUCCESS", 1L, BASE);
+        record(1L, "FAILED", 1L, BASE.plusMinutes(10));
+        record(1L, "SUCCESS", 1L, BASE.plusHours(2));
+        record(2L, "SUCCESS", 1L, BASE.plusMinutes(5));
+        historyWriter.flush();
+
+        PurchaseHistoryPage page = queryService.find(1L, "SUCCESS", BASE, BASE.plusHours(1), null, 50);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(BASE, page.getItems().get(0).getDate());
+        assertNull(page.getNextCursor());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> queryService.find(1L, null, null, null, "no-es-un-cursor", 50));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void summary_shouldReturnRollupMaintainedByTheWriter() {
+        record(1L, "SUCCESS", 2L, BASE.plusMinutes(1));
+        record(1L, "SUCCESS", 3L, BASE.plusMinutes(59));
+        record(1L, "FAILED", 4L, BASE.plusMinutes(30));
+        historyWriter.flush();
+        record(1L, "SUCCESS", 5L, BASE.plusHours(1));
+        record(2L, "SUCCESS", 1L, BASE.plusHours(1));
+        historyWriter.flush();
+
+        List<SalesRollup> hours = queryService.summary(1L, "hour", BASE, BASE.plusDays(1));
+        assertEquals(2, hours.size());
+        assertRollup(hours.get(0), BASE, 2L, 1L, 5L);
+        assertRollup(hours.get(1), BASE.plusHours(1), 1L, 0L, 5L);
+
+        List<SalesRollup> days = queryService.summary(null, SalesRollup.DAY, BASE.toLocalDate().atStartOfDay(),
+                BASE.plusDays(1));
+        assertEquals(2, days.size());
+        assertRollup(days.get(0), BASE.toLocalDate().atStartOfDay(), 3L, 1L, 10L);
+        assertEquals(2L, days.get(1).getProductId());
+    }
+
+    private void record(Long productId, String status, Long quantity, LocalDateTime date) {
+        historyWriter.record(PurchaseHistory.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .date(date)
+                .status(status)
+                .message("test")
+                .build());
+    }
+
+    private static void assertRollup(SalesRollup rollup, LocalDateTime bucket, long success, long failed, long units) {
+        assertEquals(bucket, rollup.getBucketStart());
+        assertEquals(success, rollup.getSuccessCount());
+        assertEquals(failed, rollup.getFailedCount());
+        assertEquals(units, rollup.getUnitsSold());
+    }
+}
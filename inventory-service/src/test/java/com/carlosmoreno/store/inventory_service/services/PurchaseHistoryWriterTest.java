@@ -0,0 +1,137 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.inventory_service.model.PurchaseHistory;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.SalesRollupRepository;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PurchaseHistoryWriterTest {
+
+    private final PurchaseHistoryRepository repository = mock(PurchaseHistoryRepository.class);
+    private final SalesRollupRepository rollupRepository = mock(SalesRollupRepository.class);
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void flush_shouldWriteQueuedEntriesInBatches() {
+        List<Integer> batchSizes = new ArrayList<>();
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            batchSizes.add(inv.getArgument(0, List.class).size());
+            return inv.getArgument(0);
+        });
+        PurchaseHistoryWriter writer = writer(100, 10, "async");
+
+        for (int i = 0; i < 25; i++) {
+            writer.record(entry("FAILED"));
+        }
+        writer.flush();
+
+        assertEquals(List.of(10, 10, 5), batchSizes);
+    }
+
+    @Test
+    void flush_shouldRetryFailedBatchRowByRow_andCountRowsThatStillFail() {
+        List<String> saved = new ArrayList<>();
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<PurchaseHistory> entries = inv.getArgument(0);
+            if (entries.stream().anyMatch(e -> "rota".equals(e.getMessage()))) {
+                throw new DataIntegrityViolationException("rota");
+            }
+            entries.forEach(e -> saved.add(e.getMessage()));
+            return entries;
+        });
+        PurchaseHistoryWriter writer = writer(100, 10, "async");
+
+        writer.record(entry("FAILED", "a"));
+        writer.record(entry("FAILED", "rota"));
+        writer.record(entry("FAILED", "b"));
+        writer.flush();
+
+        assertEquals(List.of("a", "b"), saved);
+        assertEquals(1.0, meterRegistry.get("purchase.history.write.failures").counter().count());
+    }
+
+    @Test
+    void record_shouldWriteOnCallerThread_whenQueueIsFull() {
+        PurchaseHistoryWriter writer = writer(1, 10, "async");
+
+        writer.record(entry("FAILED"));
+        writer.record(entry("FAILED"));
+
+        verify(repository, times(1)).saveAll(anyList());
+        assertEquals(1.0, meterRegistry.get("purchase.history.caller.runs").counter().count());
+    }
+
+    @Test
+    void recordAll_shouldDeferSuccessUntilCommit_inAsyncMode() {
+        PurchaseHistoryWriter writer = writer(100, 10, "async");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.recordAll(List.of(entry("SUCCESS")));
+            writer.flush();
+            verify(repository, never()).saveAll(anyList());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCommit());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.flush();
+
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void recordAll_shouldSaveSuccessInsideTransaction_inOutboxMode() {
+        PurchaseHistoryWriter writer = writer(100, 10, "outbox");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.recordAll(List.of(entry("SUCCESS")));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    private PurchaseHistoryWriter writer(int capacity, int batchSize, String successMode) {
+        return new PurchaseHistoryWriter(repository, rollupRepository, transactionTemplate, meterRegistry, capacity, batchSize,
+                Duration.ofMillis(50), Duration.ZERO, successMode);
+    }
+
+    private static PurchaseHistory entry(String status) {
+        return entry(status, "test");
+    }
+
+    private static PurchaseHistory entry(String status, String message) {
+        return PurchaseHistory.builder()
+                .productId(1L)
+                .quantity(1L)
+                .date(LocalDateTime.now())
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseRequest;
+import com.carlosmoreno.store.inventory_service.model.BatchPurchaseResponse;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseServiceBatchTest {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        historyWriter.flush();
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(1L).quantity(10L).build());
+        inventoryRepository.save(Inventory.builder().productId(2L).quantity(1L).build());
+        inventoryRepository.save(Inventory.builder().productId(3L).quantity(5L).build());
+
+        when(productClient.findMissing(anyCollection())).thenReturn(Set.of(99L));
+    }
+
+    @Test
+    void purchaseBatch_shouldApplyAllItems_whenStockIsAvailable() {
+        BatchPurchaseResponse response = purchaseService.purchaseBatch(
+                batch(false, item(3L, 2L), item(1L, 4L)));
+
+        assertEquals("COMPLETED", response.getStatus());
+        assertEquals(3L, response.getResults().get(0).getRemainingQuantity());
+        assertEquals(6L, response.getResults().get(1).getRemainingQuantity());
+        assertEquals(6L, quantity(1L));
+        assertEquals(3L, quantity(3L));
+        historyWriter.flush();
+        assertEquals(2, historyRepository.count());
+        verify(productClient, times(1)).findMissing(anyCollection());
+    }
+
+    @Test
+    void purchaseBatch_shouldRollBackEverything_whenOneItemFailsAndPartialIsNotAllowed() {
+        BatchPurchaseResponse response = purchaseService.purchaseBatch(
+                batch(false, item(1L, 4L), item(2L, 5L), item(3L, 1L)));
+
+        assertEquals("REJECTED", response.getStatus());
+        assertEquals("CANCELLED", response.getResults().get(0).getStatus());
+        assertEquals("FAILED", response.getResults().get(1).getStatus());
+        assertEquals("CANCELLED", response.getResults().get(2).getStatus());
+        assertEquals(10L, quantity(1L));
+        assertEquals(1L, quantity(2L));
+        assertEquals(5L, quantity(3L));
+        historyWriter.flush();
+        assertEquals(3, historyRepository.count());
+    }
+
+    @Test
+    void purchaseBatch_shouldApplyAvailableItems_whenPartialIsAllowed() {
+        BatchPurchaseResponse response = purchaseService.purchaseBatch(
+                batch(true, item(1L, 4L), item(99L, 1L), item(2L, 5L)));
+
+        assertEquals("PARTIAL", response.getStatus());
+        assertEquals("SUCCESS", response.getResults().get(0).getStatus());
+        assertEquals("Producto no existe", response.getResults().get(1).getMessage());
+        assertEquals("Stock insuficiente", response.getResults().get(2).getMessage());
+        assertEquals(6L, quantity(1L));
+        assertEquals(1L, quantity(2L));
+    }
+
+    private long quantity(Long productId) {
+        return inventoryRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private static BatchPurchaseRequest batch(boolean allowPartial, PurchaseRequest... items) {
+        BatchPurchaseRequest request = new BatchPurchaseRequest();
+        request.setItems(List.of(items));
+        request.setAllowPartial(allowPartial);
+        return request;
+    }
+
+    private static PurchaseRequest item(Long productId, Long quantity) {
+        PurchaseRequest request = new PurchaseRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
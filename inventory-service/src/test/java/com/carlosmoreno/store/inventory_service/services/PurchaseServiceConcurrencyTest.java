@@ -0,0 +1,156 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.PurchaseHistoryRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class, SchedulerConfig.class,
+        SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurchaseServiceConcurrencyTest {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PurchaseHistoryRepository historyRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository.deleteAll();
+        inventoryRepository.deleteAll();
+    }
+
+    @Test
+    void purchase_shouldNeverOversell_underConcurrentBuyers() throws Exception {
+        Long productId = 1L;
+        long initialStock = 50L;
+        int attempts = 200;
+        inventoryRepository.save(Inventory.builder().productId(productId).quantity(initialStock).build());
+
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < attempts; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    purchaseService.purchase(request(productId, 1L));
+                    successes.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(initialStock, successes.get());
+        assertEquals(attempts - initialStock, rejected.get());
+        assertEquals(0L, inventoryRepository.findById(productId).orElseThrow().getQuantity());
+        // Todos los intentos pasan por la validación y el UPDATE; solo los exitosos recargan la fila
+        assertTrue(stageCount("product-check") >= attempts);
+        assertTrue(stageCount("inventory-update") >= attempts);
+        assertTrue(stageCount("inventory-load") >= initialStock);
+    }
+
+    @Test
+    void purchase_shouldOnlyAffectItsOwnProduct_whenBuyingDifferentProducts() throws Exception {
+        int products = 8;
+        int perProduct = 25;
+        for (long id = 1; id <= products; id++) {
+            inventoryRepository.save(Inventory.builder().productId(id).quantity(100L).build());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(products);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long id = 1; id <= products; id++) {
+            long productId = id;
+            for (int i = 0; i < perProduct; i++) {
+                futures.add(pool.submit(() -> purchaseService.purchase(request(productId, 2L))));
+            }
+        }
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (long id = 1; id <= products; id++) {
+            assertEquals(100L - perProduct * 2L, inventoryRepository.findById(id).orElseThrow().getQuantity());
+        }
+    }
+
+    @Test
+    void purchase_shouldRejectAndKeepStock_whenQuantityExceedsStock() {
+        Long productId = 3L;
+        inventoryRepository.save(Inventory.builder().productId(productId).quantity(2L).build());
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> purchaseService.purchase(request(productId, 5L)));
+
+        assertEquals("Insufficient stock for product 3", ex.getMessage());
+        assertEquals(2L, inventoryRepository.findById(productId).orElseThrow().getQuantity());
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("purchase.stage").tag("stage", stage).timer().count();
+    }
+
+    private static PurchaseRequest request(Long productId, Long quantity) {
+        PurchaseRequest request = new PurchaseRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
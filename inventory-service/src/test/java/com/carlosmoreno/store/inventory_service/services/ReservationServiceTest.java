@@ -0,0 +1,156 @@
+package com.carlosmoreno.store.inventory_service.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.carlosmoreno.store.inventory_service.client.ProductClient;
+import com.carlosmoreno.store.inventory_service.config.SchedulerConfig;
+import com.carlosmoreno.store.inventory_service.exception.InsufficientStockException;
+import com.carlosmoreno.store.inventory_service.model.Inventory;
+import com.carlosmoreno.store.inventory_service.model.PurchaseRequest;
+import com.carlosmoreno.store.inventory_service.model.Reservation;
+import com.carlosmoreno.store.inventory_service.model.ReservationRequest;
+import com.carlosmoreno.store.inventory_service.repository.InventoryRepository;
+import com.carlosmoreno.store.inventory_service.repository.ReservationRepository;
+import com.carlosmoreno.store.inventory_service.service.HotStockLedger;
+import com.carlosmoreno.store.inventory_service.service.PurchaseHistoryWriter;
+import com.carlosmoreno.store.inventory_service.service.PurchaseService;
+import com.carlosmoreno.store.inventory_service.service.ReservationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ ReservationService.class, PurchaseService.class, PurchaseHistoryWriter.class, HotStockLedger.class,
+        SchedulerConfig.class, SimpleMeterRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationServiceTest {
+
+    private static final Long PRODUCT = 1L;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private PurchaseHistoryWriter historyWriter;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(Inventory.builder().productId(PRODUCT).quantity(10L).build());
+    }
+
+    /** Evita que el historial pendiente se escriba durante otra clase de test. */
+    @AfterEach
+    void tearDown() {
+        historyWriter.flush();
+    }
+
+    @Test
+    void reserve_shouldHoldStock_andLimitPurchasesToAvailable() {
+        reservationService.reserve(request(7L, null));
+
+        assertEquals(3L, inventory().getAvailable());
+        assertThrows(InsufficientStockException.class, () -> purchaseService.purchase(purchase(4L)));
+        assertThrows(InsufficientStockException.class, () -> reservationService.reserve(request(4L, null)));
+
+        purchaseService.purchase(purchase(3L));
+        Inventory inventory = inventory();
+        assertEquals(7L, inventory.getQuantity());
+        assertEquals(7L, inventory.getReserved());
+        assertEquals(0L, inventory.getAvailable());
+    }
+
+    @Test
+    void confirm_shouldTurnReservationIntoPurchase_andBeIdempotent() {
+        Reservation reservation = reservationService.reserve(request(4L, null));
+
+        assertEquals(Reservation.CONFIRMED, reservationService.confirm(reservation.getId()).getStatus());
+        assertEquals(Reservation.CONFIRMED, reservationService.confirm(reservation.getId()).getStatus());
+
+        Inventory inventory = inventory();
+        assertEquals(6L, inventory.getQuantity());
+        assertEquals(0L, inventory.getReserved());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> reservationService.release(reservation.getId()));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void release_shouldReturnStock_andRejectLaterConfirmation() {
+        Reservation reservation = reservationService.reserve(request(4L, null));
+
+        assertEquals(Reservation.RELEASED, reservationService.release(reservation.getId()).getStatus());
+        assertEquals(Reservation.RELEASED, reservationService.release(reservation.getId()).getStatus());
+
+        assertEquals(10L, inventory().getAvailable());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> reservationService.confirm(reservation.getId()));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void expiredReservation_shouldBeReleasedByTheTimingWheel() throws InterruptedException {
+        Reservation reservation = reservationService.reserve(request(4L, 1L));
+        assertEquals(6L, inventory().getAvailable());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!Reservation.EXPIRED.equals(status(reservation)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(Reservation.EXPIRED, status(reservation));
+        assertEquals(10L, inventory().getAvailable());
+        assertThrows(ResponseStatusException.class, () -> reservationService.confirm(reservation.getId()));
+    }
+
+    private Inventory inventory() {
+        return inventoryRepository.findById(PRODUCT).orElseThrow();
+    }
+
+    private String status(Reservation reservation) {
+        return reservationRepository.findById(reservation.getId()).orElseThrow().getStatus();
+    }
+
+    private static ReservationRequest request(Long quantity, Long ttlSeconds) {
+        ReservationRequest request = new ReservationRequest();
+        request.setProductId(PRODUCT);
+        request.setQuantity(quantity);
+        request.setTtlSeconds(ttlSeconds);
+        return request;
+    }
+
+    private static PurchaseRequest purchase(Long quantity) {
+        PurchaseRequest request = new PurchaseRequest();
+        request.setProductId(PRODUCT);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
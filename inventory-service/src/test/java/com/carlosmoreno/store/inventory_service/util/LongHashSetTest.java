@@ -0,0 +1,58 @@
+package com.carlosmoreno.store.inventory_service.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+    @Test
+    void addContainsRemove_shouldBehaveLikeASet() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(7L));
+        assertFalse(set.add(7L));
+        assertTrue(set.contains(7L));
+        assertFalse(set.contains(8L));
+        assertTrue(set.remove(7L));
+        assertFalse(set.remove(7L));
+        assertFalse(set.contains(7L));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void add_shouldRejectNonPositiveValues() {
+        LongHashSet set = new LongHashSet();
+
+        assertThrows(IllegalArgumentException.class, () -> set.add(0L));
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1L));
+        assertFalse(set.contains(0L));
+    }
+
+    @Test
+    void randomOperations_shouldMatchHashSet_acrossResizesAndRemovals() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value = 1; value <= 5_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "value " + value);
+        }
+    }
+}
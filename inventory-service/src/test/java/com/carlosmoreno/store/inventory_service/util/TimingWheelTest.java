@@ -0,0 +1,66 @@
+package com.carlosmoreno.store.inventory_service.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_shouldReturnItemsOnlyOnceTheirDeadlineHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 4, 1_000);
+        wheel.schedule("a", 1_050);
+        wheel.schedule("b", 1_020);
+
+        assertEquals(List.of(), wheel.advance(1_019));
+        assertEquals(List.of("b"), wheel.advance(1_020));
+        assertEquals(List.of(), wheel.advance(1_049));
+        assertEquals(List.of("a"), wheel.advance(1_100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_shouldDeliverPastDeadlinesOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 4, 5_000);
+        wheel.schedule("late", 1_000);
+
+        assertEquals(List.of("late"), wheel.advance(5_010));
+    }
+
+    /**
+     * Rueda pequeña (3 niveles de 16 casillas = 4096 ticks) para forzar
+     * cascadas y vencimientos más allá del último nivel.
+     */
+    @Test
+    void randomDeadlines_shouldExpireExactlyOnce_atTheFirstAdvancePastThem() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 3, 0);
+        Random random = new Random(7);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = 1 + random.nextInt(20_000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        long previous = 0;
+        int expired = 0;
+        while (previous < 20_000) {
+            long now = previous + 1 + random.nextInt(50);
+            for (Integer item : wheel.advance(now)) {
+                long deadline = deadlines.remove(item);
+                assertTrue(deadline > previous && deadline <= now,
+                        "item " + item + " due at " + deadline + " returned in (" + previous + ", " + now + "]");
+                expired++;
+            }
+            previous = now;
+        }
+
+        assertEquals(5_000, expired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.carlosmoreno.store.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.carlosmoreno.store.inventory_service.InventoryServiceApplication;
+import com.carlosmoreno.store.products_service.ProductsServiceApplication;
+
+/**
+ * Levanta products-service e inventory-service en este proceso, cada uno con
+ * su base de datos H2 en modo MySQL y un puerto libre. Cada servicio lee
+ * {@code loadtest/<servicio>.properties} en lugar de su
+ * {@code application.properties}, que estaría duplicado en el classpath.
+ *
+ * <p>Los servicios comparten CPU con el generador de carga; para medir con
+ * más fidelidad se pueden levantar aparte (p. ej. con docker-compose) e
+ * indicar {@code products-url} e {@code inventory-url}.</p>
+ */
+final class EmbeddedServices implements AutoCloseable {
+
+    private final ConfigurableApplicationContext products;
+    private final ConfigurableApplicationContext inventory;
+
+    private EmbeddedServices(ConfigurableApplicationContext products, ConfigurableApplicationContext inventory) {
+        this.products = products;
+        this.inventory = inventory;
+    }
+
+    static EmbeddedServices start(String apiKey) {
+        ConfigurableApplicationContext products = new SpringApplicationBuilder(ProductsServiceApplication.class)
+                .properties("spring.config.location=classpath:/loadtest/products-service.properties",
+                        "api.key=" + apiKey)
+                .run();
+        try {
+            ConfigurableApplicationContext inventory = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                    .properties("spring.config.location=classpath:/loadtest/inventory-service.properties",
+                            "api.key=" + apiKey,
+                            "products.service.url=" + url(products))
+                    .run();
+            return new EmbeddedServices(products, inventory);
+        } catch (RuntimeException e) {
+            products.close();
+            throw e;
+        }
+    }
+
+    String productsUrl() {
+        return url(products);
+    }
+
+    String inventoryUrl() {
+        return url(inventory);
+    }
+
+    @Override
+    public void close() {
+        inventory.close();
+        products.close();
+    }
+
+    private static String url(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+}
@@ -0,0 +1,39 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencias y resultados de un endpoint durante una etapa. La latencia se
+ * mide desde el instante en que la petición debía salir según la tasa, no
+ * desde que salió, para no ocultar las esperas (coordinated omission).
+ */
+final class EndpointStats {
+
+    /** Latencias en microsegundos. */
+    final Histogram latency = new ConcurrentHistogram(3);
+    final LongAdder success = new LongAdder();
+    final LongAdder clientErrors = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+
+    void record(long latencyNanos, int status) {
+        latency.recordValue(Math.max(0, latencyNanos / 1_000));
+        if (status < 0) {
+            failures.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            success.increment();
+        }
+    }
+
+    long completed() {
+        return latency.getTotalCount();
+    }
+}
@@ -0,0 +1,88 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prueba de carga de extremo a extremo: levanta ambos servicios (o usa los
+ * indicados), crea {@code products} productos con stock y reproduce la
+ * mezcla de peticiones a cada tasa de {@code rates}. Ver
+ * {@link LoadTestOptions} para las opciones.
+ *
+ * <p>Ejecutar con {@code mvn package exec:exec -Dloadtest.args="rates=100,200"}.</p>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        RequestMix mix = RequestMix.load(options.mix(), objectMapper);
+        Files.createDirectories(options.output());
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        try (EmbeddedServices services = options.external() ? null : EmbeddedServices.start(options.apiKey())) {
+            Map<String, String> baseUrls = services == null
+                    ? Map.of("products", options.productsUrl(), "inventory", options.inventoryUrl())
+                    : Map.of("products", services.productsUrl(), "inventory", services.inventoryUrl());
+            List<Long> productIds = seed(httpClient, objectMapper, baseUrls, options);
+            System.out.printf("[loadtest] %d productos creados con stock %d en %s%n",
+                    productIds.size(), options.stock(), baseUrls);
+
+            OpenLoopRunner runner = new OpenLoopRunner(httpClient, mix, productIds, baseUrls, options);
+            if (!options.warmup().isZero()) {
+                runner.run(options.rates().get(0), options.warmup());
+            }
+            Report report = new Report(options.output(), objectMapper);
+            for (int rate : options.rates()) {
+                report.add(runner.run(rate, options.duration()));
+            }
+            System.out.printf("[loadtest] resultados en %s%n", options.output().toAbsolutePath());
+        }
+    }
+
+    /** Crea los productos en products-service y les asigna stock en inventory-service. */
+    private static List<Long> seed(HttpClient httpClient, ObjectMapper objectMapper, Map<String, String> baseUrls,
+                                   LoadTestOptions options) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>(options.products());
+        for (int i = 1; i <= options.products(); i++) {
+            String product = objectMapper.writeValueAsString(
+                    Map.of("name", "Producto de carga " + i, "price", 10.0, "description", "Prueba de carga"));
+            HttpResponse<String> created = send(httpClient, HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrls.get("products") + "/api/products"))
+                    .header("X-API-KEY", options.apiKey())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(product))
+                    .build());
+            long id = objectMapper.readTree(created.body()).path("id").asLong();
+            send(httpClient, HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrls.get("inventory") + "/api/inventory/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"quantity\":" + options.stock() + "}"))
+                    .build());
+            ids.add(id);
+        }
+        return List.copyOf(ids);
+    }
+
+    private static HttpResponse<String> send(HttpClient httpClient, HttpRequest request)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Fallo al preparar los datos: " + request.method() + " " + request.uri()
+                    + " respondió " + response.statusCode() + " " + response.body());
+        }
+        return response;
+    }
+}
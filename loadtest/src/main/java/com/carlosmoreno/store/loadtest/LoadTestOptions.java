@@ -0,0 +1,88 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Opciones de la prueba, como argumentos {@code clave=valor}:
+ *
+ * <ul>
+ * <li>{@code rates}: tasas a probar en orden, en peticiones por segundo (por defecto {@code 100}).</li>
+ * <li>{@code duration}: duración de cada tasa ({@code 30s}).</li>
+ * <li>{@code warmup}: calentamiento a la primera tasa, sin medir ({@code 10s}).</li>
+ * <li>{@code mix}: fichero JSONL con la mezcla de peticiones; por defecto la incluida en el módulo.</li>
+ * <li>{@code products}: productos a crear antes de la prueba ({@code 100}).</li>
+ * <li>{@code stock}: stock inicial de cada producto ({@code 1000000000}).</li>
+ * <li>{@code seed}: semilla de la selección de peticiones ({@code 42}).</li>
+ * <li>{@code timeout}: timeout de cada petición ({@code 10s}).</li>
+ * <li>{@code max-in-flight}: peticiones pendientes a partir de las cuales las nuevas se
+ * descartan y se cuentan como rechazadas ({@code 10000}).</li>
+ * <li>{@code products-url} y {@code inventory-url}: servicios ya levantados; si se omiten se
+ * arrancan ambos en este proceso sobre H2.</li>
+ * <li>{@code api-key}: API key de products-service ({@code loadtest-api-key}).</li>
+ * <li>{@code output}: directorio de resultados ({@code target/loadtest}).</li>
+ * </ul>
+ */
+record LoadTestOptions(List<Integer> rates,
+                       Duration duration,
+                       Duration warmup,
+                       String mix,
+                       int products,
+                       long stock,
+                       long seed,
+                       Duration timeout,
+                       int maxInFlight,
+                       String productsUrl,
+                       String inventoryUrl,
+                       String apiKey,
+                       Path output) {
+
+    private static final Set<String> KEYS = Set.of("rates", "duration", "warmup", "mix", "products", "stock",
+            "seed", "timeout", "max-in-flight", "products-url", "inventory-url", "api-key", "output");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0 || !KEYS.contains(option.substring(0, eq))) {
+                throw new IllegalArgumentException("Opción desconocida: " + arg + " (válidas: " + KEYS + ")");
+            }
+            values.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                Arrays.stream(values.getOrDefault("rates", "100").split(",")).map(String::trim)
+                        .map(Integer::parseInt).toList(),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "30s")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                values.get("mix"),
+                Integer.parseInt(values.getOrDefault("products", "100")),
+                Long.parseLong(values.getOrDefault("stock", "1000000000")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                DurationStyle.detectAndParse(values.getOrDefault("timeout", "10s")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                values.get("products-url"),
+                values.get("inventory-url"),
+                values.getOrDefault("api-key", "loadtest-api-key"),
+                Path.of(values.getOrDefault("output", "target/loadtest")));
+        if (options.rates.stream().anyMatch(rate -> rate <= 0) || options.products <= 0) {
+            throw new IllegalArgumentException("rates y products deben ser positivos");
+        }
+        if ((options.productsUrl == null) != (options.inventoryUrl == null)) {
+            throw new IllegalArgumentException("products-url e inventory-url se indican juntos");
+        }
+        return options;
+    }
+
+    /** Si los servicios ya están levantados fuera de este proceso. */
+    boolean external() {
+        return productsUrl != null;
+    }
+}
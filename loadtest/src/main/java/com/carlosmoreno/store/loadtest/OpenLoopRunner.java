@@ -0,0 +1,98 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de lazo abierto: las peticiones salen a la tasa fijada
+ * sin esperar a que terminen las anteriores, como llegarían de clientes
+ * independientes. Si el emisor se retrasa, las siguientes salen en cuanto
+ * puede y su latencia se cuenta desde el instante previsto. Cada etapa
+ * espera hasta {@link #DRAIN_TIMEOUT} a sus peticiones pendientes; las que
+ * siguen sin respuesta cuentan como fallos de esa etapa y no se mezclan con
+ * la siguiente.
+ */
+final class OpenLoopRunner {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final RequestMix mix;
+    private final List<Long> productIds;
+    private final Map<String, String> baseUrls;
+    private final LoadTestOptions options;
+    private final Random random;
+
+    OpenLoopRunner(HttpClient httpClient, RequestMix mix, List<Long> productIds, Map<String, String> baseUrls,
+                   LoadTestOptions options) {
+        this.httpClient = httpClient;
+        this.mix = mix;
+        this.productIds = productIds;
+        this.baseUrls = baseUrls;
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    /** Resultado de una etapa: estadísticas por endpoint en el orden de la mezcla. */
+    record StageResult(int rate, Duration duration, Duration elapsed, Map<String, EndpointStats> endpoints) {
+    }
+
+    StageResult run(int rate, Duration duration) throws InterruptedException {
+        Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        mix.endpoints().forEach(name -> endpoints.putIfAbsent(name, new EndpointStats()));
+        long total = rate * duration.toMillis() / 1_000;
+        Set<Pending> inFlight = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * 1_000_000_000L / rate;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RequestMix.Request request = mix.next(random, productIds, baseUrls, options.apiKey(), options.timeout());
+            EndpointStats stats = endpoints.get(request.name());
+            if (inFlight.size() >= options.maxInFlight()) {
+                stats.rejected.increment();
+                continue;
+            }
+            Pending call = new Pending(stats, intended);
+            inFlight.add(call);
+            httpClient.sendAsync(request.http(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (inFlight.remove(call)) {
+                            stats.record(System.nanoTime() - intended, failure == null ? response.statusCode() : -1);
+                        }
+                    });
+        }
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        for (Pending call : inFlight) {
+            if (inFlight.remove(call)) {
+                call.stats.record(System.nanoTime() - call.intended, -1);
+            }
+        }
+        return new StageResult(rate, duration, Duration.ofNanos(System.nanoTime() - start), endpoints);
+    }
+
+    /** Petición enviada y sin respuesta; la identidad distingue dos del mismo endpoint. */
+    private static final class Pending {
+
+        final EndpointStats stats;
+        final long intended;
+
+        Pending(EndpointStats stats, long intended) {
+            this.stats = stats;
+            this.intended = intended;
+        }
+    }
+}
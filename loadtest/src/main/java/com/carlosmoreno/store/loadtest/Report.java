@@ -0,0 +1,121 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Informe de cada etapa: tabla por endpoint en consola, la distribución
+ * completa de latencias de HdrHistogram en {@code <output>/rate-<tasa>/*.hgrm}
+ * (en milisegundos) y un {@code summary.json} con todas las etapas para
+ * comparar ejecuciones.
+ */
+final class Report {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final Path output;
+    private final ObjectMapper objectMapper;
+    private final List<Map<String, Object>> stages = new ArrayList<>();
+
+    Report(Path output, ObjectMapper objectMapper) {
+        this.output = output;
+        this.objectMapper = objectMapper;
+    }
+
+    void add(OpenLoopRunner.StageResult result) throws IOException {
+        double seconds = result.elapsed().toNanos() / 1e9;
+        long sent = 0;
+        long completed = 0;
+        Histogram all = new Histogram(3);
+        for (EndpointStats stats : result.endpoints().values()) {
+            sent += stats.completed() + stats.rejected.sum();
+            completed += stats.completed();
+            all.add(stats.latency);
+        }
+        System.out.printf("[loadtest] tasa %d req/s durante %ds: %d enviadas, %d completadas, %.1f req/s%n",
+                result.rate(), result.duration().toSeconds(), sent, completed, completed / seconds);
+        System.out.printf("  %-40s %8s %8s %7s %7s %7s %7s %7s %9s %9s %9s %9s %9s%n", "endpoint", "count", "req/s",
+                "2xx", "4xx", "5xx", "error", "rechaz", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        Path stageDir = output.resolve("rate-" + result.rate());
+        Files.createDirectories(stageDir);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, EndpointStats> entry : result.endpoints().entrySet()) {
+            EndpointStats stats = entry.getValue();
+            if (stats.completed() + stats.rejected.sum() == 0) {
+                continue;
+            }
+            print(entry.getKey(), stats, seconds);
+            endpoints.put(entry.getKey(), summary(stats, seconds));
+            writeDistribution(stageDir.resolve(fileName(entry.getKey()) + ".hgrm"), stats.latency);
+        }
+        writeDistribution(stageDir.resolve("all.hgrm"), all);
+
+        Map<String, Object> stage = new LinkedHashMap<>();
+        stage.put("rate", result.rate());
+        stage.put("durationSeconds", result.duration().toSeconds());
+        stage.put("sent", sent);
+        stage.put("completed", completed);
+        stage.put("throughput", completed / seconds);
+        stage.put("latencyMillis", percentiles(all));
+        stage.put("endpoints", endpoints);
+        stages.add(stage);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.resolve("summary.json").toFile(), stages);
+    }
+
+    private static void print(String name, EndpointStats stats, double seconds) {
+        Histogram h = stats.latency;
+        System.out.printf("  %-40s %8d %8.1f %7d %7d %7d %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                stats.completed(), stats.completed() / seconds, stats.success.sum(), stats.clientErrors.sum(),
+                stats.serverErrors.sum(), stats.failures.sum(), stats.rejected.sum(),
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+    }
+
+    private static Map<String, Object> summary(EndpointStats stats, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", stats.completed());
+        summary.put("throughput", stats.completed() / seconds);
+        summary.put("success", stats.success.sum());
+        summary.put("clientErrors", stats.clientErrors.sum());
+        summary.put("serverErrors", stats.serverErrors.sum());
+        summary.put("failures", stats.failures.sum());
+        summary.put("rejected", stats.rejected.sum());
+        summary.put("latencyMillis", percentiles(stats.latency));
+        return summary;
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double p : PERCENTILES) {
+            values.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)),
+                    millis(histogram.getValueAtPercentile(p)));
+        }
+        values.put("max", millis(histogram.getMaxValue()));
+        return values;
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1_000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    private static String fileName(String endpoint) {
+        return endpoint.replaceAll("[^A-Za-z0-9]+", "-").replaceAll("(^-|-$)", "").toLowerCase();
+    }
+}
@@ -0,0 +1,144 @@
+package com.carlosmoreno.store.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Mezcla de peticiones a reproducir, leída de un fichero JSONL con una
+ * plantilla por línea:
+ *
+ * <pre>
+ * {"name":"purchase","service":"inventory","method":"POST","path":"/api/purchase",
+ *  "headers":{"Idempotency-Key":"{uuid}"},"body":{"productId":"{productId}","quantity":1},"weight":40}
+ * </pre>
+ *
+ * <p>Cada petición se elige al azar según {@code weight}. En la ruta, las
+ * cabeceras y el cuerpo, cada {@code {productId}} se sustituye por un
+ * producto al azar de los creados (en el cuerpo también se quitan las
+ * comillas, así que queda numérico) y cada {@code {uuid}} por un UUID
+ * nuevo. {@code name} identifica el endpoint en el informe.</p>
+ */
+final class RequestMix {
+
+    static final String DEFAULT_MIX = "/loadtest/request-mix.jsonl";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\"?\\{(productId|uuid)\\}\"?");
+
+    private record Template(String name, String service, String method, String path,
+                            Map<String, String> headers, String body, int weight) {
+    }
+
+    private final List<Template> templates;
+    private final int totalWeight;
+
+    private RequestMix(List<Template> templates) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla de peticiones está vacía");
+        }
+        this.templates = templates;
+        this.totalWeight = templates.stream().mapToInt(Template::weight).sum();
+    }
+
+    static RequestMix load(String file, ObjectMapper objectMapper) throws IOException {
+        try (InputStream in = file == null
+                ? RequestMix.class.getResourceAsStream(DEFAULT_MIX)
+                : Files.newInputStream(Path.of(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<Template> templates = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                Map<String, String> headers = node.has("headers")
+                        ? objectMapper.convertValue(node.get("headers"), objectMapper.getTypeFactory()
+                                .constructMapType(Map.class, String.class, String.class))
+                        : Map.of();
+                templates.add(new Template(
+                        node.path("name").asText(node.path("method").asText() + " " + node.path("path").asText()),
+                        node.path("service").asText("inventory"),
+                        node.path("method").asText("GET"),
+                        node.path("path").asText(),
+                        headers,
+                        node.has("body") ? objectMapper.writeValueAsString(node.get("body")) : null,
+                        node.path("weight").asInt(1)));
+            }
+            return new RequestMix(templates);
+        }
+    }
+
+    List<String> endpoints() {
+        return templates.stream().map(Template::name).toList();
+    }
+
+    /** Petición concreta elegida al azar; {@code name} es el endpoint para el informe. */
+    record Request(String name, HttpRequest http) {
+    }
+
+    Request next(Random random, List<Long> productIds, Map<String, String> baseUrls, String apiKey,
+                 Duration timeout) {
+        Template template = pick(random);
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrls.get(template.service()) + fill(template.path(), random, productIds, false)))
+                .timeout(timeout)
+                .header("X-API-KEY", apiKey);
+        template.headers().forEach((name, value) -> builder.header(name, fill(value, random, productIds, false)));
+        if (template.body() == null) {
+            builder.method(template.method(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.header("Content-Type", "application/json")
+                    .method(template.method(),
+                            HttpRequest.BodyPublishers.ofString(fill(template.body(), random, productIds, true)));
+        }
+        return new Request(template.name(), builder.build());
+    }
+
+    private Template pick(Random random) {
+        int target = random.nextInt(totalWeight);
+        for (Template template : templates) {
+            target -= template.weight();
+            if (target < 0) {
+                return template;
+            }
+        }
+        throw new IllegalStateException("Pesos de la mezcla inválidos");
+    }
+
+    private static String fill(String text, Random random, List<Long> productIds, boolean json) {
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String match = matcher.group();
+            boolean quoted = match.startsWith("\"") && match.endsWith("\"");
+            String value;
+            if ("productId".equals(matcher.group(1))) {
+                String id = String.valueOf(productIds.get(random.nextInt(productIds.size())));
+                value = json && quoted ? id : match.replace("{productId}", id);
+            } else {
+                value = match.replace("{uuid}", UUID.randomUUID().toString());
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+}
@@ -1,47 +1,336 @@
 package com.carlosmoreno.store.products_service.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.model.ProductSnapshot;
+import com.carlosmoreno.store.products_service.service.ProductImportService;
 import com.carlosmoreno.store.products_service.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    private static final String CBOR_ETAG_SUFFIX = "-cbor";
+
     private final ProductService service;
+    private final ProductImportService importService;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final CacheControl cacheControl;
+    private final Duration importTimeout;
 
-    public ProductController(ProductService service) {
+    /**
+     * {@code products.http.cache-max-age} es el tiempo que un cliente puede
+     * reutilizar una respuesta sin preguntar; con cero debe revalidarla
+     * siempre con {@code If-None-Match}. {@code products.import.timeout}
+     * sustituye, solo para la importación, al timeout de las peticiones
+     * asíncronas (30 s en Tomcat), que cortaría la respuesta de un catálogo
+     * grande a medias.
+     */
+    public ProductController(ProductService service,
+                             ProductImportService importService,
+                             ObjectMapper objectMapper,
+                             @Value("${products.page.default-size:100}") int defaultPageSize,
+                             @Value("${products.page.max-size:1000}") int maxPageSize,
+                             @Value("${products.http.cache-max-age:0s}") Duration cacheMaxAge,
+                             @Value("${products.import.timeout:30m}") Duration importTimeout) {
         this.service = service;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.cacheControl = cacheMaxAge.isZero()
+                ? CacheControl.noCache().cachePrivate()
+                : CacheControl.maxAge(cacheMaxAge).cachePrivate();
+        this.importTimeout = importTimeout;
     }
 
+    /**
+     * Crea o actualiza un producto. Si se envía {@code version} y el producto
+     * cambió desde entonces se responde 409.
+     */
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
-        Product saved = service.save(product);
-        return ResponseEntity
-            .status(HttpStatus.CREATED)
-            .body(saved);
+        try {
+            Product saved = service.save(product);
+            return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(saved);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Product " + product.getId() + " was modified concurrently"));
+        }
     }
 
+    /**
+     * Devuelve el producto con su versión como ETag ({@code "5"} en JSON,
+     * {@code "5-cbor"} en CBOR: cada representación tiene el suyo, y
+     * {@code Vary: Accept} evita que una caché sirva una por la otra). Si
+     * {@code If-None-Match} coincide con la versión conocida en memoria se
+     * responde 304 sin consultar la base de datos; si no, Spring compara el
+     * ETag de la respuesta y también contesta 304 cuando coincide.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                  String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                  String accept) {
+        String suffix = etagSuffix(accept);
+        Long known = ifNoneMatch == null ? null : service.knownVersion(id);
+        if (known != null && matches(ifNoneMatch, etag(known, suffix))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag(known, suffix))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
         return service.findById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok()
+                        .eTag(etag(product.getVersion(), suffix))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .cacheControl(cacheControl)
+                        .body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+        return service.deleteById(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Eventos de cambio del catálogo posteriores a {@code after}, en orden de
+     * confirmación. El consumidor pide la siguiente página con el
+     * {@code seq} del último evento; un 410 indica que la retención ya borró
+     * eventos posteriores a {@code after} y que debe recargar el snapshot.
+     */
+    @GetMapping("/events")
+    public ResponseEntity<List<ProductEvent>> getEvents(@RequestParam(defaultValue = "0") long after,
+                                                        @RequestParam(required = false) Integer size) {
+        int pageSize = Math.min(size == null ? defaultPageSize : Math.max(size, 1), maxPageSize);
+        return service.findEvents(after, pageSize)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).build());
+    }
+
+    /**
+     * Ids de todo el catálogo y el cursor de eventos desde el que un
+     * consumidor debe continuar.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<ProductSnapshot> getSnapshot() {
+        return ResponseEntity.ok(service.snapshot());
+    }
+
+    /**
+     * Consulta varios productos en una sola llamada. Los ids inexistentes
+     * simplemente no aparecen en la respuesta.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "A batch can contain at most " + MAX_BATCH_SIZE + " ids"));
+        }
+        return ResponseEntity.ok(service.findAllById(ids));
+    }
+
+    /**
+     * Lista el catálogo por páginas usando el id como cursor. Si la página
+     * viene completa, la cabecera {@code X-Next-Cursor} indica el valor de
+     * {@code after} para pedir la siguiente. El ETag resume los ids y
+     * versiones de la página, así que un {@code If-None-Match} que coincide
+     * se responde con 304 sin cuerpo (la consulta sí se hace). Como en
+     * {@link #getProductById}, el ETag distingue JSON de CBOR.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = service.findAll();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                        String accept) {
+        int pageSize = Math.min(size == null ? defaultPageSize : Math.max(size, 1), maxPageSize);
+        List<Product> products = service.findPage(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(pageEtag(products, etagSuffix(accept)))
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(cacheControl);
+        if (products.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(products.get(products.size() - 1).getId()));
+        }
+        return response.body(products);
+    }
+
+    /**
+     * Busca productos por texto ({@code q}: todas las palabras, como prefijo,
+     * en nombre o descripción) y/o rango de precio, desde el índice en
+     * memoria. Se pagina igual que {@link #getAllProducts}. Responde 503
+     * mientras el índice se carga al arrancar.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestParam(required = false) String q,
+                                            @RequestParam(required = false) Double minPrice,
+                                            @RequestParam(required = false) Double maxPrice,
+                                            @RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer size) {
+        if ((q == null || q.isBlank()) && minPrice == null && maxPrice == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At least one of q, minPrice or maxPrice is required"));
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest().body(Map.of("error", "minPrice cannot be greater than maxPrice"));
+        }
+        if (!service.isSearchReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "The search index is still loading"));
+        }
+        int pageSize = Math.min(size == null ? defaultPageSize : Math.max(size, 1), maxPageSize);
+        List<Product> products = service.search(q, minPrice, maxPrice, after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (products.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(products.get(products.size() - 1).getId()));
+        }
+        return response.body(products);
+    }
+
+    /**
+     * Exporta el catálogo completo como NDJSON (un producto por línea),
+     * escribiendo cada fila en cuanto se lee de la base de datos.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = out -> service.forEachProduct(product -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Importa productos desde NDJSON, leyendo el cuerpo en streaming. La
+     * respuesta es NDJSON con una línea por fila ({@code row} e {@code id}, o
+     * {@code error}), escrita a medida que se confirma cada lote.
+     */
+    @PostMapping(value = "/import", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> importNdjson(InputStream body, HttpServletRequest request) {
+        extendAsyncTimeout(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> importService.importNdjson(body, out));
+    }
+
+    /**
+     * Igual que {@link #importNdjson(InputStream, HttpServletRequest)} con un
+     * CSV con cabecera {@code name,price,description}.
+     */
+    @PostMapping(value = "/import", consumes = CSV, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> importCsv(InputStream body, HttpServletRequest request) {
+        extendAsyncTimeout(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> importService.importCsv(body, out));
+    }
+
+    /** El {@link StreamingResponseBody} se ejecuta con el timeout de esta petición asíncrona. */
+    private void extendAsyncTimeout(HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(importTimeout.toMillis());
+    }
+
+    private static String etag(Long version, String suffix) {
+        return "\"" + version + suffix + "\"";
+    }
+
+    private static String pageEtag(List<Product> products, String suffix) {
+        StringBuilder versions = new StringBuilder();
+        products.forEach(p -> versions.append(p.getId()).append(':').append(p.getVersion()).append(','));
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + suffix + "\"";
+    }
+
+    /**
+     * Sufijo del ETag según la representación que elegirá la negociación de
+     * contenido: el primer tipo de {@code Accept}, ordenado por calidad y
+     * especificidad como hace Spring, que admita JSON o CBOR. Un comodín
+     * acaba en JSON, que es el primer conversor registrado.
+     */
+    private static String etagSuffix(String accept) {
+        if (accept == null) {
+            return "";
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType type : accepted) {
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return "";
+                }
+                if (type.includes(MediaType.APPLICATION_CBOR)) {
+                    return CBOR_ETAG_SUFFIX;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Spring rechazará la cabecera al negociar el contenido.
+        }
+        return "";
+    }
+
+    /** Comparación débil de {@code If-None-Match}, como pide la RFC 9110 para GET. */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
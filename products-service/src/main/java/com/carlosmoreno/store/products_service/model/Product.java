@@ -6,6 +6,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,8 +20,19 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 public class Product {
+
+    /** Ids que cada instancia reserva de una vez en {@code id_generators}. */
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    /**
+     * Los ids se reservan por bloques en una tabla (MySQL no tiene secuencias)
+     * en lugar de usar AUTO_INCREMENT, para que Hibernate pueda agrupar los
+     * INSERT en lotes JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_ids")
+    @TableGenerator(name = "product_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "products", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -29,4 +42,12 @@ public class Product {
     private Double price;
 
     private String description;
+
+    /**
+     * Versión del producto: Hibernate la incrementa en cada modificación y
+     * se publica como ETag en {@code GET /api/products/{id}}.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.carlosmoreno.store.products_service.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de cambio del catálogo guardado en la misma transacción que el
+ * cambio (patrón outbox). Los consumidores lo leen en orden de {@code seq},
+ * que asigna {@code ProductEventSequencer} una vez confirmada la transacción.
+ */
+@Entity
+@Table(name = "product_events", indexes = @Index(name = "idx_product_events_seq", columnList = "seq", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, length = 16)
+    private String type;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /** Posición en el orden de confirmación; null hasta que se numera. */
+    private Long seq;
+}
@@ -0,0 +1,23 @@
+package com.carlosmoreno.store.products_service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Una línea de la respuesta de {@code POST /api/products/import}: el id
+ * asignado a la fila {@code row} o el motivo por el que no se importó.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportResult {
+
+    /** Posición de la fila en el cuerpo: línea en NDJSON y en CSV (contando la cabecera). */
+    private long row;
+    private Long id;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.carlosmoreno.store.products_service.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ids de todos los productos junto con el último evento que ya reflejan.
+ * Un consumidor carga los ids y continúa leyendo eventos desde {@code cursor}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshot {
+    private long cursor;
+    private List<Long> ids;
+}
@@ -0,0 +1,14 @@
+package com.carlosmoreno.store.products_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Escrituras masivas de eventos del catálogo, fuera de JPA. */
+public interface ProductEventBulkRepository {
+
+    /**
+     * Inserta un evento {@code type} por producto en un lote JDBC. Como los
+     * demás, se numeran en orden de confirmación al confirmarse el lote.
+     */
+    void insertAll(List<Long> productIds, String type, LocalDateTime createdAt);
+}
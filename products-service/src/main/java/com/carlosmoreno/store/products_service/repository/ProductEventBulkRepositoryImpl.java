@@ -0,0 +1,27 @@
+package com.carlosmoreno.store.products_service.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ProductEventBulkRepositoryImpl implements ProductEventBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductEventBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Long> productIds, String type, LocalDateTime createdAt) {
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        jdbcTemplate.batchUpdate("INSERT INTO product_events (product_id, type, created_at) VALUES (?, ?, ?)",
+                productIds, productIds.size(), (ps, productId) -> {
+                    ps.setLong(1, productId);
+                    ps.setString(2, type);
+                    ps.setTimestamp(3, timestamp);
+                });
+    }
+}
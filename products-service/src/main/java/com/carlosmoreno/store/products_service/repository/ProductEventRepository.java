@@ -0,0 +1,17 @@
+package com.carlosmoreno.store.products_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+
+public interface ProductEventRepository extends JpaRepository<ProductEvent, Long>, ProductEventBulkRepository {
+
+    List<ProductEvent> findBySeqGreaterThanOrderBySeqAsc(Long afterSeq, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(e.seq), 0) FROM ProductEvent e")
+    long findLastSeq();
+}
@@ -0,0 +1,55 @@
+package com.carlosmoreno.store.products_service.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.carlosmoreno.store.products_service.model.Product;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Ajusta el generador de ids de {@link Product} a los ids ya existentes.
+ * Las tablas creadas con AUTO_INCREMENT tienen filas cuyo id no salió de
+ * {@code id_generators}; sin este ajuste el generador empezaría en 1 y
+ * chocaría con ellas. Se ejecuta al arrancar, con el esquema ya creado, y
+ * no hace nada si el generador ya va por delante.
+ */
+@Component
+public class ProductIdGenerator {
+
+    private static final String NAME = "products";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** {@code entityManagerFactory} solo fuerza a que el esquema exista antes. */
+    public ProductIdGenerator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignWithExistingIds() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM products", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long floor = maxId + Product.ID_ALLOCATION_SIZE + 1;
+        String update = "UPDATE id_generators SET next_val = ? WHERE name = ? AND next_val < ?";
+        if (jdbcTemplate.update(update, floor, NAME, floor) > 0 || exists()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO id_generators (name, next_val) VALUES (?, ?)", NAME, floor);
+        } catch (DuplicateKeyException e) {
+            // Otra instancia creó la fila a la vez
+            jdbcTemplate.update(update, floor, NAME, floor);
+        }
+    }
+
+    private boolean exists() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generators WHERE name = ?",
+                Integer.class, NAME);
+        return rows != null && rows > 0;
+    }
+}
@@ -2,6 +2,7 @@ package com.carlosmoreno.store.products_service.security;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,9 +19,17 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class ApiKeyFilter extends OncePerRequestFilter {
 
+    /** Endpoints de monitorización consultados sin API key (health checks y Prometheus). */
+    static final Set<String> PUBLIC_PATHS = Set.of("/actuator/health", "/actuator/prometheus");
+
     @Value("${api.key}")
     private String validApiKey;
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_PATHS.contains(request.getRequestURI());
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
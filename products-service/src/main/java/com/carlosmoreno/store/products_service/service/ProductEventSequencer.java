@@ -0,0 +1,185 @@
+package com.carlosmoreno.store.products_service.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Numera los eventos del outbox en orden de confirmación y purga los
+ * antiguos.
+ *
+ * <p>El id AUTO_INCREMENT se asigna al insertar, pero las transacciones se
+ * confirman en otro orden: una transacción lenta o un lote grande de
+ * importación puede hacer visible un id menor cuando un consumidor ya pasó
+ * por encima. Cada {@code products.events.sequence-interval} se numeran, en
+ * orden de id, los eventos ya confirmados que aún no tienen {@code seq}; un
+ * evento que se confirma tarde recibe un {@code seq} mayor que todos los ya
+ * entregados, así que un consumidor que lee por {@code seq} no lo pierde.
+ * Las instancias se turnan con el bloqueo de la fila {@code product_events}
+ * de {@code id_generators}, de modo que los {@code seq} son consecutivos.</p>
+ *
+ * <p>Los eventos numerados con más de {@code products.events.retention} se
+ * borran, salvo el último. Un consumidor cuyo cursor se queda por detrás de
+ * lo borrado recibe un 410 y debe recargar el snapshot.</p>
+ */
+@Component
+public class ProductEventSequencer {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventSequencer.class);
+    private static final String NAME = "product_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private final int batchSize;
+
+    private ScheduledExecutorService sequencer;
+
+    /** {@code entityManagerFactory} solo fuerza a que el esquema exista antes. */
+    public ProductEventSequencer(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 EntityManagerFactory entityManagerFactory,
+                                 @Value("${products.events.sequence-interval:100ms}") Duration interval,
+                                 @Value("${products.events.sequence-batch-size:1000}") int batchSize,
+                                 @Value("${products.events.retention:7d}") Duration retention,
+                                 @Value("${products.events.purge-interval:1h}") Duration purgeInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.purgeInterval = purgeInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        createCounter();
+        sequencer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-event-sequencer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sequencer.scheduleWithFixedDelay(this::assignPending, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        sequencer.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval.toMillis(), purgeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sequencer != null) {
+            sequencer.shutdownNow();
+        }
+    }
+
+    /**
+     * Numera hasta {@code products.events.sequence-batch-size} eventos
+     * confirmados sin {@code seq}.
+     *
+     * @return eventos numerados
+     */
+    public int assign() {
+        Integer assigned = transactionTemplate.execute(tx -> {
+            // Bloquear la fila antes de leer: la lectura ve todo lo confirmado hasta ese momento
+            Long next = jdbcTemplate.queryForObject("SELECT next_val FROM id_generators WHERE name = ? FOR UPDATE",
+                    Long.class, NAME);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM product_events WHERE seq IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Object[]> updates = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                updates.add(new Object[] { next + i, ids.get(i) });
+            }
+            jdbcTemplate.batchUpdate("UPDATE product_events SET seq = ? WHERE id = ?", updates);
+            jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE name = ?", next + ids.size(), NAME);
+            return ids.size();
+        });
+        return assigned == null ? 0 : assigned;
+    }
+
+    /**
+     * Borra los eventos numerados anteriores a la retención, en tramos de
+     * {@code products.events.sequence-batch-size}, conservando el último.
+     *
+     * @return eventos borrados
+     */
+    public int purge() {
+        Long horizon = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM product_events WHERE created_at < ?",
+                Long.class, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        Long last = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM product_events", Long.class);
+        Long first = jdbcTemplate.queryForObject("SELECT MIN(seq) FROM product_events", Long.class);
+        if (horizon == null || last == null || first == null) {
+            return 0;
+        }
+        long upTo = Math.min(horizon, last - 1);
+        int deleted = 0;
+        for (long from = first; from <= upTo; from += batchSize) {
+            deleted += jdbcTemplate.update("DELETE FROM product_events WHERE seq <= ?",
+                    Math.min(from + batchSize - 1, upTo));
+        }
+        return deleted;
+    }
+
+    private void assignPending() {
+        try {
+            int assigned;
+            do {
+                assigned = assign();
+            } while (assigned == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron numerar los eventos del catálogo: {}", e.getMessage());
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                log.info("Purgados {} eventos del catálogo con más de {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron purgar los eventos del catálogo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crea la fila del contador la primera vez. Los eventos que ya existían
+     * reciben su id como {@code seq}, de modo que los cursores de los
+     * consumidores, que antes eran ids, siguen siendo válidos.
+     */
+    private void createCounter() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generators WHERE name = ?",
+                Integer.class, NAME);
+        if (rows != null && rows > 0) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM product_events", Long.class);
+        try {
+            jdbcTemplate.update("INSERT INTO id_generators (name, next_val) VALUES (?, ?)", NAME, maxId + 1);
+        } catch (DuplicateKeyException e) {
+            // Otra instancia creó la fila a la vez y numera los eventos existentes
+            return;
+        }
+        jdbcTemplate.update("UPDATE product_events SET seq = id WHERE seq IS NULL AND id <= ?", maxId);
+    }
+}
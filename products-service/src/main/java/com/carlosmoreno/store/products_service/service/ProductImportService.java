@@ -0,0 +1,272 @@
+package com.carlosmoreno.store.products_service.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.model.ProductImportResult;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * Importación masiva del catálogo ({@code POST /api/products/import}) desde
+ * NDJSON (un producto por línea) o CSV con cabecera
+ * {@code name,price,description}.
+ *
+ * <p>El cuerpo se lee línea a línea y se inserta en transacciones de
+ * {@code products.import.batch-size} productos, cada una con sus eventos
+ * {@code CREATED}. Los ids salen de bloques ya reservados, así que Hibernate
+ * agrupa los INSERT en lotes JDBC. Tras cada commit se escribe en
+ * {@code out} una línea por fila con el id asignado o el error, de modo que
+ * la memoria no depende del tamaño del catálogo. Si la importación se corta,
+ * los lotes ya confirmados quedan importados.</p>
+ *
+ * <p>Las longitudes de {@code name} y {@code description} se validan antes de
+ * insertar. Si aun así un lote falla, se reintenta fila a fila para que solo
+ * las filas que no se pueden guardar se informen como error; el detalle del
+ * fallo queda en el log, no en la respuesta.</p>
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    /** Longitud de las columnas {@code name} y {@code description} (VARCHAR(255)). */
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final EntityManager entityManager;
+    private final ProductEventRepository eventRepository;
+    private final ProductSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ProductImportService(EntityManager entityManager,
+                                ProductEventRepository eventRepository,
+                                ProductSearchIndex searchIndex,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${products.import.batch-size:1000}") int batchSize) {
+        this.entityManager = entityManager;
+        this.eventRepository = eventRepository;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /** Fila del cuerpo: el producto a crear o el motivo por el que no es válido. */
+    private record Row(long row, Product product, String error) {
+    }
+
+    public void importNdjson(InputStream body, OutputStream out) throws IOException {
+        Batch batch = new Batch(out);
+        try (BufferedReader reader = reader(body)) {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!text.isBlank()) {
+                    batch.add(readJson(text, line));
+                }
+            }
+        }
+        batch.flush();
+    }
+
+    /**
+     * Importa un CSV. La cabecera indica el orden de las columnas
+     * {@code name}, {@code price} y {@code description} (opcional); los
+     * valores con comas van entre comillas dobles.
+     */
+    public void importCsv(InputStream body, OutputStream out) throws IOException {
+        Batch batch = new Batch(out);
+        try (BufferedReader reader = reader(body)) {
+            String header = reader.readLine();
+            List<String> columns = header == null ? List.of() : splitCsv(header.strip());
+            int name = columns.indexOf("name");
+            int price = columns.indexOf("price");
+            int description = columns.indexOf("description");
+            if (name < 0 || price < 0) {
+                batch.write(new ProductImportResult(1, null, "The header must include the name and price columns"));
+                return;
+            }
+            long line = 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!text.isBlank()) {
+                    batch.add(readCsv(splitCsv(text), line, name, price, description));
+                }
+            }
+        }
+        batch.flush();
+    }
+
+    private Row readJson(String text, long line) {
+        try {
+            Product product = objectMapper.readValue(text, Product.class);
+            product.setId(null);
+            product.setVersion(null);
+            return validate(line, product);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Row readCsv(List<String> values, long line, int name, int price, int description) {
+        if (values.size() <= Math.max(name, price)) {
+            return new Row(line, null, "Missing columns");
+        }
+        try {
+            return validate(line, Product.builder()
+                    .name(values.get(name))
+                    .price(Double.valueOf(values.get(price).strip()))
+                    .description(description >= 0 && description < values.size() ? values.get(description) : null)
+                    .build());
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "price must be a number");
+        }
+    }
+
+    private static Row validate(long line, Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return new Row(line, null, "name is required");
+        }
+        if (product.getPrice() == null || product.getPrice() < 0) {
+            return new Row(line, null, "price is required and cannot be negative");
+        }
+        if (product.getName().length() > MAX_TEXT_LENGTH) {
+            return new Row(line, null, "name must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (product.getDescription() != null && product.getDescription().length() > MAX_TEXT_LENGTH) {
+            return new Row(line, null, "description must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        return new Row(line, product, null);
+    }
+
+    /** Separa una línea CSV respetando comillas dobles ({@code ""} dentro de un valor es una comilla). */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    /** Filas pendientes de insertar; se confirman al llegar a {@code batchSize}. */
+    private final class Batch {
+
+        private final OutputStream out;
+        private final List<Row> rows = new ArrayList<>(batchSize);
+
+        Batch(OutputStream out) {
+            this.out = out;
+        }
+
+        void add(Row row) throws IOException {
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            List<Product> products = rows.stream().map(Row::product).filter(Objects::nonNull).toList();
+            Set<Product> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (!products.isEmpty() && !insert(products)) {
+                for (Product product : products) {
+                    // persist ya les asignó id y versión en la transacción deshecha
+                    product.setId(null);
+                    product.setVersion(null);
+                    if (!insert(List.of(product))) {
+                        failed.add(product);
+                    }
+                }
+            }
+            for (Row row : rows) {
+                if (row.error() != null) {
+                    write(new ProductImportResult(row.row(), null, row.error()));
+                } else if (failed.contains(row.product())) {
+                    write(new ProductImportResult(row.row(), null, "The product could not be saved"));
+                } else {
+                    write(new ProductImportResult(row.row(), row.product().getId(), null));
+                }
+            }
+            out.flush();
+            rows.clear();
+        }
+
+        void write(ProductImportResult result) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+
+        /**
+         * Inserta los productos en una transacción y, tras el commit, los
+         * añade al índice de búsqueda; devuelve {@code false} si falló.
+         */
+        private boolean insert(List<Product> products) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    products.forEach(entityManager::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                    eventRepository.insertAll(products.stream().map(Product::getId).toList(),
+                            ProductEvent.CREATED, LocalDateTime.now());
+                });
+                searchIndex.updatedAll(products);
+                return true;
+            } catch (DataAccessException | PersistenceException e) {
+                log.warn("No se pudieron importar {} productos: {}", products.size(), e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.carlosmoreno.store.products_service.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
+import com.carlosmoreno.store.products_service.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Índice en memoria para {@code GET /api/products/search}: un índice
+ * invertido de los términos de {@code name} y {@code description} y un mapa
+ * ordenado por precio, de modo que las búsquedas no consultan la base de
+ * datos.
+ *
+ * <p>Al arrancar se reconstruye leyendo el catálogo en bloques de
+ * {@code products.search.rebuild-chunk-size} ids con
+ * {@code products.search.rebuild-threads} hilos, y después aplica cada
+ * {@code products.search.refresh-interval} los eventos del outbox posteriores
+ * al cursor leído antes de la carga, recargando los productos afectados. Así
+ * recoge también los cambios hechos por otras instancias. Las escrituras de
+ * esta instancia se aplican además en cuanto se confirma su transacción.
+ * Mientras no termine la primera carga, {@link #isReady()} devuelve
+ * {@code false}.</p>
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_LOOKUP_POSTINGS = 16;
+
+    private final ProductRepository repository;
+    private final ProductEventRepository eventRepository;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final int rebuildThreads;
+    private final int rebuildChunkSize;
+    private final int pageSize;
+
+    private final StampedLock lock = new StampedLock();
+    private Index index = new Index();
+
+    private volatile boolean ready;
+    private long cursor;
+    private ScheduledExecutorService poller;
+
+    public ProductSearchIndex(ProductRepository repository,
+                              ProductEventRepository eventRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${products.search.enabled:true}") boolean enabled,
+                              @Value("${products.search.refresh-interval:1s}") Duration refreshInterval,
+                              @Value("${products.search.rebuild-threads:4}") int rebuildThreads,
+                              @Value("${products.search.rebuild-chunk-size:1000}") int rebuildChunkSize,
+                              @Value("${products.search.page-size:1000}") int pageSize) {
+        this.repository = repository;
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.pageSize = pageSize;
+        Gauge.builder("products.search.documents", this, ProductSearchIndex::size)
+                .description("Productos en el índice de búsqueda")
+                .register(meterRegistry);
+        Gauge.builder("products.search.ready", this, search -> search.ready ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /** Producto indexado con los términos con los que se insertó, para poder quitarlo. */
+    private record Document(Product product, Set<String> terms) {
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::sync, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Productos que contienen todos los términos de {@code query} (cada uno
+     * como prefijo de una palabra del nombre o la descripción, sin distinguir
+     * mayúsculas ni tildes) y cuyo precio está entre {@code minPrice} y
+     * {@code maxPrice}, ambos incluidos. Cualquiera de los filtros puede ser
+     * {@code null}. Devuelve hasta {@code size} productos con id mayor que
+     * {@code afterId}, ordenados por id.
+     */
+    public List<Product> search(String query, Double minPrice, Double maxPrice, Long afterId, int size) {
+        Set<String> tokens = tokenize(query);
+        long stamp = lock.readLock();
+        try {
+            return index.search(tokens, minPrice, maxPrice, afterId == null ? 0L : afterId, size);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Indexa el producto al confirmarse la transacción actual, o en el acto
+     * si no hay ninguna.
+     */
+    public void updated(Product product) {
+        afterCommit(() -> updatedAll(List.of(product)));
+    }
+
+    /** Indexa productos ya confirmados. */
+    public void updatedAll(Collection<Product> products) {
+        List<Document> documents = products.stream().map(ProductSearchIndex::document).toList();
+        long stamp = lock.writeLock();
+        try {
+            documents.forEach(index::put);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Quita el producto al confirmarse la transacción actual, o en el acto si no hay ninguna. */
+    public void deleted(Long id) {
+        afterCommit(() -> {
+            long stamp = lock.writeLock();
+            try {
+                index.remove(id);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        });
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return index.documents.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Reconstruye el índice si hace falta y aplica los eventos pendientes. */
+    void sync() {
+        try {
+            if (!ready) {
+                rebuild();
+            }
+            List<ProductEvent> events;
+            do {
+                events = eventRepository.findBySeqGreaterThanOrderBySeqAsc(cursor, Limit.of(pageSize));
+                if (ProductService.purgedAfter(cursor, events)) {
+                    log.warn("Los eventos posteriores al cursor {} ya se purgaron; se reconstruye el índice", cursor);
+                    rebuild();
+                    return;
+                }
+                apply(events);
+            } while (events.size() == pageSize);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo sincronizar el índice de búsqueda: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga el catálogo en paralelo y sustituye el índice. El cursor se lee
+     * antes que los ids: los cambios que ocurran durante la carga llegan
+     * después como eventos.
+     */
+    private void rebuild() {
+        long started = System.nanoTime();
+        long snapshotCursor = eventRepository.findLastSeq();
+        List<Long> ids = repository.findAllIds();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(rebuildThreads, r -> {
+            Thread thread = new Thread(r, "product-search-rebuild-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Index rebuilt = new Index();
+        try {
+            List<Future<List<Document>>> chunks = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += rebuildChunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + rebuildChunkSize, ids.size()));
+                chunks.add(loaders.submit(() -> repository.findAllById(chunk).stream()
+                        .map(ProductSearchIndex::document)
+                        .toList()));
+            }
+            for (Future<List<Document>> chunk : chunks) {
+                chunk.get().forEach(rebuilt::put);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No se pudo cargar el catálogo", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Carga del catálogo interrumpida", e);
+        } finally {
+            loaders.shutdownNow();
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            index = rebuilt;
+            cursor = snapshotCursor;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        ready = true;
+        log.info("Índice de búsqueda cargado: {} productos en {} ms, cursor {}", rebuilt.documents.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), snapshotCursor);
+    }
+
+    /** Recarga los productos afectados por los eventos: los que ya no existen se quitan. */
+    private void apply(List<ProductEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Set<Long> affected = new LinkedHashSet<>();
+        events.forEach(event -> affected.add(event.getProductId()));
+        Map<Long, Document> current = new HashMap<>();
+        repository.findAllById(affected).forEach(product -> current.put(product.getId(), document(product)));
+
+        long stamp = lock.writeLock();
+        try {
+            for (Long id : affected) {
+                Document document = current.get(id);
+                if (document == null) {
+                    index.remove(id);
+                } else {
+                    index.put(document);
+                }
+            }
+            cursor = events.get(events.size() - 1).getSeq();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Copia del producto (el índice no comparte entidades con JPA) y sus términos. */
+    private static Document document(Product product) {
+        Product copy = Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .description(product.getDescription())
+                .version(product.getVersion())
+                .build();
+        Set<String> terms = tokenize(product.getName());
+        terms.addAll(tokenize(product.getDescription()));
+        return new Document(copy, terms);
+    }
+
+    /** Palabras en minúsculas y sin tildes ni diacríticos. */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Estructuras del índice; se accede a ellas con {@link #lock} tomado. Las
+     * listas de ids son arrays ordenados, así que una búsqueda recorre los ids
+     * en orden desde el cursor y se detiene al completar la página en lugar
+     * de calcular todas las coincidencias.
+     */
+    private static final class Index {
+
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final Postings all = new Postings();
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+        private final NavigableMap<Double, Postings> prices = new TreeMap<>();
+
+        /** Inserta o sustituye el producto, salvo que ya haya una versión posterior. */
+        void put(Document document) {
+            Product product = document.product();
+            Document previous = documents.get(product.getId());
+            if (previous != null && version(previous.product()) > version(product)) {
+                return;
+            }
+            if (previous != null) {
+                unlink(previous);
+            }
+            long id = product.getId();
+            documents.put(id, document);
+            all.add(id);
+            document.terms().forEach(term -> terms.computeIfAbsent(term, t -> new Postings()).add(id));
+            prices.computeIfAbsent(product.getPrice(), p -> new Postings()).add(id);
+        }
+
+        void remove(Long id) {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        /**
+         * Recorre en orden de id los candidatos del filtro más selectivo (el
+         * término con menos coincidencias, o el rango de precio si tiene
+         * menos) y comprueba el resto de filtros sobre cada producto. Un
+         * rango de precio se ordena por id solo cuando es pequeño; si abarca
+         * buena parte del catálogo es más barato recorrerlo entero por id y
+         * filtrar.
+         */
+        List<Product> search(Set<String> tokens, Double minPrice, Double maxPrice, long after, int size) {
+            Map<String, List<Postings>> byToken = new HashMap<>();
+            String driverToken = null;
+            List<Postings> driver = null;
+            long driverCount = Long.MAX_VALUE;
+            for (String token : tokens) {
+                List<Postings> postings = new ArrayList<>(
+                        terms.subMap(token, true, token + Character.MAX_VALUE, false).values());
+                long count = count(postings);
+                if (count == 0) {
+                    return List.of();
+                }
+                byToken.put(token, postings);
+                if (count < driverCount) {
+                    driverToken = token;
+                    driver = postings;
+                    driverCount = count;
+                }
+            }
+            if (minPrice != null || maxPrice != null) {
+                Collection<Postings> range = priceRange(minPrice, maxPrice).values();
+                long count = count(range);
+                if (count == 0) {
+                    return List.of();
+                }
+                if (count < driverCount && (driver != null || count * count <= (long) size * documents.size())) {
+                    driverToken = null;
+                    driver = List.of(sorted(range, count));
+                }
+            }
+            if (driver == null) {
+                driver = List.of(all);
+            }
+            byToken.remove(driverToken);
+
+            // Los términos que se expanden a pocas palabras se comprueban con
+            // búsqueda binaria en sus listas; el resto, sobre las palabras del producto
+            List<List<Postings>> lookups = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            byToken.forEach((token, postings) -> {
+                if (postings.size() <= MAX_LOOKUP_POSTINGS) {
+                    lookups.add(postings);
+                } else {
+                    prefixes.add(token);
+                }
+            });
+
+            PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(driver.size(), 1),
+                    Comparator.comparingLong(Cursor::id));
+            for (Postings postings : driver) {
+                int position = postings.after(after);
+                if (position < postings.size) {
+                    cursors.add(new Cursor(postings, position));
+                }
+            }
+            List<Product> result = new ArrayList<>(Math.min(size, 100));
+            long last = after;
+            while (!cursors.isEmpty() && result.size() < size) {
+                Cursor cursor = cursors.poll();
+                long id = cursor.id();
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                if (id == last) {
+                    continue;
+                }
+                last = id;
+                if (!containsAll(lookups, id)) {
+                    continue;
+                }
+                Document document = documents.get(id);
+                if (matches(document, prefixes, minPrice, maxPrice)) {
+                    result.add(document.product());
+                }
+            }
+            return result;
+        }
+
+        private NavigableMap<Double, Postings> priceRange(Double minPrice, Double maxPrice) {
+            NavigableMap<Double, Postings> range = prices;
+            if (minPrice != null) {
+                range = range.tailMap(minPrice, true);
+            }
+            if (maxPrice != null) {
+                range = range.headMap(maxPrice, true);
+            }
+            return range;
+        }
+
+        private static boolean containsAll(List<List<Postings>> lookups, long id) {
+            for (List<Postings> postings : lookups) {
+                boolean found = false;
+                for (Postings p : postings) {
+                    if (p.contains(id)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean matches(Document document, List<String> tokens, Double minPrice, Double maxPrice) {
+            double price = document.product().getPrice();
+            if ((minPrice != null && price < minPrice) || (maxPrice != null && price > maxPrice)) {
+                return false;
+            }
+            for (String token : tokens) {
+                boolean found = false;
+                for (String term : document.terms()) {
+                    if (term.startsWith(token)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long count(Collection<Postings> postings) {
+            long count = 0;
+            for (Postings p : postings) {
+                count += p.size;
+            }
+            return count;
+        }
+
+        private static Postings sorted(Collection<Postings> postings, long count) {
+            long[] ids = new long[(int) count];
+            int size = 0;
+            for (Postings p : postings) {
+                System.arraycopy(p.ids, 0, ids, size, p.size);
+                size += p.size;
+            }
+            Arrays.sort(ids);
+            return new Postings(ids, size);
+        }
+
+        private void unlink(Document document) {
+            long id = document.product().getId();
+            all.remove(id);
+            document.terms().forEach(term -> detach(terms, term, id));
+            detach(prices, document.product().getPrice(), id);
+        }
+
+        private static <K> void detach(Map<K, Postings> postings, K key, long id) {
+            Postings ids = postings.get(key);
+            if (ids != null && ids.remove(id) && ids.size == 0) {
+                postings.remove(key);
+            }
+        }
+
+        private static long version(Product product) {
+            return product.getVersion() == null ? 0L : product.getVersion();
+        }
+    }
+
+    /**
+     * Ids ordenados en un {@code long[]}. Los productos nuevos tienen ids
+     * crecientes y se añaden al final; insertar o quitar en medio desplaza
+     * el resto del array.
+     */
+    private static final class Postings {
+
+        private long[] ids;
+        private int size;
+
+        Postings() {
+            this(new long[4], 0);
+        }
+
+        Postings(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        void add(long id) {
+            int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                position = -position - 1;
+            } else if (position < size) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        /** Posición del primer id mayor que {@code id}. */
+        int after(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            return position >= 0 ? position + 1 : -position - 1;
+        }
+    }
+
+    /** Posición dentro de una lista de ids durante la mezcla ordenada de una búsqueda. */
+    private static final class Cursor {
+
+        private final Postings postings;
+        private int position;
+
+        Cursor(Postings postings, int position) {
+            this.postings = postings;
+            this.position = position;
+        }
+
+        long id() {
+            return postings.ids[position];
+        }
+
+        boolean advance() {
+            return ++position < postings.size;
+        }
+    }
+}
@@ -1,31 +1,181 @@
 package com.carlosmoreno.store.products_service.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.model.ProductSnapshot;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
 import com.carlosmoreno.store.products_service.repository.ProductRepository;
 
+import jakarta.persistence.EntityManager;
+
 @Service
 public class ProductService {
 
     private final ProductRepository repository;
+    private final ProductEventRepository eventRepository;
+    private final EntityManager entityManager;
+    private final ProductVersions versions;
+    private final ProductSearchIndex searchIndex;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository,
+                          ProductEventRepository eventRepository,
+                          EntityManager entityManager,
+                          ProductVersions versions,
+                          ProductSearchIndex searchIndex) {
         this.repository = repository;
+        this.eventRepository = eventRepository;
+        this.entityManager = entityManager;
+        this.versions = versions;
+        this.searchIndex = searchIndex;
     }
 
+    /**
+     * Crea o actualiza un producto y registra el evento correspondiente en la
+     * misma transacción. Una actualización sin {@code version} sobrescribe la
+     * versión actual; con {@code version}, falla si el producto cambió desde
+     * entonces. En ambos casos la versión avanza y se anota en
+     * {@link ProductVersions} para invalidar los ETags anteriores. El índice
+     * de búsqueda se actualiza al confirmarse la transacción.
+     *
+     * <p>Un {@code id} que no existe (nunca existió o se borró entretanto) sin
+     * {@code version} crea un producto nuevo con otro id, como antes de
+     * versionar los productos: con el id puesto y sin versión, JPA intentaría
+     * persistirlo como entidad separada. Con {@code version} se responde 409,
+     * porque el producto que el cliente leyó ya no existe.</p>
+     */
+    @Transactional
     public Product save(Product product) {
-        return repository.save(product);
+        Long current = product != null && product.getId() != null
+                ? repository.findVersionById(product.getId()).orElse(null)
+                : null;
+        if (current == null && product != null && product.getVersion() == null) {
+            product.setId(null);
+        }
+        if (current != null && product.getVersion() == null) {
+            product.setVersion(current);
+        }
+        Product saved = repository.save(product);
+        if (current != null) {
+            versions.update(saved.getId(), current + 1);
+        }
+        publish(saved.getId(), current != null ? ProductEvent.UPDATED : ProductEvent.CREATED);
+        searchIndex.updated(saved);
+        return saved;
+    }
+
+    /**
+     * Elimina un producto y registra el evento {@code DELETED}. Devuelve
+     * {@code false} si no existía.
+     */
+    @Transactional
+    public boolean deleteById(Long id) {
+        if (!repository.existsById(id)) {
+            return false;
+        }
+        repository.deleteById(id);
+        versions.deleted(id);
+        searchIndex.deleted(id);
+        publish(id, ProductEvent.DELETED);
+        return true;
+    }
+
+    /**
+     * Eventos con {@code seq} posterior a {@code afterSeq}, en orden de
+     * confirmación (ver {@link ProductEventSequencer}). Vacío si la retención
+     * ya borró eventos que siguen a {@code afterSeq}: el consumidor debe
+     * recargar el snapshot.
+     */
+    public Optional<List<ProductEvent>> findEvents(long afterSeq, int size) {
+        List<ProductEvent> events = eventRepository.findBySeqGreaterThanOrderBySeqAsc(afterSeq, Limit.of(size));
+        return purgedAfter(afterSeq, events) ? Optional.empty() : Optional.of(events);
+    }
+
+    /**
+     * Indica si faltan eventos entre {@code afterSeq} y el primero de
+     * {@code events}. Los {@code seq} son consecutivos, así que un hueco solo
+     * puede deberse a la purga.
+     */
+    static boolean purgedAfter(long afterSeq, List<ProductEvent> events) {
+        return !events.isEmpty() && events.get(0).getSeq() > afterSeq + 1;
+    }
+
+    /**
+     * Ids de todo el catálogo y el cursor de eventos desde el que continuar.
+     * El cursor se lee antes que los ids: los eventos numerados entre ambos
+     * se reaplican y el resultado es el mismo.
+     */
+    @Transactional(readOnly = true)
+    public ProductSnapshot snapshot() {
+        long cursor = eventRepository.findLastSeq();
+        return new ProductSnapshot(cursor, repository.findAllIds());
+    }
+
+    private void publish(Long productId, String type) {
+        eventRepository.save(ProductEvent.builder()
+                .productId(productId)
+                .type(type)
+                .createdAt(LocalDateTime.now())
+                .build());
     }
 
     public Optional<Product> findById(Long id) {
-        return repository.findById(id);
+        Optional<Product> product = repository.findById(id);
+        product.ifPresent(p -> versions.update(p.getId(), p.getVersion()));
+        return product;
+    }
+
+    /**
+     * Versión conocida del producto sin consultar la base de datos, o
+     * {@code null} si no se conoce.
+     */
+    public Long knownVersion(Long id) {
+        return versions.current(id);
+    }
+
+    /** Búsqueda en el índice en memoria; ver {@link ProductSearchIndex#search}. */
+    public List<Product> search(String query, Double minPrice, Double maxPrice, Long afterId, int size) {
+        return searchIndex.search(query, minPrice, maxPrice, afterId, size);
+    }
+
+    public boolean isSearchReady() {
+        return searchIndex.isReady();
+    }
+
+    public List<Product> findAllById(Collection<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
+    /**
+     * Devuelve hasta {@code size} productos con id mayor que {@code afterId}
+     * (o desde el inicio si es {@code null}).
+     */
+    public List<Product> findPage(Long afterId, int size) {
+        return repository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(size));
     }
 
-    public List<Product> findAll() {
-        return repository.findAll();
+    /**
+     * Entrega cada producto del catálogo al {@code consumer} a medida que se
+     * lee de la base de datos. Cada entidad se desasocia del contexto de
+     * persistencia tras procesarla para que la memoria no crezca con el catálogo.
+     */
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<Product> consumer) {
+        try (Stream<Product> products = repository.streamAll()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
-}
\ No newline at end of file
+}
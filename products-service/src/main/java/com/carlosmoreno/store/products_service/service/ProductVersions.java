@@ -0,0 +1,54 @@
+package com.carlosmoreno.store.products_service.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Última versión conocida de cada producto, para responder a
+ * {@code If-None-Match} sin consultar la base de datos.
+ *
+ * <p>Las versiones solo avanzan: una escritura registra la versión que va a
+ * confirmar antes del commit y una lectura concurrente con la versión anterior
+ * no la hace retroceder. Si la transacción se revierte, la versión registrada
+ * queda por delante de la real y las peticiones condicionales simplemente
+ * caen a la base de datos. Un borrado deja una marca que nunca coincide.</p>
+ *
+ * <p>Con varias instancias, los cambios hechos en otra se ven aquí como muy
+ * tarde tras {@code products.etag.ttl}.</p>
+ */
+@Component
+public class ProductVersions {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<Long, Long> versions;
+
+    public ProductVersions(@Value("${products.etag.maximum-size:100000}") long maximumSize,
+                           @Value("${products.etag.ttl:30s}") Duration ttl) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /** Versión conocida del producto, o {@code null} si no se conoce o se borró. */
+    public Long current(Long id) {
+        Long version = versions.getIfPresent(id);
+        return version == null || version == DELETED ? null : version;
+    }
+
+    public void update(Long id, Long version) {
+        if (id != null && version != null) {
+            versions.asMap().merge(id, version, Math::max);
+        }
+    }
+
+    public void deleted(Long id) {
+        versions.put(id, DELETED);
+    }
+}
@@ -0,0 +1,456 @@
+package com.carlosmoreno.store.products_service.integration;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.model.ProductImportResult;
+import com.carlosmoreno.store.products_service.model.ProductSnapshot;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
+import com.carlosmoreno.store.products_service.repository.ProductIdGenerator;
+import com.carlosmoreno.store.products_service.repository.ProductRepository;
+import com.carlosmoreno.store.products_service.service.ProductEventSequencer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureObservability
+class ProductControllerIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductIdGenerator idGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductEventSequencer sequencer;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoSpyBean
+    private ProductEventRepository eventRepository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        for (int i = 1; i <= 5; i++) {
+            repository.save(Product.builder().name("Producto " + i).price(10.0 * i).build());
+        }
+    }
+
+    @Test
+    void getAllProducts_shouldPaginateWithCursor() {
+        ResponseEntity<Product[]> first = get("/api/products?size=3", Product[].class);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(3, first.getBody().length);
+        String cursor = first.getHeaders().getFirst("X-Next-Cursor");
+        assertEquals(String.valueOf(first.getBody()[2].getId()), cursor);
+
+        ResponseEntity<Product[]> second = get("/api/products?size=3&after=" + cursor, Product[].class);
+
+        assertEquals(2, second.getBody().length);
+        assertEquals("Producto 4", second.getBody()[0].getName());
+        assertNull(second.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void exportProducts_shouldStreamOneJsonObjectPerLine() {
+        ResponseEntity<String> response = get("/api/products/export", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = response.getBody().split("\n");
+        assertEquals(5, lines.length);
+        assertEquals(true, lines[0].contains("\"name\":\"Producto 1\""));
+    }
+
+    @Test
+    void catalogChanges_shouldBePublishedAsEventsAfterSnapshotCursor() {
+        sequencer.assign();
+        ProductSnapshot snapshot = get("/api/products/snapshot", ProductSnapshot.class).getBody();
+        assertEquals(repository.findAllIds(), snapshot.getIds());
+
+        Product created = restTemplate.exchange("/api/products", HttpMethod.POST,
+                new HttpEntity<>(Product.builder().name("Nuevo").price(1.0).build(), apiKeyHeaders()),
+                Product.class).getBody();
+        restTemplate.exchange("/api/products/" + created.getId(), HttpMethod.DELETE,
+                new HttpEntity<>(apiKeyHeaders()), Void.class);
+        sequencer.assign();
+
+        ProductEvent[] events = get("/api/products/events?after=" + snapshot.getCursor(), ProductEvent[].class)
+                .getBody();
+        assertEquals(2, events.length);
+        assertEquals(ProductEvent.CREATED, events[0].getType());
+        assertEquals(ProductEvent.DELETED, events[1].getType());
+        assertEquals(created.getId(), events[1].getProductId());
+    }
+
+    @Test
+    void events_shouldFollowCommitOrder_whenALowerIdCommitsLate() throws Exception {
+        sequencer.assign();
+        long cursor = get("/api/products/snapshot", ProductSnapshot.class).getBody().getCursor();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread slow = new Thread(() -> transactionTemplate.executeWithoutResult(tx -> {
+            insertEvent(901L, LocalDateTime.now());
+            inserted.countDown();
+            try {
+                commit.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        insertEvent(902L, LocalDateTime.now());
+        sequencer.assign();
+
+        ProductEvent[] first = get("/api/products/events?after=" + cursor, ProductEvent[].class).getBody();
+        assertEquals(1, first.length);
+        assertEquals(902L, first[0].getProductId());
+
+        commit.countDown();
+        slow.join();
+        sequencer.assign();
+
+        ProductEvent[] late = get("/api/products/events?after=" + first[0].getSeq(), ProductEvent[].class)
+                .getBody();
+        assertEquals(1, late.length);
+        assertEquals(901L, late[0].getProductId());
+        assertTrue(late[0].getId() < first[0].getId());
+    }
+
+    @Test
+    void events_shouldAnswerGone_whenCursorIsBehindPurgedEvents() {
+        sequencer.assign();
+        long cursor = get("/api/products/snapshot", ProductSnapshot.class).getBody().getCursor();
+        for (long productId = 911; productId <= 913; productId++) {
+            insertEvent(productId, LocalDateTime.now().minusDays(30));
+        }
+        sequencer.assign();
+
+        assertTrue(sequencer.purge() >= 2);
+
+        assertEquals(HttpStatus.GONE, get("/api/products/events?after=" + cursor, String.class).getStatusCode());
+        long reloaded = get("/api/products/snapshot", ProductSnapshot.class).getBody().getCursor();
+        ResponseEntity<ProductEvent[]> events = get("/api/products/events?after=" + reloaded, ProductEvent[].class);
+        assertEquals(HttpStatus.OK, events.getStatusCode());
+        assertEquals(0, events.getBody().length);
+    }
+
+    @Test
+    void getProductById_shouldAnswerNotModified_untilProductChanges() {
+        Product product = repository.findAll().get(0);
+        ResponseEntity<Product> first = get("/api/products/" + product.getId(), Product.class);
+        String etag = first.getHeaders().getETag();
+        assertEquals("\"0\"", etag);
+        assertEquals("no-cache, private", first.getHeaders().getCacheControl());
+
+        ResponseEntity<String> unchanged = conditionalGet("/api/products/" + product.getId(), etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        assertEquals(etag, unchanged.getHeaders().getETag());
+
+        product.setVersion(null);
+        product.setPrice(99.0);
+        restTemplate.exchange("/api/products", HttpMethod.POST, new HttpEntity<>(product, apiKeyHeaders()),
+                Product.class);
+
+        ResponseEntity<String> changed = conditionalGet("/api/products/" + product.getId(), etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("\"1\"", changed.getHeaders().getETag());
+        assertTrue(changed.getBody().contains("99.0"));
+    }
+
+    @Test
+    void getProductById_shouldAnswerCbor_whenPreferredOverJson() throws Exception {
+        Product product = repository.findAll().get(0);
+        HttpHeaders headers = apiKeyHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.9");
+
+        ResponseEntity<byte[]> cbor = restTemplate.exchange("/api/products/" + product.getId(), HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        ResponseEntity<byte[]> json = get("/api/products/" + product.getId(), byte[].class);
+
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertEquals("\"0-cbor\"", cbor.getHeaders().getETag());
+        assertEquals(product.getName(), new CBORMapper().readValue(cbor.getBody(), Product.class).getName());
+        assertEquals(MediaType.APPLICATION_JSON, json.getHeaders().getContentType());
+        assertTrue(cbor.getBody().length < json.getBody().length);
+    }
+
+    @Test
+    void getProductById_shouldKeepSeparateETags_forJsonAndCbor() {
+        Product product = repository.findAll().get(0);
+        String url = "/api/products/" + product.getId();
+        ResponseEntity<String> json = get(url, String.class);
+        assertEquals("\"0\"", json.getHeaders().getETag());
+        assertTrue(json.getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+
+        HttpHeaders headers = apiKeyHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.9");
+        headers.setIfNoneMatch(json.getHeaders().getETag());
+        ResponseEntity<byte[]> cbor = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+                byte[].class);
+        assertEquals(HttpStatus.OK, cbor.getStatusCode());
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertTrue(cbor.getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+
+        headers.setIfNoneMatch(cbor.getHeaders().getETag());
+        ResponseEntity<byte[]> unchanged = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+                byte[].class);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertEquals("\"0-cbor\"", unchanged.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, conditionalGet(url, cbor.getHeaders().getETag()).getStatusCode());
+    }
+
+    @Test
+    void createProduct_shouldRejectStaleVersion() {
+        Product product = repository.findAll().get(0);
+        product.setName("Primera edición");
+        restTemplate.exchange("/api/products", HttpMethod.POST, new HttpEntity<>(product, apiKeyHeaders()),
+                Product.class);
+
+        product.setName("Edición obsoleta");
+        ResponseEntity<String> stale = restTemplate.exchange("/api/products", HttpMethod.POST,
+                new HttpEntity<>(product, apiKeyHeaders()), String.class);
+
+        assertEquals(HttpStatus.CONFLICT, stale.getStatusCode());
+        assertEquals("Primera edición", repository.findById(product.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void createProduct_withUnknownId_shouldCreate_orConflictWhenVersioned() {
+        Product deleted = repository.findAll().get(0);
+        repository.deleteById(deleted.getId());
+        Product unversioned = Product.builder().id(deleted.getId()).name("Recreado").price(5.0).build();
+
+        ResponseEntity<Product> created = restTemplate.exchange("/api/products", HttpMethod.POST,
+                new HttpEntity<>(unversioned, apiKeyHeaders()), Product.class);
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertEquals("Recreado", repository.findById(created.getBody().getId()).orElseThrow().getName());
+        assertEquals(5, repository.count());
+
+        Product versioned = Product.builder().id(deleted.getId()).name("Obsoleto").price(5.0).version(0L).build();
+        ResponseEntity<String> conflict = restTemplate.exchange("/api/products", HttpMethod.POST,
+                new HttpEntity<>(versioned, apiKeyHeaders()), String.class);
+
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        assertEquals(5, repository.count());
+    }
+
+    @Test
+    void getAllProducts_shouldAnswerNotModified_forUnchangedPage() {
+        String etag = get("/api/products?size=3", String.class).getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet("/api/products?size=3", etag).getStatusCode());
+        assertEquals(HttpStatus.OK, conditionalGet("/api/products?size=4", etag).getStatusCode());
+    }
+
+    @Test
+    void importProducts_shouldStreamAssignedIds_andPublishCreatedEvents() throws Exception {
+        sequencer.assign();
+        ProductSnapshot snapshot = get("/api/products/snapshot", ProductSnapshot.class).getBody();
+        String ndjson = """
+                {"name": "Importado 1", "price": 1.5}
+                {"name": "", "price": 2.0}
+
+                {"name": "Importado 2", "price": 3.0, "description": "Proveedor"}
+                {"name": "Importado 3", "price": 4.0}
+                """;
+
+        List<ProductImportResult> results = importProducts(ndjson, MediaType.parseMediaType("application/x-ndjson"));
+
+        assertEquals(4, results.size());
+        assertEquals(List.of(1L, 2L, 4L, 5L), results.stream().map(ProductImportResult::getRow).toList());
+        assertEquals("name is required", results.get(1).getError());
+        assertNull(results.get(1).getId());
+        assertEquals("Proveedor", repository.findById(results.get(2).getId()).orElseThrow().getDescription());
+        assertEquals(8, repository.count());
+        sequencer.assign();
+
+        ProductEvent[] events = get("/api/products/events?after=" + snapshot.getCursor(), ProductEvent[].class)
+                .getBody();
+        assertEquals(3, events.length);
+        assertEquals(results.get(3).getId(), events[2].getProductId());
+    }
+
+    @Test
+    void importProducts_shouldRejectOverlongName_withoutFailingTheRestOfItsBatch() throws Exception {
+        String ndjson = "{\"name\": \"" + "x".repeat(256) + "\", \"price\": 1.0}\n"
+                + "{\"name\": \"Importado\", \"price\": 2.0}\n";
+
+        List<ProductImportResult> results = importProducts(ndjson, MediaType.parseMediaType("application/x-ndjson"));
+
+        assertEquals("name must be at most 255 characters", results.get(0).getError());
+        assertEquals("Importado", repository.findById(results.get(1).getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void importProducts_shouldRetryFailedBatchRowByRow() throws Exception {
+        doThrow(new DataIntegrityViolationException("simulado"))
+                .when(eventRepository).insertAll(argThat(ids -> ids.size() > 1), any(), any());
+        String ndjson = """
+                {"name": "Importado 1", "price": 1.0}
+                {"name": "Importado 2", "price": 2.0}
+                """;
+
+        List<ProductImportResult> results = importProducts(ndjson, MediaType.parseMediaType("application/x-ndjson"));
+
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getError());
+        assertEquals("Importado 2", repository.findById(results.get(1).getId()).orElseThrow().getName());
+        assertEquals(7, repository.count());
+    }
+
+    @Test
+    void importProducts_shouldParseCsvWithQuotedValues() throws Exception {
+        String csv = """
+                price,name,description
+                9.5,"Cable, 2 m","Dice ""USB-C""\"
+                abc,Sin precio,
+                """;
+
+        List<ProductImportResult> results = importProducts(csv, MediaType.parseMediaType("text/csv"));
+
+        Product imported = repository.findById(results.get(0).getId()).orElseThrow();
+        assertEquals("Cable, 2 m", imported.getName());
+        assertEquals("Dice \"USB-C\"", imported.getDescription());
+        assertEquals(3L, results.get(1).getRow());
+        assertEquals("price must be a number", results.get(1).getError());
+    }
+
+    @Test
+    void searchProducts_shouldMatchPrefixesAndPriceRange_fromTheIndex() throws InterruptedException {
+        awaitSearchIndex();
+        for (Product product : List.of(
+                Product.builder().name("Zapatilla de trail").price(60.0).description("Suela de goma").build(),
+                Product.builder().name("Zapato de vestir").price(120.0).build())) {
+            restTemplate.exchange("/api/products", HttpMethod.POST, new HttpEntity<>(product, apiKeyHeaders()),
+                    Product.class);
+        }
+
+        ResponseEntity<Product[]> found = get("/api/products/search?q=ZAPAT&maxPrice=100", Product[].class);
+
+        assertEquals(HttpStatus.OK, found.getStatusCode());
+        assertEquals(1, found.getBody().length);
+        assertEquals("Zapatilla de trail", found.getBody()[0].getName());
+        assertEquals(2, get("/api/products/search?q=zapat", Product[].class).getBody().length);
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/products/search", String.class).getStatusCode());
+    }
+
+    @Test
+    void idGenerator_shouldSkipIdsAlreadyInUse() {
+        jdbcTemplate.update("INSERT INTO products (id, name, price, version) VALUES (5000, 'Heredado', 1.0, 0)");
+
+        idGenerator.alignWithExistingIds();
+
+        Long next = jdbcTemplate.queryForObject("SELECT next_val FROM id_generators WHERE name = 'products'",
+                Long.class);
+        assertTrue(next > 5000 + Product.ID_ALLOCATION_SIZE);
+    }
+
+    @Test
+    void requests_shouldBeRejected_withoutApiKey() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/products", String.class);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    void prometheusEndpoint_shouldBePublic_andExposeRequestLatencies() {
+        get("/api/products?size=1", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("http_server_requests_seconds_bucket"));
+        assertTrue(response.getBody().contains("hikaricp_connections_acquire_seconds"));
+    }
+
+    private void insertEvent(Long productId, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO product_events (product_id, type, created_at) VALUES (?, ?, ?)",
+                productId, ProductEvent.UPDATED, Timestamp.valueOf(createdAt));
+    }
+
+    private <T> ResponseEntity<T> get(String url, Class<T> type) {
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(apiKeyHeaders()), type);
+    }
+
+    /** El índice de búsqueda se carga en segundo plano al arrancar. */
+    private void awaitSearchIndex() throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            if (get("/api/products/search?q=x", String.class).getStatusCode() != HttpStatus.SERVICE_UNAVAILABLE) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private List<ProductImportResult> importProducts(String body, MediaType contentType) throws Exception {
+        HttpHeaders headers = apiKeyHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<String> response = restTemplate.exchange("/api/products/import", HttpMethod.POST,
+                new HttpEntity<>(body, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<ProductImportResult> results = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            results.add(objectMapper.readValue(line, ProductImportResult.class));
+        }
+        return results;
+    }
+
+    private ResponseEntity<String> conditionalGet(String url, String etag) {
+        HttpHeaders headers = apiKeyHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private static HttpHeaders apiKeyHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-KEY", "test-api-key");
+        return headers;
+    }
+}
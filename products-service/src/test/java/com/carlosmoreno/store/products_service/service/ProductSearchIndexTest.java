@@ -0,0 +1,139 @@
+package com.carlosmoreno.store.products_service.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
+import com.carlosmoreno.store.products_service.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    @Mock
+    private ProductEventRepository eventRepository;
+
+    private ProductSearchIndex index;
+
+    private List<Product> catalog = List.of(
+            product(1L, "Portátil Lenovo", 900.0, "Pantalla de 14 pulgadas"),
+            product(2L, "Monitor Samsung", 250.0, "Panel IPS, 27 pulgadas"),
+            product(3L, "Teclado mecánico", 80.0, "Distribución española"),
+            product(4L, "Portafolio", 25.0, null));
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(repository, eventRepository, new SimpleMeterRegistry(), false,
+                Duration.ofSeconds(1), 2, 2, 10);
+        when(eventRepository.findLastSeq()).thenReturn(7L);
+        when(repository.findAllIds()).thenAnswer(invocation -> catalog.stream().map(Product::getId).toList());
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Set<Long> ids = Set.copyOf(toList(invocation.getArgument(0)));
+            return catalog.stream().filter(p -> ids.contains(p.getId())).toList();
+        });
+    }
+
+    @Test
+    void sync_shouldRebuildInChunks_andMatchPrefixesIgnoringCaseAndAccents() {
+        assertFalse(index.isReady());
+
+        index.sync();
+
+        assertTrue(index.isReady());
+        verify(repository, times(2)).findAllById(anyIterable());
+        assertEquals(List.of(1L, 4L), ids(index.search("PORTA", null, null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("portatil len", null, null, null, 10)));
+        assertEquals(List.of(1L, 2L), ids(index.search("pulg", null, null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("espa", null, null, null, 10)));
+        assertEquals(List.of(), ids(index.search("portátil samsung", null, null, null, 10)));
+    }
+
+    @Test
+    void search_shouldFilterByPriceRange_andPageById() {
+        index.sync();
+
+        assertEquals(List.of(2L, 3L), ids(index.search(null, 50.0, 250.0, null, 10)));
+        assertEquals(List.of(2L), ids(index.search("pulgadas", null, 300.0, null, 10)));
+        assertEquals(List.of(1L, 2L), ids(index.search(null, 30.0, null, null, 2)));
+        assertEquals(List.of(3L), ids(index.search(null, 30.0, null, 2L, 2)));
+    }
+
+    @Test
+    void sync_shouldApplyOutboxEvents_afterTheRebuildCursor() {
+        index.sync();
+        catalog = List.of(
+                product(1L, "Portátil Lenovo", 900.0, "Pantalla de 14 pulgadas"),
+                product(3L, "Teclado inalámbrico", 95.0, "Distribución española"),
+                product(4L, "Portafolio", 25.0, null));
+        when(eventRepository.findBySeqGreaterThanOrderBySeqAsc(eq(7L), any()))
+                .thenReturn(List.of(event(8L, 2L, ProductEvent.DELETED), event(9L, 3L, ProductEvent.UPDATED)));
+
+        index.sync();
+
+        assertEquals(List.of(), ids(index.search("monitor", null, null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("inalam", 90.0, 100.0, null, 10)));
+        assertEquals(List.of(), ids(index.search("mecanico", null, null, null, 10)));
+        index.sync();
+        verify(eventRepository).findBySeqGreaterThanOrderBySeqAsc(eq(9L), any());
+    }
+
+    @Test
+    void updated_shouldIgnoreOlderVersions() {
+        index.sync();
+        index.updated(product(5L, "Cámara web", 40.0, null, 2L));
+        index.updated(product(5L, "Cámara réflex", 40.0, null, 1L));
+
+        assertEquals(List.of(5L), ids(index.search("web", null, null, null, 10)));
+        assertEquals(List.of(), ids(index.search("reflex", null, null, null, 10)));
+
+        index.deleted(5L);
+
+        assertEquals(List.of(), ids(index.search("camara", null, null, null, 10)));
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static List<Long> toList(Iterable<Long> ids) {
+        return ids instanceof Collection<Long> collection
+                ? List.copyOf(collection)
+                : StreamSupport.stream(ids.spliterator(), false).toList();
+    }
+
+    private static Product product(Long id, String name, double price, String description) {
+        return product(id, name, price, description, 0L);
+    }
+
+    private static Product product(Long id, String name, double price, String description, Long version) {
+        return Product.builder().id(id).name(name).price(price).description(description).version(version).build();
+    }
+
+    private static ProductEvent event(Long seq, Long productId, String type) {
+        return ProductEvent.builder().id(seq).seq(seq).productId(productId).type(type).build();
+    }
+}
@@ -4,20 +4,26 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import com.carlosmoreno.store.products_service.model.Product;
+import com.carlosmoreno.store.products_service.model.ProductEvent;
+import com.carlosmoreno.store.products_service.repository.ProductEventRepository;
 import com.carlosmoreno.store.products_service.repository.ProductRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +32,15 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductEventRepository eventRepository;
+
+    @Mock
+    private ProductVersions versions;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
     @InjectMocks
     private ProductService productService;
 
@@ -45,6 +60,40 @@ class ProductServiceTest {
         verify(productRepository, times(1)).save(any(Product.class));
     }
 
+    @Test
+    void testSave_PublishesCreatedOrUpdatedEvent() {
+        Product created = Product.builder().id(1L).name("Laptop").price(1200.0).build();
+        when(productRepository.save(any(Product.class))).thenReturn(created);
+        when(productRepository.findVersionById(1L)).thenReturn(Optional.of(0L));
+
+        productService.save(Product.builder().name("Laptop").price(1200.0).build());
+        productService.save(created);
+
+        ArgumentCaptor<ProductEvent> events = ArgumentCaptor.forClass(ProductEvent.class);
+        verify(eventRepository, times(2)).save(events.capture());
+        assertEquals(ProductEvent.CREATED, events.getAllValues().get(0).getType());
+        assertEquals(ProductEvent.UPDATED, events.getAllValues().get(1).getType());
+        assertEquals(1L, events.getAllValues().get(1).getProductId());
+        assertEquals(0L, created.getVersion());
+        verify(versions, times(1)).update(1L, 1L);
+        verify(searchIndex, times(2)).updated(created);
+    }
+
+    @Test
+    void testDeleteById_PublishesDeletedEvent() {
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(productService.deleteById(1L));
+        assertFalse(productService.deleteById(2L));
+
+        ArgumentCaptor<ProductEvent> event = ArgumentCaptor.forClass(ProductEvent.class);
+        verify(eventRepository, times(1)).save(event.capture());
+        assertEquals(ProductEvent.DELETED, event.getValue().getType());
+        verify(productRepository, never()).deleteById(2L);
+        verify(searchIndex, times(1)).deleted(1L);
+        verify(searchIndex, never()).deleted(2L);
+    }
+
     @Test
     void testGetProductById_Found() {
         Product p = new Product();
@@ -71,31 +120,46 @@ class ProductServiceTest {
     }
 
     @Test
-    void testFindAllProducts() {
+    void testFindPage() {
         Product p1 = new Product();
         p1.setName("Keyboard");
 
         Product p2 = new Product();
         p2.setName("Monitor");
 
-        when(productRepository.findAll()).thenReturn(List.of(p1, p2));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(p1, p2));
 
-        List<Product> products = productService.findAll();
+        List<Product> products = productService.findPage(null, 2);
 
         assertEquals(2, products.size());
         assertEquals("Keyboard", products.get(0).getName());
-        verify(productRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2));
+    }
+
+    @Test
+    void testFindAllById() {
+        Product p1 = new Product();
+        p1.setId(1L);
+        Product p3 = new Product();
+        p3.setId(3L);
+
+        when(productRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(p1, p3));
+
+        List<Product> products = productService.findAllById(List.of(1L, 2L, 3L));
+
+        assertEquals(2, products.size());
+        verify(productRepository, times(1)).findAllById(List.of(1L, 2L, 3L));
     }
 
     @Test
-    void testFindAllProducts_Empty() {
-        when(productRepository.findAll()).thenReturn(List.of());
+    void testFindPage_AfterLastProduct_Empty() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(100))).thenReturn(List.of());
 
-        List<Product> products = productService.findAll();
+        List<Product> products = productService.findPage(5L, 100);
 
         assertNotNull(products);
         assertTrue(products.isEmpty());
-        verify(productRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(5L, Limit.of(100));
     }
 
     @Test